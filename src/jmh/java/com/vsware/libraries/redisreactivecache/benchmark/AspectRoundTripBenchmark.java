@@ -0,0 +1,76 @@
+package com.vsware.libraries.redisreactivecache.benchmark;
+
+import com.vsware.libraries.redisreactivecache.RedisReactiveCacheApplication;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+Full round trip through RedisReactiveCacheAspect with default settings (except versioned writes) - Spring context, Lettuce connection
+and in-process RespServer instead of Redis, so it runs offline. Background cache writes are not awaited,
+as they are not awaited by request serving either
+ */
+@State(Scope.Benchmark)
+public class AspectRoundTripBenchmark {
+
+    private static final String HIT_KEY = "hit";
+
+    private final AtomicLong missCounter = new AtomicLong();
+    private final TestTable updated = new TestTable(1, "updated", LocalDateTime.of(2021, 11, 1, 12, 30, 15));
+
+    private RespServer redis;
+    private ConfigurableApplicationContext context;
+    private BenchmarkService service;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        redis = new RespServer();
+        context = new SpringApplicationBuilder(RedisReactiveCacheApplication.class)
+                .web(WebApplicationType.NONE)
+                //RespServer doesn't run scripts of conditional (versioned) writes
+                .run("--spring.redis.host=127.0.0.1", "--spring.redis.port=" + redis.getPort(),
+                        "--spring.redis.versioned_writes_enabled=false");
+        service = context.getBean(BenchmarkService.class);
+    }
+
+    //keys of Get misses would pile up otherwise
+    @Setup(Level.Iteration)
+    public void resetCache() {
+        redis.flushAll();
+        service.get(HIT_KEY).block();
+        while (!redis.exists(HIT_KEY)) {
+            Thread.onSpinWait();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        context.close();
+        redis.close();
+    }
+
+    @Benchmark
+    public TestTable getHit() {
+        return service.get(HIT_KEY).block();
+    }
+
+    @Benchmark
+    public TestTable getMiss() {
+        return service.get("miss_" + missCounter.incrementAndGet()).block();
+    }
+
+    @Benchmark
+    public TestTable update() {
+        return service.update(updated).block();
+    }
+
+    @Benchmark
+    public Object evict() {
+        return service.evict("evicted").block();
+    }
+}
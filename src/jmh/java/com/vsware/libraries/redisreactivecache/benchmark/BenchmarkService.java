@@ -0,0 +1,33 @@
+package com.vsware.libraries.redisreactivecache.benchmark;
+
+import com.vsware.libraries.redisreactivecache.annotation.RedisReactiveCacheEvict;
+import com.vsware.libraries.redisreactivecache.annotation.RedisReactiveCacheGet;
+import com.vsware.libraries.redisreactivecache.annotation.RedisReactiveCacheUpdate;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+
+/*
+Annotated methods of aspect round trip benchmark, "DB" calls return immediately so only the library overhead is measured
+ */
+@Service
+public class BenchmarkService {
+
+    private static final LocalDateTime INSERT_DATE = LocalDateTime.of(2021, 11, 1, 12, 30, 15);
+
+    @RedisReactiveCacheGet(key = "#name")
+    public Mono<TestTable> get(String name) {
+        return Mono.just(new TestTable(1, name, INSERT_DATE));
+    }
+
+    @RedisReactiveCacheUpdate(key = "#testTable.getName()")
+    public Mono<TestTable> update(TestTable testTable) {
+        return Mono.just(testTable);
+    }
+
+    @RedisReactiveCacheEvict(key = "#name")
+    public Mono<Void> evict(String name) {
+        return Mono.empty();
+    }
+}
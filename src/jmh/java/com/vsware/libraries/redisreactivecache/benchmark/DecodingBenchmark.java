@@ -0,0 +1,69 @@
+package com.vsware.libraries.redisreactivecache.benchmark;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vsware.libraries.redisreactivecache.codec.CacheCodec;
+import com.vsware.libraries.redisreactivecache.config.RedisReactiveCacheConfig;
+import com.vsware.libraries.redisreactivecache.fingerprint.HashCodeArgsFingerprint;
+import com.vsware.libraries.redisreactivecache.util.AspectUtils;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
+import reactor.core.publisher.Flux;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/*
+Cache hit decoding of Flux<TestTable> method: "legacy" reproduces the previous path - Jackson2JsonRedisSerializer<Object>
+deserializes into Object tree, every element is converted with convertValue to getTypeReference of the method,
+"codec" decodes straight into resolved JavaType
+ */
+@State(Scope.Benchmark)
+public class DecodingBenchmark {
+
+    @Param({"1", "100", "1000"})
+    public int size;
+
+    private final AspectUtils aspectUtils = new AspectUtils(new HashCodeArgsFingerprint());
+    private ObjectMapper objectMapper;
+    private Jackson2JsonRedisSerializer<Object> legacySerializer;
+    private CacheCodec codec;
+    private Method method;
+    private JavaType listType;
+    private byte[] encoded;
+
+    @Setup
+    public void setUp() throws NoSuchMethodException {
+        RedisReactiveCacheConfig config = SerializationBenchmark.libraryConfig();
+        objectMapper = config.objectMapper();
+        legacySerializer = new Jackson2JsonRedisSerializer<>(Object.class);
+        legacySerializer.setObjectMapper(objectMapper);
+        codec = config.jsonCacheCodec(objectMapper);
+        method = DecodingBenchmark.class.getMethod("sample");
+        listType = objectMapper.getTypeFactory().constructCollectionType(List.class,
+                objectMapper.getTypeFactory().constructType(aspectUtils.getMethodActualReturnType(method)));
+        encoded = codec.encode(TestTable.list(size));
+    }
+
+    //as previous Flux branch of RedisReactiveCacheGet: type reference resolved per call, every element converted
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public List<Object> legacy() {
+        TypeReference typeRefForMapper = aspectUtils.getTypeReference(method);
+        Object cacheResponse = legacySerializer.deserialize(encoded);
+        return (List<Object>) ((List) cacheResponse).stream()
+                .map(elem -> objectMapper.convertValue(elem, typeRefForMapper))
+                .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<TestTable> codec() {
+        return codec.decode(encoded, listType);
+    }
+
+    public Flux<TestTable> sample() {
+        return Flux.empty();
+    }
+}
@@ -0,0 +1,220 @@
+package com.vsware.libraries.redisreactivecache.benchmark;
+
+import com.vsware.libraries.redisreactivecache.fingerprint.ArgsFingerprint;
+import com.vsware.libraries.redisreactivecache.fingerprint.HashCodeArgsFingerprint;
+import com.vsware.libraries.redisreactivecache.fingerprint.Murmur3ArgsFingerprint;
+import com.vsware.libraries.redisreactivecache.metadata.CacheMethodMetadata;
+import com.vsware.libraries.redisreactivecache.util.AspectUtils;
+import com.vsware.libraries.redisreactivecache.util.CacheKeyExpression;
+import com.vsware.libraries.redisreactivecache.util.CacheKeyExpressionParser;
+import org.aspectj.lang.JoinPoint;
+import org.aspectj.lang.Signature;
+import org.aspectj.lang.reflect.SourceLocation;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.expression.ExpressionParser;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.expression.spel.support.StandardEvaluationContext;
+import reactor.core.publisher.Mono;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/*
+Key generation cost per call: "legacy*" benchmarks reproduce the previous AspectUtils.resolveKey behaviour
+(SpEL parsed and interpreted on every call), the others use CacheKeyExpression built once per method.
+"keyVal*" measure AspectUtils.getKeyVal as called by the aspect, including useArgsHash suffix,
+"fingerprint*" compare useArgsHash engines on large list argument (immutable one is fingerprinted once)
+ */
+@State(Scope.Benchmark)
+public class KeyGenerationBenchmark {
+
+    private static final String[] PARAMETER_NAMES = {"name", "item"};
+    private static final String ARGUMENT_KEY = "#name";
+    private static final String GETTER_KEY = "#item.getId().toString()";
+    private static final String SPEL_KEY = "'item_' + #item.getName() + '_' + #name";
+    private static final String LITERAL_KEY = "items";
+
+    private final ExpressionParser legacyParser = new SpelExpressionParser();
+    private final Object[] args = {"john", new Item(42, "doe")};
+    private final ArgsFingerprint hashCodeFingerprint = new HashCodeArgsFingerprint();
+    private final ArgsFingerprint murmur3Fingerprint =
+            new Murmur3ArgsFingerprint(SerializationBenchmark.libraryConfig().objectMapper());
+    private final AspectUtils aspectUtils = new AspectUtils(murmur3Fingerprint);
+    private final Object[] listArgs = {IntStream.range(0, 1000).mapToObj(i -> "name" + i).collect(Collectors.toList())};
+    private final Object[] immutableListArgs = {List.copyOf((List<?>) listArgs[0])};
+    private final JoinPoint joinPoint = new ArgsJoinPoint(args);
+
+    private CacheKeyExpression argumentKey;
+    private CacheKeyExpression getterKey;
+    private CacheKeyExpression spelKey;
+    private CacheMethodMetadata literalMetadata;
+    private CacheMethodMetadata spelMetadata;
+    private CacheMethodMetadata argsHashMetadata;
+
+    @Setup
+    public void setUp() throws NoSuchMethodException {
+        Method method = KeyGenerationBenchmark.class.getMethod("sample", String.class, Item.class);
+        CacheKeyExpressionParser parser = new CacheKeyExpressionParser();
+        argumentKey = parser.parse(method, ARGUMENT_KEY, PARAMETER_NAMES);
+        getterKey = parser.parse(method, GETTER_KEY, PARAMETER_NAMES);
+        spelKey = parser.parse(method, SPEL_KEY, PARAMETER_NAMES);
+        literalMetadata = CacheMethodMetadata.builder()
+                .keyExpression(parser.parse(method, LITERAL_KEY, PARAMETER_NAMES))
+                .build();
+        spelMetadata = CacheMethodMetadata.builder()
+                .keyExpression(spelKey)
+                .build();
+        argsHashMetadata = CacheMethodMetadata.builder()
+                .keyExpression(parser.parse(method, LITERAL_KEY, PARAMETER_NAMES))
+                .useArgsHash(true)
+                .build();
+    }
+
+    @Benchmark
+    public String legacyArgument() {
+        return legacyResolveKey(ARGUMENT_KEY);
+    }
+
+    @Benchmark
+    public String legacyGetter() {
+        return legacyResolveKey(GETTER_KEY);
+    }
+
+    @Benchmark
+    public String legacySpel() {
+        return legacyResolveKey(SPEL_KEY);
+    }
+
+    @Benchmark
+    public String argument() {
+        return argumentKey.getValue(args);
+    }
+
+    @Benchmark
+    public String getter() {
+        return getterKey.getValue(args);
+    }
+
+    @Benchmark
+    public String compiledSpel() {
+        return spelKey.getValue(args);
+    }
+
+    @Benchmark
+    public String keyValLiteral() {
+        return aspectUtils.getKeyVal(joinPoint, literalMetadata);
+    }
+
+    @Benchmark
+    public String keyValSpel() {
+        return aspectUtils.getKeyVal(joinPoint, spelMetadata);
+    }
+
+    @Benchmark
+    public String keyValArgsHash() {
+        return aspectUtils.getKeyVal(joinPoint, argsHashMetadata);
+    }
+
+    @Benchmark
+    public String fingerprintHashCodeList() {
+        return hashCodeFingerprint.fingerprint(listArgs);
+    }
+
+    @Benchmark
+    public String fingerprintMurmur3List() {
+        return murmur3Fingerprint.fingerprint(listArgs);
+    }
+
+    @Benchmark
+    public String fingerprintMurmur3ImmutableList() {
+        return murmur3Fingerprint.fingerprint(immutableListArgs);
+    }
+
+    private String legacyResolveKey(String key) {
+        StandardEvaluationContext context = new StandardEvaluationContext();
+        for (int i = 0; i < PARAMETER_NAMES.length; i++) {
+            context.setVariable(PARAMETER_NAMES[i], args[i]);
+        }
+        return (String) legacyParser.parseExpression(key).getValue(context);
+    }
+
+    public Mono<Item> sample(String name, Item item) {
+        return Mono.just(item);
+    }
+
+    //getKeyVal reads arguments only
+    private static class ArgsJoinPoint implements JoinPoint {
+
+        private final Object[] args;
+
+        ArgsJoinPoint(Object[] args) {
+            this.args = args;
+        }
+
+        @Override
+        public Object[] getArgs() {
+            return args;
+        }
+
+        @Override
+        public String toShortString() {
+            return "sample";
+        }
+
+        @Override
+        public String toLongString() {
+            return "sample";
+        }
+
+        @Override
+        public Object getThis() {
+            return null;
+        }
+
+        @Override
+        public Object getTarget() {
+            return null;
+        }
+
+        @Override
+        public Signature getSignature() {
+            return null;
+        }
+
+        @Override
+        public SourceLocation getSourceLocation() {
+            return null;
+        }
+
+        @Override
+        public String getKind() {
+            return JoinPoint.METHOD_EXECUTION;
+        }
+
+        @Override
+        public StaticPart getStaticPart() {
+            return null;
+        }
+    }
+
+    public static class Item {
+
+        private final Integer id;
+        private final String name;
+
+        public Item(Integer id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+
+        public Integer getId() {
+            return id;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package com.vsware.libraries.redisreactivecache.benchmark;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+Minimal in-process Redis stand-in speaking RESP2, so aspect round trips can be benchmarked offline.
+Supports commands the aspect uses with default settings: GET, SET [EX|PX] [NX|XX], MGET, MSET, DEL, EXISTS,
+EXPIRE/PEXPIRE, PING, plus connection setup (HELLO is rejected, Lettuce falls back to RESP2). Expiry is lazy.
+Not a Redis replacement - only cost of the network round trip and protocol is meant to be realistic
+ */
+public class RespServer implements AutoCloseable {
+
+    private static final byte[] CRLF = {'\r', '\n'};
+
+    private final ServerSocket serverSocket;
+    private final Map<String, Entry> store = new ConcurrentHashMap<>();
+    private final List<Socket> connections = new ArrayList<>();
+
+    public RespServer() throws IOException {
+        serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        Thread acceptor = new Thread(this::accept, "resp-server-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    public void flushAll() {
+        store.clear();
+    }
+
+    public boolean exists(String key) {
+        return get(key) != null;
+    }
+
+    private void accept() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                synchronized (connections) {
+                    connections.add(socket);
+                }
+                Thread connection = new Thread(() -> serve(socket), "resp-server-connection");
+                connection.setDaemon(true);
+                connection.start();
+            } catch (IOException e) {
+                //server closed
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (InputStream in = new BufferedInputStream(socket.getInputStream());
+             OutputStream out = new BufferedOutputStream(socket.getOutputStream())) {
+            while (true) {
+                execute(readCommand(in), out);
+                //replies of pipelined commands are flushed together
+                if (in.available() == 0)
+                    out.flush();
+            }
+        } catch (IOException e) {
+            //connection closed
+        }
+    }
+
+    private List<byte[]> readCommand(InputStream in) throws IOException {
+        int type = in.read();
+        if (type != '*')
+            throw new EOFException();
+        int count = (int) readNumber(in);
+        List<byte[]> command = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            if (in.read() != '$')
+                throw new IOException("Bulk string expected");
+            byte[] arg = new byte[(int) readNumber(in)];
+            int read = 0;
+            while (read < arg.length) {
+                int n = in.read(arg, read, arg.length - read);
+                if (n < 0)
+                    throw new EOFException();
+                read += n;
+            }
+            in.read();
+            in.read();
+            command.add(arg);
+        }
+        return command;
+    }
+
+    private long readNumber(InputStream in) throws IOException {
+        long value = 0;
+        boolean negative = false;
+        int b;
+        while ((b = in.read()) != '\r') {
+            if (b < 0)
+                throw new EOFException();
+            if (b == '-')
+                negative = true;
+            else
+                value = value * 10 + (b - '0');
+        }
+        in.read();
+        return negative ? -value : value;
+    }
+
+    private void execute(List<byte[]> command, OutputStream out) throws IOException {
+        String name = string(command.get(0)).toUpperCase(Locale.ROOT);
+        switch (name) {
+            case "PING":
+                simple(out, "PONG");
+                break;
+            case "CLIENT":
+            case "SELECT":
+            case "QUIT":
+                simple(out, "OK");
+                break;
+            case "GET":
+                bulk(out, get(string(command.get(1))));
+                break;
+            case "SET":
+                set(command, out);
+                break;
+            case "MGET":
+                out.write(("*" + (command.size() - 1) + "\r\n").getBytes(StandardCharsets.US_ASCII));
+                for (int i = 1; i < command.size(); i++) {
+                    bulk(out, get(string(command.get(i))));
+                }
+                break;
+            case "MSET":
+                for (int i = 1; i + 1 < command.size(); i += 2) {
+                    store.put(string(command.get(i)), new Entry(command.get(i + 1), 0));
+                }
+                simple(out, "OK");
+                break;
+            case "DEL":
+                long deleted = 0;
+                for (int i = 1; i < command.size(); i++) {
+                    if (store.remove(string(command.get(i))) != null)
+                        deleted++;
+                }
+                integer(out, deleted);
+                break;
+            case "EXISTS":
+                long existing = 0;
+                for (int i = 1; i < command.size(); i++) {
+                    if (get(string(command.get(i))) != null)
+                        existing++;
+                }
+                integer(out, existing);
+                break;
+            case "EXPIRE":
+            case "PEXPIRE":
+                String key = string(command.get(1));
+                byte[] value = get(key);
+                if (value != null) {
+                    long ttl = Long.parseLong(string(command.get(2)));
+                    store.put(key, new Entry(value, expireAt(name.equals("EXPIRE") ? ttl * 1000 : ttl)));
+                }
+                integer(out, value != null ? 1 : 0);
+                break;
+            default:
+                error(out, "ERR unknown command '" + name + "'");
+        }
+    }
+
+    private void set(List<byte[]> command, OutputStream out) throws IOException {
+        String key = string(command.get(1));
+        long expireAt = 0;
+        boolean nx = false;
+        boolean xx = false;
+        for (int i = 3; i < command.size(); i++) {
+            String option = string(command.get(i)).toUpperCase(Locale.ROOT);
+            if (option.equals("PX"))
+                expireAt = expireAt(Long.parseLong(string(command.get(++i))));
+            else if (option.equals("EX"))
+                expireAt = expireAt(Long.parseLong(string(command.get(++i))) * 1000);
+            else if (option.equals("NX"))
+                nx = true;
+            else if (option.equals("XX"))
+                xx = true;
+        }
+        if ((nx && get(key) != null) || (xx && get(key) == null)) {
+            bulk(out, null);
+            return;
+        }
+        store.put(key, new Entry(command.get(2), expireAt));
+        simple(out, "OK");
+    }
+
+    private byte[] get(String key) {
+        Entry entry = store.get(key);
+        if (entry == null)
+            return null;
+        if (entry.expireAt > 0 && entry.expireAt <= System.currentTimeMillis()) {
+            store.remove(key, entry);
+            return null;
+        }
+        return entry.value;
+    }
+
+    private static long expireAt(long ttlMillis) {
+        return System.currentTimeMillis() + ttlMillis;
+    }
+
+    private static String string(byte[] bytes) {
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void simple(OutputStream out, String value) throws IOException {
+        out.write(("+" + value + "\r\n").getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static void error(OutputStream out, String message) throws IOException {
+        out.write(("-" + message + "\r\n").getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static void integer(OutputStream out, long value) throws IOException {
+        out.write((":" + value + "\r\n").getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static void bulk(OutputStream out, byte[] value) throws IOException {
+        if (value == null) {
+            out.write("$-1\r\n".getBytes(StandardCharsets.US_ASCII));
+            return;
+        }
+        out.write(("$" + value.length + "\r\n").getBytes(StandardCharsets.US_ASCII));
+        out.write(value);
+        out.write(CRLF);
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        synchronized (connections) {
+            for (Socket socket : connections) {
+                socket.close();
+            }
+        }
+    }
+
+    private static class Entry {
+
+        private final byte[] value;
+        private final long expireAt;
+
+        Entry(byte[] value, long expireAt) {
+            this.value = value;
+            this.expireAt = expireAt;
+        }
+    }
+}
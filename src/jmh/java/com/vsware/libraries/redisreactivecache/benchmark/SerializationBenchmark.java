@@ -0,0 +1,64 @@
+package com.vsware.libraries.redisreactivecache.benchmark;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.vsware.libraries.redisreactivecache.codec.CacheCodec;
+import com.vsware.libraries.redisreactivecache.config.RedisReactiveCacheConfig;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+
+/*
+Cached value (de)serialization of small, medium and large TestTable lists with every built-in codec
+ */
+@State(Scope.Benchmark)
+public class SerializationBenchmark {
+
+    @Param({"10", "1000", "10000"})
+    public int size;
+
+    @Param({"json", "smile", "cbor"})
+    public String codecName;
+
+    private CacheCodec codec;
+    private JavaType listType;
+    private List<TestTable> value;
+    private byte[] encoded;
+
+    @Setup
+    public void setUp() {
+        RedisReactiveCacheConfig config = libraryConfig();
+        switch (codecName) {
+            case "smile":
+                codec = config.smileCacheCodec();
+                break;
+            case "cbor":
+                codec = config.cborCacheCodec();
+                break;
+            default:
+                codec = config.jsonCacheCodec(config.objectMapper());
+        }
+        listType = config.objectMapper().getTypeFactory().constructCollectionType(List.class, TestTable.class);
+        value = TestTable.list(size);
+        encoded = codec.encode(value);
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return codec.encode(value);
+    }
+
+    @Benchmark
+    public List<TestTable> decode() {
+        return codec.decode(encoded, listType);
+    }
+
+    /*
+    Library configuration with default date/time formats, as if properties were injected
+     */
+    static RedisReactiveCacheConfig libraryConfig() {
+        RedisReactiveCacheConfig config = new RedisReactiveCacheConfig();
+        config.DEFAULT_DATE_FORMAT = "dd-MM-yyyy";
+        config.DEFAULT_TIME_FORMAT = "HH:mm:ss";
+        return config;
+    }
+}
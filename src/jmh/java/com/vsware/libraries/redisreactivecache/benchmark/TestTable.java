@@ -0,0 +1,57 @@
+package com.vsware.libraries.redisreactivecache.benchmark;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/*
+Same shape as test model TestTable - test classes can't be on benchmark classpath, as library configuration
+component scan would pick up test Redis container configuration
+ */
+public class TestTable {
+
+    private Integer id;
+    private String name;
+    private LocalDateTime insertDate;
+
+    public TestTable() {
+    }
+
+    public TestTable(Integer id, String name, LocalDateTime insertDate) {
+        this.id = id;
+        this.name = name;
+        this.insertDate = insertDate;
+    }
+
+    public static List<TestTable> list(int size) {
+        LocalDateTime insertDate = LocalDateTime.of(2021, 11, 1, 12, 30, 15);
+        return IntStream.range(0, size)
+                .mapToObj(index -> new TestTable(index, "name_" + index, insertDate.plusSeconds(index)))
+                .collect(Collectors.toList());
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    public void setId(Integer id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public LocalDateTime getInsertDate() {
+        return insertDate;
+    }
+
+    public void setInsertDate(LocalDateTime insertDate) {
+        this.insertDate = insertDate;
+    }
+}
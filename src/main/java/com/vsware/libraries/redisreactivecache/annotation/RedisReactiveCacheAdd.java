@@ -1,6 +1,7 @@
 package com.vsware.libraries.redisreactivecache.annotation;
 
 import java.lang.annotation.*;
+import java.util.concurrent.TimeUnit;
 
 @Target({ElementType.METHOD})
 @Retention(RetentionPolicy.RUNTIME)
@@ -8,4 +9,21 @@ import java.lang.annotation.*;
 public @interface RedisReactiveCacheAdd {
     String key() default "";
     boolean useArgsHash() default false;
+    //hash tag of every key of the method (Redis Cluster slot / shard placement): {<hashTag>}<key>, same syntax as key
+    String hashTag() default "";
+    //groups the written key is registered in, literal or expression like key, e.g. "names" or "#testTable.getName()"
+    String[] tags() default {};
+    //name of CacheCodec bean: json, smile, cbor or custom, empty - global spring.redis.codec
+    String codec() default "";
+    //-1 - global spring.redis.default_ttl_ms, 0 - never expires
+    long ttl() default -1;
+    TimeUnit ttlUnit() default TimeUnit.SECONDS;
+    //fraction of ttl randomly added to expiry, -1 - global spring.redis.ttl_jitter
+    double ttlJitter() default -1;
+    //Flux only - every element is stored once under <entityKey>_<id> (as in RedisReactiveCacheGetAll), key holds only id list
+    String entityKey() default "";
+    //id of each element in entityKey mode, e.g. "#result.getName()"
+    String entityId() default "";
+    //Flux only - stream elements to/from Redis list instead of buffering the whole result
+    boolean streaming() default false;
 }
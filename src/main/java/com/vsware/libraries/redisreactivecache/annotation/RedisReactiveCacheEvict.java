@@ -8,4 +8,8 @@ import java.lang.annotation.*;
 public @interface RedisReactiveCacheEvict {
     String key() default "";
     boolean useArgsHash() default false;
+    //hash tag of every key of the method (Redis Cluster slot / shard placement): {<hashTag>}<key>, same syntax as key
+    String hashTag() default "";
+    //groups whose every key is deleted, same syntax as tags
+    String[] evictTags() default {};
 }
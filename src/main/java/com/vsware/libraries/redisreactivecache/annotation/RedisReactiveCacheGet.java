@@ -1,6 +1,7 @@
 package com.vsware.libraries.redisreactivecache.annotation;
 
 import java.lang.annotation.*;
+import java.util.concurrent.TimeUnit;
 
 @Target({ElementType.METHOD})
 @Retention(RetentionPolicy.RUNTIME)
@@ -8,4 +9,29 @@ import java.lang.annotation.*;
 public @interface RedisReactiveCacheGet {
     String key() default "";
     boolean useArgsHash() default false;
+    //hash tag of every key of the method (Redis Cluster slot / shard placement): {<hashTag>}<key>, same syntax as key
+    String hashTag() default "";
+    //groups the written key is registered in, literal or expression like key, e.g. "names" or "#testTable.getName()"
+    String[] tags() default {};
+    //name of CacheCodec bean: json, smile, cbor or custom, empty - global spring.redis.codec
+    String codec() default "";
+    //-1 - global spring.redis.default_ttl_ms, 0 - never expires
+    long ttl() default -1;
+    TimeUnit ttlUnit() default TimeUnit.SECONDS;
+    //fraction of ttl randomly added to expiry, -1 - global spring.redis.ttl_jitter
+    double ttlJitter() default -1;
+    //latency budget of cache read, late read is treated as cache miss; -1 - global spring.redis.read_timeout_ms, 0 - no budget
+    long readTimeoutMillis() default -1;
+    //Flux only - every element is stored once under <entityKey>_<id> (as in RedisReactiveCacheGetAll), key holds only id list
+    String entityKey() default "";
+    //id of each element in entityKey mode, e.g. "#result.getName()"
+    String entityId() default "";
+    //Flux only - stream elements to/from Redis list instead of buffering the whole result
+    boolean streaming() default false;
+    boolean distributedLock() default false;
+    boolean nearCache() default false;
+    //soft ttl in ttlUnit, 0 - refresh-ahead disabled, ttl must be greater
+    long refreshAfter() default 0;
+    //ttl in ttlUnit of cached empty result (empty Mono, empty Flux), 0 - empty Mono is not cached, empty Flux is cached with ttl
+    long negativeTtl() default 0;
 }
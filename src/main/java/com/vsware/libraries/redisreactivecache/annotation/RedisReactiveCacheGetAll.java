@@ -0,0 +1,27 @@
+package com.vsware.libraries.redisreactivecache.annotation;
+
+import java.lang.annotation.*;
+import java.util.concurrent.TimeUnit;
+
+@Target({ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface RedisReactiveCacheGetAll {
+    //prefix of per id keys: <key>_<id>
+    String key() default "";
+    //hash tag of per id keys, all of them share a Cluster slot / shard: {<hashTag>}<key>_<id>, same syntax as key
+    String hashTag() default "";
+    //collection parameter with ids, e.g. "#names", empty - first Collection parameter
+    String ids() default "";
+    //id of each returned element, e.g. "#result.getName()"
+    String resultId() default "";
+    //name of CacheCodec bean: json, smile, cbor or custom, empty - global spring.redis.codec
+    String codec() default "";
+    //-1 - global spring.redis.default_ttl_ms, 0 - never expires
+    long ttl() default -1;
+    TimeUnit ttlUnit() default TimeUnit.SECONDS;
+    //fraction of ttl randomly added to expiry, -1 - global spring.redis.ttl_jitter
+    double ttlJitter() default -1;
+    //latency budget of cache read, late read is treated as cache miss; -1 - global spring.redis.read_timeout_ms, 0 - no budget
+    long readTimeoutMillis() default -1;
+}
@@ -1,11 +1,10 @@
 package com.vsware.libraries.redisreactivecache.aspect;
 
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.vsware.libraries.redisreactivecache.annotation.RedisReactiveCacheAdd;
-import com.vsware.libraries.redisreactivecache.annotation.RedisReactiveCacheEvict;
-import com.vsware.libraries.redisreactivecache.annotation.RedisReactiveCacheGet;
-import com.vsware.libraries.redisreactivecache.annotation.RedisReactiveCacheUpdate;
+import com.vsware.libraries.redisreactivecache.cache.ReactiveCache;
+import com.vsware.libraries.redisreactivecache.metadata.CacheMethodMetadata;
+import com.vsware.libraries.redisreactivecache.metadata.CacheMethodMetadataRegistry;
+import com.vsware.libraries.redisreactivecache.metadata.CacheOperation;
+import com.vsware.libraries.redisreactivecache.metadata.ReturnKind;
 import com.vsware.libraries.redisreactivecache.util.AspectUtils;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -13,15 +12,19 @@ import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.core.CollectionFactory;
 import org.springframework.data.redis.core.ReactiveRedisTemplate;
 import org.springframework.stereotype.Component;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
-import java.lang.reflect.Method;
+import java.util.Collection;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.function.Supplier;
 
+/*
+Cache annotations - evaluates keys and tags of annotated method and hands it over to ReactiveCache as the loader
+ */
 @Slf4j
 @Aspect
 @Component
@@ -29,9 +32,10 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class RedisReactiveCacheAspect {
 
-    private final ReactiveRedisTemplate reactiveRedisTemplate;
     private final AspectUtils aspectUtils;
-    private final ObjectMapper objectMapper;
+    private final CacheMethodMetadataRegistry metadataRegistry;
+    private final ReactiveCache reactiveCache;
+
     /*
     RedisReactiveCacheAdd - Add result of annotated method to Redis cache
     Intended to be used on method which creates brand new record
@@ -41,15 +45,13 @@ public class RedisReactiveCacheAspect {
      */
     @Around("execution(public * *(..)) && @annotation(com.vsware.libraries.redisreactivecache.annotation.RedisReactiveCacheAdd)")
     public Object redisReactiveCacheAdd(ProceedingJoinPoint joinPoint) {
-        Method method = aspectUtils.getMethod(joinPoint);
-        Class<?> returnType = method.getReturnType();
-        RedisReactiveCacheAdd annotation = method.getAnnotation(RedisReactiveCacheAdd.class);
-        String key = aspectUtils.getKeyVal(joinPoint, annotation.key(), annotation.useArgsHash());
-        log.info("Evaluated Redis cacheKey: " + key);
-        if (returnType.isAssignableFrom(Mono.class)) {
-            return methodMonoResponseToCache(joinPoint, key);
-        } else if (returnType.isAssignableFrom(Flux.class)) {
-            return methodFluxResponseToCache(joinPoint, key);
+        CacheMethodMetadata metadata = metadataRegistry.get(CacheOperation.ADD, aspectUtils.getMethod(joinPoint));
+        String key = aspectUtils.getKeyVal(joinPoint, metadata);
+        log.debug("Evaluated Redis cacheKey: {}", key);
+        if (metadata.getReturnKind() == ReturnKind.MONO) {
+            return reactiveCache.write(metadata, key, tagKeys(joinPoint, metadata), () -> methodMonoResponse(joinPoint));
+        } else if (metadata.getReturnKind() == ReturnKind.FLUX) {
+            return reactiveCache.writeFlux(metadata, key, tagKeys(joinPoint, metadata), () -> methodFluxResponse(joinPoint));
         }
         throw new RuntimeException("RedisReactiveCacheAdd: Annotated method has unsupported return type, expected Mono<?> or Flux<?>");
     }
@@ -62,52 +64,79 @@ public class RedisReactiveCacheAspect {
     First read Redis Cache, if result is empty, read DB, return response back to user and under the hood (without blocking server response)
     set Redis with missing cache - to be available for next request.
     If Redis cache exists - return cache, don't query DB
+    Concurrent misses of the same key share single DB call, with distributedLock = true also across the cluster nodes
+    With nearCache = true values are additionally kept deserialized in process memory (see NearCache)
+    With refreshAfter > 0 values past refreshAfter are still returned, and reloaded in background (see RefreshAhead)
+    With streaming = true Flux result is streamed from/to Redis list without buffering (see RedisListStream)
+    Cache read slower than readTimeoutMillis, failed or skipped by open circuit breaker is treated as cache miss
+    With negativeTtl > 0 empty result is cached as well, so repeated lookups of missing record don't reach DB
+    Reads are sampled by hot key detection, promoted hot keys are served from in-process copy (see HotKeyTracker)
      */
     @Around("execution(public * *(..)) && @annotation(com.vsware.libraries.redisreactivecache.annotation.RedisReactiveCacheGet)")
     public Object redisReactiveCacheGet(ProceedingJoinPoint joinPoint) {
-        Method method = aspectUtils.getMethod(joinPoint);
-        Class<?> rawReturnType = method.getReturnType();
-        RedisReactiveCacheGet annotation = method.getAnnotation(RedisReactiveCacheGet.class);
-        String key = aspectUtils.getKeyVal(joinPoint, annotation.key(), annotation.useArgsHash());
-        TypeReference typeRefForMapper = aspectUtils.getTypeReference(method);
-        log.info("Evaluated Redis cacheKey: " + key);
-        if (rawReturnType.isAssignableFrom(Mono.class)) {
-            return reactiveRedisTemplate.opsForValue().get(key).map(cacheResponse ->
-                            objectMapper.convertValue(cacheResponse, typeRefForMapper))
-                    .switchIfEmpty(Mono.defer(() -> methodMonoResponseToCache(joinPoint, key)));
-        } else if (rawReturnType.isAssignableFrom(Flux.class)) {
-            return reactiveRedisTemplate.opsForValue().get(key)
-                    .flatMapMany(cacheResponse -> Flux.fromIterable(
-                            (List) ((List) cacheResponse).stream()
-                                    .map(elem -> objectMapper.convertValue(elem, typeRefForMapper))
-                                    .collect(Collectors.toList())))
-                    .switchIfEmpty(Flux.defer(() -> methodFluxResponseToCache(joinPoint, key)));
+        CacheMethodMetadata metadata = metadataRegistry.get(CacheOperation.GET, aspectUtils.getMethod(joinPoint));
+        String key = aspectUtils.getKeyVal(joinPoint, metadata);
+        log.debug("Evaluated Redis cacheKey: {}", key);
+        if (metadata.getReturnKind() == ReturnKind.MONO) {
+            return reactiveCache.get(metadata, key, tagKeys(joinPoint, metadata), () -> methodMonoResponse(joinPoint));
+        } else if (metadata.getReturnKind() == ReturnKind.FLUX) {
+            return reactiveCache.getFlux(metadata, key, tagKeys(joinPoint, metadata), () -> methodFluxResponse(joinPoint));
         }
         throw new RuntimeException("RedisReactiveCacheGet: Annotated method has unsupported return type, expected Mono<?> or Flux<?>");
     }
 
     /*
-    RedisReactiveCacheUpdate - Delete cache from Redis and update it with new stored record
+    RedisReactiveCacheGetAll - Read cache of every requested id from Redis
+    Intended to be used on method which returns records by collection of ids
+    Example: ReactiveCrudRepository.findAllById(ids)
+
+    Every record is cached under its own key <key>_<id>, all of them are read with single MGET
+    (one per node and slot when keys are spread over Redis Cluster or shards).
+    Annotated method is executed only with ids missing in cache, loaded records are returned and under the hood
+    (without blocking server response) written to Redis in single batch - id of each record is evaluated with resultId.
+    Records are returned in order of requested ids, followed by loaded records not matching any requested id
+     */
+    @Around("execution(public * *(..)) && @annotation(com.vsware.libraries.redisreactivecache.annotation.RedisReactiveCacheGetAll)")
+    public Object redisReactiveCacheGetAll(ProceedingJoinPoint joinPoint) {
+        CacheMethodMetadata metadata = metadataRegistry.get(CacheOperation.GET_ALL, aspectUtils.getMethod(joinPoint));
+        Collection<?> ids = (Collection<?>) joinPoint.getArgs()[metadata.getIdsParameterIndex()];
+        if (ids == null || ids.isEmpty())
+            return methodFluxResponse(joinPoint, joinPoint.getArgs());
+        String key = aspectUtils.getKeyVal(joinPoint, metadata);
+        log.debug("Evaluated Redis cacheKey: {}", key);
+        //annotated method is executed with missing ids only, passed in collection of the parameter type
+        return reactiveCache.getAll(metadata, key, ids, missingIds -> {
+            Object[] args = joinPoint.getArgs();
+            int idsParameterIndex = metadata.getIdsParameterIndex();
+            Collection<Object> idsArg = CollectionFactory.createCollection(
+                    metadata.getMethod().getParameterTypes()[idsParameterIndex], missingIds.size());
+            idsArg.addAll(missingIds);
+            args[idsParameterIndex] = idsArg;
+            return methodFluxResponse(joinPoint, args);
+        });
+    }
+
+    /*
+    RedisReactiveCacheUpdate - Update Redis cache with new stored record
     Intended to be used on method which update some records in DB
     Example: ReactiveCrudRepository.save(updatedNewRecord) or ReactiveCrudRepository.saveAll(updatedNewRecordList)
 
-    Evict cache from Redis without waiting for response, in the main time sore updated record in DB,
-    then return updated record as server response, and under the hood (without blocking server response)
-    saves updated record to Redis cache
+    Stores updated record in DB, then returns updated record as server response, and under the hood
+    (without blocking server response) overwrites cached record with single versioned write - cache fill
+    which loaded the record before the update can't write it back (see VersionClock).
+    Streaming, entityKey or unversioned (versioned_writes_enabled: false) cache is evicted first and written after
      */
     @Around("execution(public * *(..)) && @annotation(com.vsware.libraries.redisreactivecache.annotation.RedisReactiveCacheUpdate)")
     public Object redisReactiveCacheUpdate(ProceedingJoinPoint joinPoint) {
-        Method method = aspectUtils.getMethod(joinPoint);
-        Class<?> returnType = method.getReturnType();
-        RedisReactiveCacheUpdate annotation = method.getAnnotation(RedisReactiveCacheUpdate.class);
-        String key = aspectUtils.getKeyVal(joinPoint, annotation.key(), annotation.useArgsHash());
-        log.info("Evaluated Redis cacheKey: " + key);
-        if (returnType.isAssignableFrom(Mono.class)) {
-            reactiveRedisTemplate.opsForValue().delete(key).subscribe();
-            return methodMonoResponseToCache(joinPoint, key);
-        } else if (returnType.isAssignableFrom(Flux.class)) {
-            reactiveRedisTemplate.opsForValue().delete(key).subscribe();
-            return methodFluxResponseToCache(joinPoint, key);
+        CacheMethodMetadata metadata = metadataRegistry.get(CacheOperation.UPDATE, aspectUtils.getMethod(joinPoint));
+        String key = aspectUtils.getKeyVal(joinPoint, metadata);
+        log.debug("Evaluated Redis cacheKey: {}", key);
+        if (metadata.getReturnKind() == ReturnKind.MONO) {
+            reactiveCache.invalidate(metadata, key, evictTagKeys(joinPoint, metadata));
+            return reactiveCache.write(metadata, key, tagKeys(joinPoint, metadata), () -> methodMonoResponse(joinPoint));
+        } else if (metadata.getReturnKind() == ReturnKind.FLUX) {
+            reactiveCache.invalidate(metadata, key, evictTagKeys(joinPoint, metadata));
+            return reactiveCache.writeFlux(metadata, key, tagKeys(joinPoint, metadata), () -> methodFluxResponse(joinPoint));
         }
         throw new RuntimeException("RedisReactiveCacheUpdate: Annotated method has unsupported return type, expected Mono<?> or Flux<?>");
     }
@@ -119,36 +148,48 @@ public class RedisReactiveCacheAspect {
     Example: ReactiveCrudRepository.delete(recordToDelete) or ReactiveCrudRepository.deleteAll(recordToDeleteList)
 
     Evict cache from Redis without waiting for response, in the main time execute annotated method
+    Versioned delete leaves short-lived tombstone, so cache fill which loaded the record before can't write it back
+    Every key registered in evictTags groups is deleted as well - single script, no keyspace SCAN
      */
     @Around("execution(public * *(..)) && @annotation(com.vsware.libraries.redisreactivecache.annotation.RedisReactiveCacheEvict)")
     public Object redisReactiveCacheEvict(ProceedingJoinPoint joinPoint) throws Throwable {
-        Method method = aspectUtils.getMethod(joinPoint);
-        Class<?> returnType = method.getReturnType();
-        RedisReactiveCacheEvict annotation = method.getAnnotation(RedisReactiveCacheEvict.class);
-        String key = aspectUtils.getKeyVal(joinPoint, annotation.key(), annotation.useArgsHash());
-        log.info("Evaluated Redis cacheKey: " + key);
-        reactiveRedisTemplate.opsForValue().delete(key).subscribe();
+        CacheMethodMetadata metadata = metadataRegistry.get(CacheOperation.EVICT, aspectUtils.getMethod(joinPoint));
+        String key = aspectUtils.getKeyVal(joinPoint, metadata);
+        log.debug("Evaluated Redis cacheKey: {}", key);
+        reactiveCache.invalidate(metadata, key, evictTagKeys(joinPoint, metadata));
         return joinPoint.proceed(joinPoint.getArgs());
     }
 
+    /*
+    Tags are evaluated when the value is written - on Get only on cache miss
+     */
+    private Supplier<List<String>> tagKeys(ProceedingJoinPoint joinPoint, CacheMethodMetadata metadata) {
+        if (metadata.getTagExpressions().isEmpty())
+            return null;
+        return () -> aspectUtils.getTagKeyVals(joinPoint, metadata, metadata.getTagExpressions());
+    }
+
+    private List<String> evictTagKeys(ProceedingJoinPoint joinPoint, CacheMethodMetadata metadata) {
+        return aspectUtils.getTagKeyVals(joinPoint, metadata, metadata.getEvictTagExpressions());
+    }
 
-    private Mono<?> methodMonoResponseToCache(ProceedingJoinPoint joinPoint, String key) {
+    @SuppressWarnings("unchecked")
+    private Mono<Object> methodMonoResponse(ProceedingJoinPoint joinPoint) {
         try {
-            return ((Mono<?>) joinPoint.proceed(joinPoint.getArgs())).map(methodResponse -> {
-                reactiveRedisTemplate.opsForValue().set(key, methodResponse).subscribe();
-                return methodResponse;
-            });
+            return (Mono<Object>) joinPoint.proceed(joinPoint.getArgs());
         } catch (Throwable e) {
             return Mono.error(e);
         }
     }
 
-    private Flux<?> methodFluxResponseToCache(ProceedingJoinPoint joinPoint, String key) {
+    private Flux<Object> methodFluxResponse(ProceedingJoinPoint joinPoint) {
+        return methodFluxResponse(joinPoint, joinPoint.getArgs());
+    }
+
+    @SuppressWarnings("unchecked")
+    private Flux<Object> methodFluxResponse(ProceedingJoinPoint joinPoint, Object[] args) {
         try {
-            return ((Flux<?>) joinPoint.proceed(joinPoint.getArgs())).collectList().map(methodResponseList -> {
-                reactiveRedisTemplate.opsForValue().set(key, methodResponseList).subscribe();
-                return methodResponseList;
-            }).flatMapMany(Flux::fromIterable);
+            return (Flux<Object>) joinPoint.proceed(args);
         } catch (Throwable e) {
             return Flux.error(e);
         }
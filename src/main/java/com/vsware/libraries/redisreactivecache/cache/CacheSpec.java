@@ -0,0 +1,56 @@
+package com.vsware.libraries.redisreactivecache.cache;
+
+import lombok.Builder;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+/*
+Settings of programmatic cache (see ReactiveCache) - counterpart of cache annotation attributes.
+Meant to be created once and kept in a constant: metadata is resolved once per distinct spec, so a call costs
+a single map lookup (hash code is computed once per instance).
+Specs are compared by their settings, resultId only by its class - spec built on every call (even with capturing lambda)
+maps to the same metadata, but resultId must not depend on captured values: equal specs share the first resultId
+
+Example: CacheSpec.of("users", User.class).ttl(Duration.ofMinutes(5)).nearCache(true).build()
+ */
+@Getter
+@Builder
+@EqualsAndHashCode(cacheStrategy = EqualsAndHashCode.CacheStrategy.LAZY)
+public class CacheSpec<T> {
+
+    //metrics cache and method tag, hot keys method
+    private final String name;
+    private final Class<T> type;
+    //null - spring.redis.default_ttl_ms
+    private final Duration ttl;
+    //negative - spring.redis.ttl_jitter
+    @Builder.Default
+    private final double ttlJitter = -1;
+    //empty - spring.redis.codec
+    @Builder.Default
+    private final String codec = "";
+    private final boolean nearCache;
+    private final boolean distributedLock;
+    //null - no refresh-ahead, ttl must be greater
+    private final Duration refreshAfter;
+    //null - empty result is not cached
+    private final Duration negativeTtl;
+    //null - spring.redis.read_timeout_ms
+    private final Duration readTimeout;
+    //getOrLoadMany only - id of loaded value, its cache key is <key>_<id>
+    @EqualsAndHashCode.Exclude
+    private final Function<? super T, ?> resultId;
+
+    public static <T> CacheSpecBuilder<T> of(String name, Class<T> type) {
+        return CacheSpec.<T>builder().name(name).type(type);
+    }
+
+    //lambda instances of the same call site share their class
+    @EqualsAndHashCode.Include
+    private Class<?> resultIdClass() {
+        return resultId != null ? resultId.getClass() : null;
+    }
+}
@@ -0,0 +1,758 @@
+package com.vsware.libraries.redisreactivecache.cache;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.vsware.libraries.redisreactivecache.circuit.RedisCircuitBreaker;
+import com.vsware.libraries.redisreactivecache.cluster.CacheKeyRouter;
+import com.vsware.libraries.redisreactivecache.hotkey.HotKeyTracker;
+import com.vsware.libraries.redisreactivecache.metadata.CacheMethodMetadata;
+import com.vsware.libraries.redisreactivecache.metadata.CacheMethodMetadataRegistry;
+import com.vsware.libraries.redisreactivecache.metadata.CacheOperation;
+import com.vsware.libraries.redisreactivecache.metadata.ReturnKind;
+import com.vsware.libraries.redisreactivecache.metrics.CacheMethodMeters;
+import com.vsware.libraries.redisreactivecache.nearcache.NearCache;
+import com.vsware.libraries.redisreactivecache.refresh.CacheEnvelope;
+import com.vsware.libraries.redisreactivecache.refresh.RefreshAhead;
+import com.vsware.libraries.redisreactivecache.stream.RedisListStream;
+import com.vsware.libraries.redisreactivecache.sync.RedisLoadLease;
+import com.vsware.libraries.redisreactivecache.sync.SingleFlight;
+import com.vsware.libraries.redisreactivecache.util.AspectUtils;
+import com.vsware.libraries.redisreactivecache.write.CacheWriteQueue;
+import com.vsware.libraries.redisreactivecache.write.VersionClock;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.serializer.SerializationException;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/*
+Cache engine - read, load, write and invalidation of cached values, shared by cache annotations
+(RedisReactiveCacheAspect is a thin client evaluating keys and proceeding annotated method) and programmatic use
+without AOP proxies:
+
+    private static final CacheSpec<User> USERS = CacheSpec.of("users", User.class).ttl(Duration.ofMinutes(5)).build();
+
+    reactiveCache.getOrLoad("user_" + id, USERS, () -> userRepository.findById(id))
+    userRepository.findById(id).transform(reactiveCache.cached("user_" + id, USERS))
+    userRepository.save(user).transform(reactiveCache.updating("user_" + user.getId(), USERS))
+
+Programmatic calls behave like annotated methods with the same attributes (near cache, single flight, distributed
+lock, refresh-ahead, negative caching, versioned writes, circuit breaker, hot keys, metrics). Spec is resolved
+once, a call costs a map lookup and the reactive pipeline itself - no reflection, no SpEL
+ */
+@Slf4j
+@Component
+@ConditionalOnClass({ReactiveRedisTemplate.class})
+@RequiredArgsConstructor
+public class ReactiveCache {
+
+    //cached empty result (negativeTtl), can't collide with codec output or refresh/compression headers
+    private static final byte[] EMPTY_RESULT_SENTINEL = {(byte) 0xFF, 0x00};
+    //read side marker of EMPTY_RESULT_SENTINEL, never returned to the caller
+    private static final Object EMPTY_RESULT = new Object();
+    //hot keys read in parallel by preload
+    private static final int PRELOAD_CONCURRENCY = 16;
+
+    private final CacheKeyRouter keyRouter;
+    private final AspectUtils aspectUtils;
+    private final CacheMethodMetadataRegistry metadataRegistry;
+    private final SingleFlight singleFlight;
+    private final RedisLoadLease redisLoadLease;
+    private final NearCache nearCache;
+    private final RefreshAhead refreshAhead;
+    private final RedisListStream redisListStream;
+    private final CacheWriteQueue cacheWriteQueue;
+    private final RedisCircuitBreaker circuitBreaker;
+    private final HotKeyTracker hotKeyTracker;
+    private final VersionClock versionClock;
+    //specs of getOrLoad/put by type only
+    private final Map<Class<?>, CacheSpec<?>> typeSpecs = new ConcurrentHashMap<>();
+
+    /*
+    Cached value of the key, on miss loaded with loader and written to cache in background.
+    Spec named by simple name of the type, with default ttl and codec
+     */
+    public <T> Mono<T> getOrLoad(String key, Class<T> type, Supplier<Mono<T>> loader) {
+        return getOrLoad(key, typeSpec(type), loader);
+    }
+
+    public <T> Mono<T> getOrLoad(String key, CacheSpec<T> spec, Supplier<Mono<T>> loader) {
+        return cast(get(metadataRegistry.get(CacheOperation.GET, ReturnKind.MONO, spec), key, null, cast(loader)));
+    }
+
+    /*
+    Every id cached under its own key <key>_<id> (spec resultId is the id of loaded value), all read with single MGET.
+    Loader gets ids missing in cache only, values are returned in order of ids, followed by loaded values
+    not matching any requested id
+     */
+    public <ID, T> Flux<T> getOrLoadMany(String key, Collection<ID> ids, CacheSpec<T> spec,
+                                         Function<List<ID>, Flux<T>> loader) {
+        if (ids == null || ids.isEmpty())
+            return Flux.empty();
+        return cast(getAll(metadataRegistry.get(CacheOperation.GET_ALL, ReturnKind.FLUX, spec), key, ids, cast(loader)));
+    }
+
+    /*
+    Changed value of the key - written in background with versioned write, local copies of all instances are dropped
+     */
+    public <T> void put(String key, T value, Class<T> type) {
+        put(key, value, typeSpec(type));
+    }
+
+    public <T> void put(String key, T value, CacheSpec<T> spec) {
+        Objects.requireNonNull(value, "RedisReactiveCache put value must not be null, use evict");
+        CacheMethodMetadata metadata = metadataRegistry.get(CacheOperation.ADD, ReturnKind.MONO, spec);
+        writeCache(key, metadata, value, System.nanoTime(), 0, Collections.emptyList());
+    }
+
+    /*
+    Versioned delete, so a load which read the record before can't write it back
+     */
+    public void evict(String key) {
+        evictCache(key, false, versionClock.isEnabled());
+    }
+
+    /*
+    Operators for Mono/Flux transform - source is subscribed on cache miss only
+     */
+    public <T> Function<Mono<T>, Mono<T>> cached(String key, CacheSpec<T> spec) {
+        return source -> getOrLoad(key, spec, () -> source);
+    }
+
+    public <T> Function<Flux<T>, Flux<T>> cachedFlux(String key, CacheSpec<T> spec) {
+        CacheMethodMetadata metadata = metadataRegistry.get(CacheOperation.GET, ReturnKind.FLUX, spec);
+        return source -> cast(getFlux(metadata, key, null, () -> cast(source)));
+    }
+
+    /*
+    Source stores changed value, which is then written to cache - like RedisReactiveCacheUpdate
+     */
+    public <T> Function<Mono<T>, Mono<T>> updating(String key, CacheSpec<T> spec) {
+        CacheMethodMetadata metadata = metadataRegistry.get(CacheOperation.UPDATE, ReturnKind.MONO, spec);
+        return source -> Mono.defer(() -> {
+            invalidate(metadata, key, Collections.emptyList());
+            return ReactiveCache.<Mono<T>>cast(write(metadata, key, null, () -> cast(source)));
+        });
+    }
+
+    /*
+    Get of resolved metadata - tagKeys (null without tags) are evaluated on cache miss only
+     */
+    public Mono<Object> get(CacheMethodMetadata metadata, String key, Supplier<List<String>> tagKeys,
+                            Supplier<Mono<Object>> loader) {
+        hotKeyTracker.record(metadata.getMethodName(), key);
+        Supplier<Mono<Object>> missLoader = () -> loadOnMiss(key, metadata, () -> loadToCache(key, metadata, tagKeys, loader));
+        return nearCached(key, metadata, readCacheOrLoad(key, metadata, missLoader)
+                .filter(cacheResponse -> cacheResponse != EMPTY_RESULT));
+    }
+
+    public Flux<Object> getFlux(CacheMethodMetadata metadata, String key, Supplier<List<String>> tagKeys,
+                                Supplier<Flux<Object>> loader) {
+        hotKeyTracker.record(metadata.getMethodName(), key);
+        if (metadata.isStreaming()) {
+            //undecodable first element is a miss, once elements were returned the failure is propagated
+            return Flux.defer(() -> {
+                AtomicBoolean emitted = new AtomicBoolean();
+                return readStream(key, metadata)
+                        .<Object>handle((cacheResponse, sink) -> {
+                            Object value = decode(key, metadata, cacheResponse, metadata.getValueType());
+                            if (value == null && emitted.get()) {
+                                sink.error(new SerializationException("RedisReactiveCache undecodable element of cacheKey: " + key));
+                            } else if (value == null) {
+                                sink.complete();
+                            } else {
+                                if (emitted.compareAndSet(false, true))
+                                    metadata.getMeters().hit(1);
+                                sink.next(value);
+                            }
+                        })
+                        .switchIfEmpty(Flux.defer(() -> {
+                            metadata.getMeters().miss(1);
+                            return loadStreamToCache(key, metadata, loader);
+                        }));
+            });
+        }
+        Supplier<Mono<List<Object>>> missLoader = () ->
+                loadOnMiss(key, metadata, () -> loadListToCache(key, metadata, tagKeys, loader));
+        return nearCached(key, metadata, readCacheOrLoad(key, metadata, missLoader)
+                .filter(cacheResponse -> cacheResponse != EMPTY_RESULT))
+                .flatMapMany(Flux::fromIterable);
+    }
+
+    /*
+    GetAll of resolved metadata - loader is called with ids missing in cache
+     */
+    public Flux<Object> getAll(CacheMethodMetadata metadata, String key, Collection<?> ids,
+                               Function<List<Object>, Flux<Object>> loader) {
+        Map<String, Object> idsByKey = new LinkedHashMap<>();
+        for (Object id : ids) {
+            String idKey = aspectUtils.getIdKeyVal(key, id);
+            if (idsByKey.putIfAbsent(idKey, id) == null)
+                hotKeyTracker.record(metadata.getMethodName(), idKey);
+        }
+        List<String> keys = new ArrayList<>(idsByKey.keySet());
+        CacheMethodMeters meters = metadata.getMeters();
+        return guardedRead(key, metadata, keys.size(), () -> keyRouter.multiGet(keys))
+                .defaultIfEmpty(Collections.nCopies(keys.size(), null))
+                .flatMapMany(cacheResponses -> {
+                    Map<String, Object> hits = new HashMap<>();
+                    List<Object> missingIds = new ArrayList<>();
+                    int hitsCount = 0;
+                    for (int i = 0; i < keys.size(); i++) {
+                        byte[] cacheResponse = cacheResponses.get(i);
+                        boolean cached = cacheResponse != null && cacheResponse.length > 0;
+                        if (cached && isEmptyResult(cacheResponse)) {
+                            hitsCount++;
+                            continue;
+                        }
+                        //undecodable value is missing as well
+                        Object value = cached ? decode(keys.get(i), metadata, cacheResponse, metadata.getCachedType()) : null;
+                        if (value != null)
+                            hits.put(keys.get(i), value);
+                        else
+                            missingIds.add(idsByKey.get(keys.get(i)));
+                    }
+                    meters.hit(hits.size() + hitsCount);
+                    meters.miss(missingIds.size());
+                    Mono<Map<String, Object>> missLoader = missingIds.isEmpty() ? Mono.just(new HashMap<>()) :
+                            loadAllToCache(key, metadata, missingIds, loader);
+                    return missLoader.flatMapIterable(loaded -> {
+                        List<Object> response = new ArrayList<>(hits.size() + loaded.size());
+                        for (String idKey : keys) {
+                            Object value = hits.containsKey(idKey) ? hits.get(idKey) : loaded.remove(idKey);
+                            if (value != null)
+                                response.add(value);
+                        }
+                        response.addAll(loaded.values());
+                        return response;
+                    });
+                });
+    }
+
+    /*
+    Add/Update of resolved metadata - value emitted by source is written to cache
+     */
+    public Mono<Object> write(CacheMethodMetadata metadata, String key, Supplier<List<String>> tagKeys,
+                              Supplier<Mono<Object>> source) {
+        return loadToCache(key, metadata, tagKeys, source);
+    }
+
+    public Flux<Object> writeFlux(CacheMethodMetadata metadata, String key, Supplier<List<String>> tagKeys,
+                                  Supplier<Flux<Object>> source) {
+        if (metadata.isStreaming())
+            return loadStreamToCache(key, metadata, source);
+        return loadListToCache(key, metadata, tagKeys, source).flatMapMany(Flux::fromIterable);
+    }
+
+    /*
+    Evict deletes the key, Update only when it's not versioned (versioned Update overwrites it).
+    Every key registered in evicted tag groups is deleted as well - single script, no keyspace SCAN
+     */
+    public void invalidate(CacheMethodMetadata metadata, String key, List<String> evictTagKeys) {
+        if (metadata.getOperation() != CacheOperation.UPDATE || !isVersioned(metadata))
+            evictCache(key, metadata);
+        invalidateTags(evictTagKeys);
+    }
+
+    /*
+    Startup warm-up (see CacheWarmUp) - cached values of nearCache method are read into near cache,
+    missing keys are not loaded. Waits for near cache invalidation subscription. Returns number of preloaded keys
+     */
+    public Mono<Long> preload(CacheMethodMetadata metadata, List<String> keys) {
+        if (!metadata.isNearCache() || !nearCache.isEnabled() || metadata.isStreaming())
+            return Mono.just(0L);
+        return nearCache.awaitConnected().then(Flux.fromIterable(keys)
+                .flatMap(key -> nearCached(key, metadata, readCache(key, metadata)
+                        .filter(cacheResponse -> cacheResponse != EMPTY_RESULT)), PRELOAD_CONCURRENCY)
+                .count());
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> CacheSpec<T> typeSpec(Class<T> type) {
+        CacheSpec<?> spec = typeSpecs.get(type);
+        if (spec == null)
+            spec = typeSpecs.computeIfAbsent(type, t -> CacheSpec.of(t.getSimpleName(), t).build());
+        return (CacheSpec<T>) spec;
+    }
+
+    //typed API shares the engine working with Object values
+    @SuppressWarnings("unchecked")
+    private static <T> T cast(Object value) {
+        return (T) value;
+    }
+
+    private <T> Mono<T> readCache(String key, CacheMethodMetadata metadata) {
+        return readCache(key, metadata, null);
+    }
+
+    /*
+    In refresh-ahead mode value past its soft expiry is returned as is, and reloaded in background with refresher.
+    Cached empty result is returned as EMPTY_RESULT marker, so it's a cache hit which the caller filters out
+     */
+    @SuppressWarnings("unchecked")
+    private <T> Mono<T> readCache(String key, CacheMethodMetadata metadata, Supplier<Mono<T>> refresher) {
+        Mono<byte[]> payload = guardedRead(key, metadata, 1, () -> keyRouter.forRead(key).opsForValue().get(key));
+        payload = payload.map(cacheResponse -> {
+            if (metadata.getRefreshAfterMillis() > 0) {
+                CacheEnvelope envelope = refreshAhead.unwrap(cacheResponse);
+                if (envelope != null) {
+                    if (refresher != null && refreshAhead.shouldRefresh(envelope))
+                        singleFlight.execute(key, refresher).subscribe(null,
+                                e -> log.warn("Background refresh failed for cacheKey: " + key, e));
+                    cacheResponse = envelope.getPayload();
+                }
+            }
+            return cacheResponse;
+        });
+        if (metadata.isNormalized())
+            return payload.flatMap(cacheResponse -> isEmptyResult(cacheResponse) ? Mono.just((T) EMPTY_RESULT) :
+                    Mono.justOrEmpty(this.<List<String>>decode(key, metadata, cacheResponse, metadata.getCachedType()))
+                            .flatMap(ids -> readEntities(key, metadata, ids)));
+        return payload.flatMap(cacheResponse -> isEmptyResult(cacheResponse) ? Mono.just((T) EMPTY_RESULT) :
+                Mono.justOrEmpty(this.<T>decode(key, metadata, cacheResponse, metadata.getCachedType())));
+    }
+
+    private static boolean isEmptyResult(byte[] cacheResponse) {
+        return cacheResponse.length == EMPTY_RESULT_SENTINEL.length
+                && cacheResponse[0] == EMPTY_RESULT_SENTINEL[0] && cacheResponse[1] == EMPTY_RESULT_SENTINEL[1];
+    }
+
+    /*
+    entityKey mode - cached id list is reassembled from entity keys with single MGET,
+    any missing entity makes the whole collection a cache miss
+     */
+    @SuppressWarnings("unchecked")
+    private <T> Mono<T> readEntities(String key, CacheMethodMetadata metadata, List<String> ids) {
+        if (ids.isEmpty())
+            return Mono.just((T) new ArrayList<>());
+        List<String> entityKeys = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            entityKeys.add(aspectUtils.getIdKeyVal(metadata.getEntityKey(), id));
+        }
+        return guardedRead(key, metadata, 1, () -> keyRouter.multiGet(entityKeys))
+                .flatMap(cacheResponses -> {
+                    List<Object> entities = new ArrayList<>(cacheResponses.size());
+                    for (int i = 0; i < cacheResponses.size(); i++) {
+                        byte[] cacheResponse = cacheResponses.get(i);
+                        if (cacheResponse == null || cacheResponse.length == 0 || isEmptyResult(cacheResponse))
+                            return Mono.empty();
+                        Object entity = decode(entityKeys.get(i), metadata, cacheResponse, metadata.getValueType());
+                        if (entity == null)
+                            return Mono.empty();
+                        entities.add(entity);
+                    }
+                    return Mono.just((T) entities);
+                });
+    }
+
+    /*
+    Redis read within latency budget of the method, failed or late read completes empty (cache miss),
+    so the request is served by the loader instead of waiting for Redis.
+    While circuit breaker is open Redis is not read at all
+     */
+    private <T> Mono<T> guardedRead(String key, CacheMethodMetadata metadata, int keys, Supplier<Mono<T>> read) {
+        CacheMethodMeters meters = metadata.getMeters();
+        return Mono.defer(() -> {
+            long permit = circuitBreaker.tryAcquire();
+            if (permit == RedisCircuitBreaker.REJECTED) {
+                meters.bypass(keys);
+                return Mono.<T>empty();
+            }
+            long startNanos = System.nanoTime();
+            Mono<T> redisRead = read.get();
+            if (metadata.getReadTimeout() != null)
+                redisRead = redisRead.timeout(metadata.getReadTimeout());
+            return redisRead
+                    .doOnSuccess(cacheResponse -> {
+                        meters.redisRead(startNanos);
+                        circuitBreaker.onSuccess(permit);
+                    })
+                    .doOnCancel(() -> circuitBreaker.onCancel(permit))
+                    .onErrorResume(e -> {
+                        onReadFailure(key, metadata, permit, e);
+                        return Mono.empty();
+                    });
+        });
+    }
+
+    /*
+    Streaming variant - latency budget applies to the first element, failure after some elements
+    were already returned can't fall back to the loader and is propagated
+     */
+    private Flux<byte[]> readStream(String key, CacheMethodMetadata metadata) {
+        return Flux.defer(() -> {
+            long permit = circuitBreaker.tryAcquire();
+            if (permit == RedisCircuitBreaker.REJECTED) {
+                metadata.getMeters().bypass(1);
+                return Flux.empty();
+            }
+            Flux<byte[]> redisRead = redisListStream.read(key);
+            if (metadata.getReadTimeout() != null)
+                redisRead = redisRead.timeout(Mono.delay(metadata.getReadTimeout()), cacheResponse -> Mono.never());
+            AtomicBoolean emitted = new AtomicBoolean();
+            return redisRead
+                    .doOnNext(cacheResponse -> {
+                        if (emitted.compareAndSet(false, true))
+                            circuitBreaker.onSuccess(permit);
+                    })
+                    .doOnComplete(() -> {
+                        if (!emitted.get())
+                            circuitBreaker.onSuccess(permit);
+                    })
+                    .doOnCancel(() -> circuitBreaker.onCancel(permit))
+                    .onErrorResume(e -> {
+                        //list replaced or deleted while it's read is not a Redis failure
+                        if (!(e instanceof ConcurrentModificationException))
+                            onReadFailure(key, metadata, permit, e);
+                        else if (!emitted.get())
+                            circuitBreaker.onSuccess(permit);
+                        return emitted.get() ? Flux.error(e) : Flux.empty();
+                    });
+        });
+    }
+
+    private void onReadFailure(String key, CacheMethodMetadata metadata, long permit, Throwable e) {
+        circuitBreaker.onFailure(permit);
+        if (e instanceof TimeoutException) {
+            metadata.getMeters().error(CacheMethodMeters.ErrorStage.REDIS_TIMEOUT);
+            log.debug("Redis cache read exceeded {} ms budget for cacheKey: {}", metadata.getReadTimeout().toMillis(), key);
+        } else {
+            metadata.getMeters().error(CacheMethodMeters.ErrorStage.REDIS_READ);
+            log.warn("Redis cache read failed for cacheKey: " + key + ", serving without cache", e);
+        }
+    }
+
+    private <T> Mono<T> readCacheOrLoad(String key, CacheMethodMetadata metadata, Supplier<Mono<T>> loader) {
+        return readCache(key, metadata, loader)
+                .doOnNext(cacheResponse -> metadata.getMeters().hit(1))
+                .switchIfEmpty(Mono.defer(() -> {
+                    metadata.getMeters().miss(1);
+                    return singleFlight.execute(key, loader);
+                }));
+    }
+
+    /*
+    Undecodable payload (value of other codec or type version, corrupted value) is a cache miss - returns null
+    and deletes the key, so the loader rewrites it
+     */
+    private <T> T decode(String key, CacheMethodMetadata metadata, byte[] cacheResponse, JavaType type) {
+        long startNanos = System.nanoTime();
+        try {
+            T value = metadata.getCodec().decode(cacheResponse, type);
+            metadata.getMeters().decoded(startNanos, cacheResponse.length);
+            return value;
+        } catch (RuntimeException e) {
+            metadata.getMeters().error(CacheMethodMeters.ErrorStage.DECODE);
+            log.warn("Undecodable cached value of cacheKey: " + key + ", deleting it", e);
+            evictCache(key, metadata.isStreaming(), false);
+            return null;
+        }
+    }
+
+    private byte[] encode(CacheMethodMetadata metadata, Object value) {
+        long startNanos = System.nanoTime();
+        try {
+            byte[] payload = metadata.getCodec().encode(value);
+            metadata.getMeters().encoded(startNanos, payload.length);
+            return payload;
+        } catch (RuntimeException e) {
+            metadata.getMeters().error(CacheMethodMeters.ErrorStage.ENCODE);
+            throw e;
+        }
+    }
+
+    private <T> Mono<T> nearCached(String key, CacheMethodMetadata metadata, Mono<T> source) {
+        if (metadata.isNearCache() && nearCache.isEnabled())
+            return nearCache.cached(key, source);
+        //hot keys of methods without near cache may still be kept in process for a short time
+        return hotKeyTracker.promoted(key, source);
+    }
+
+    /*
+    Cache miss loader, with distributed lock only one node in the cluster executes the loader,
+    others wait for the cache to appear
+     */
+    private <T> Mono<T> loadOnMiss(String key, CacheMethodMetadata metadata, Supplier<Mono<T>> loader) {
+        //no lease while Redis is bypassed
+        if (metadata.isDistributedLock() && circuitBreaker.isClosed())
+            return redisLoadLease.load(key, loader, () -> readCache(key, metadata));
+        return Mono.defer(loader);
+    }
+
+    /*
+    loadVersion - version taken when the load started, fills are written with it,
+    changed value (Add/Update) with version taken now - after the change completed
+     */
+    private void writeCache(String key, CacheMethodMetadata metadata, Object value, long loadStartNanos, long loadVersion,
+                            List<String> tagKeys) {
+        boolean valueChanged = metadata.getOperation() != CacheOperation.GET;
+        long version = !isVersioned(metadata) ? 0 : valueChanged ? versionClock.next() : loadVersion;
+        Runnable onWritten = valueChanged ? invalidateAfterWrite(key) : null;
+        if (metadata.isNormalized()) {
+            //entities first, so the id list never references entity which isn't queued yet
+            value = writeEntities(key, metadata, (List<?>) value, valueChanged, loadVersion);
+            if (value == null) {
+                if (valueChanged) {
+                    cacheWriteQueue.delete(key, version, onWritten);
+                    onCacheWritten(key, metadata);
+                }
+                return;
+            }
+        }
+        if (!circuitBreaker.isClosed() || !cacheWriteQueue.acceptsWrites()) {
+            //Redis is bypassed or write queue is full - previous value of changed record must not stay in cache
+            if (valueChanged)
+                cacheWriteQueue.delete(key, version, onWritten);
+            onCacheWritten(key, metadata);
+            return;
+        }
+        if (metadata.getNegativeTtl() != null && isEmptyResult(metadata, value)) {
+            //compact sentinel under its own short ttl instead of encoded empty value
+            cacheWriteQueue.set(key, EMPTY_RESULT_SENTINEL, metadata.getNegativeTtl(), valueChanged, tagKeys, version, onWritten);
+            onCacheWritten(key, metadata);
+            return;
+        }
+        byte[] payload;
+        try {
+            payload = encode(metadata, value);
+        } catch (SerializationException e) {
+            //response is returned anyway, it's just not cached
+            log.warn("Unable to encode value for cacheKey: " + key, e);
+            return;
+        }
+        if (metadata.getRefreshAfterMillis() > 0)
+            payload = refreshAhead.wrap(payload, metadata.getRefreshAfterMillis(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - loadStartNanos));
+        //SET key value [PX ttl] (conditional script when versioned) - single command, queued with other background cache writes
+        cacheWriteQueue.set(key, payload, metadata.getTtl().next(), valueChanged, tagKeys, version, onWritten);
+        onCacheWritten(key, metadata);
+    }
+
+    /*
+    Versions are kept for plain values - streamed lists are replaced with RENAME, id list of entityKey collection
+    is written unversioned (its entities are versioned, see writeEntities)
+     */
+    private boolean isVersioned(CacheMethodMetadata metadata) {
+        return versionClock.isEnabled() && !metadata.isStreaming() && !metadata.isNormalized();
+    }
+
+    private static boolean isEmptyResult(CacheMethodMetadata metadata, Object value) {
+        return metadata.getReturnKind() == ReturnKind.MONO ? value == null : ((List<?>) value).isEmpty();
+    }
+
+    /*
+    Cache fill of several records, versioned with the time their load started - record changed since is skipped.
+    Unversioned entries without ttl are written with single MSET, otherwise with SET PX per entry (each with its own jitter)
+     */
+    private void writeCacheAll(CacheMethodMetadata metadata, Map<String, Object> values, long loadVersion) {
+        if (!circuitBreaker.isClosed() || !cacheWriteQueue.acceptsWrites())
+            return;
+        Map<String, byte[]> payloads = new LinkedHashMap<>();
+        for (Map.Entry<String, Object> value : values.entrySet()) {
+            try {
+                payloads.put(value.getKey(), encode(metadata, value.getValue()));
+            } catch (SerializationException e) {
+                log.warn("Unable to encode value for cacheKey: " + value.getKey(), e);
+            }
+        }
+        cacheWriteQueue.setAll(payloads, metadata.getTtl(), loadVersion);
+    }
+
+    /*
+    Writes every element under its entity key, returns id list to be cached under collection key,
+    or null if some element has no id. Entities are versioned like single records: filled with loadVersion, changed
+    ones are written one by one with version of the change, and deleted if they can't be queued
+     */
+    private List<String> writeEntities(String key, CacheMethodMetadata metadata, List<?> values, boolean valueChanged,
+                                       long loadVersion) {
+        List<String> ids = new ArrayList<>(values.size());
+        Map<String, Object> entities = new LinkedHashMap<>();
+        for (Object value : values) {
+            String id = metadata.getEntityIdExpression().getValue(new Object[]{value});
+            if (id == null) {
+                log.warn("Element without entityId can't be cached, cacheKey: {}", key);
+                return null;
+            }
+            ids.add(id);
+            entities.put(aspectUtils.getIdKeyVal(metadata.getEntityKey(), id), value);
+        }
+        if (!valueChanged) {
+            writeCacheAll(metadata, entities, loadVersion);
+            return ids;
+        }
+        long version = versionClock.next();
+        boolean acceptsWrites = circuitBreaker.isClosed() && cacheWriteQueue.acceptsWrites();
+        for (Map.Entry<String, Object> entity : entities.entrySet()) {
+            byte[] payload = null;
+            try {
+                if (acceptsWrites)
+                    payload = encode(metadata, entity.getValue());
+            } catch (SerializationException e) {
+                log.warn("Unable to encode value for cacheKey: " + entity.getKey(), e);
+            }
+            Runnable onWritten = invalidateAfterWrite(entity.getKey());
+            if (payload != null)
+                cacheWriteQueue.set(entity.getKey(), payload, metadata.getTtl().next(), true, Collections.emptyList(), version,
+                        onWritten);
+            else
+                cacheWriteQueue.delete(entity.getKey(), version, onWritten);
+            invalidateLocalCopies(entity.getKey());
+        }
+        return ids;
+    }
+
+    private void onCacheWritten(String key, CacheMethodMetadata metadata) {
+        //value of the key was changed (not just loaded on Get miss) - near caches of all instances must drop it
+        if (metadata.getOperation() != CacheOperation.GET)
+            invalidateLocalCopies(key);
+    }
+
+    private void invalidateLocalCopies(String key) {
+        nearCache.invalidate(key);
+        hotKeyTracker.invalidate(key);
+    }
+
+    /*
+    Local copies of changed key are dropped right when the write is queued, and again once it reached Redis -
+    instance reading the key in between (e.g. on miss right after the first invalidation) could cache the previous value
+     */
+    private Runnable invalidateAfterWrite(String key) {
+        return nearCache.isEnabled() || hotKeyTracker.isPromoting() ? () -> invalidateLocalCopies(key) : null;
+    }
+
+    private void evictCache(String key, CacheMethodMetadata metadata) {
+        evictCache(key, metadata.isStreaming(), isVersioned(metadata));
+    }
+
+    private void evictCache(String key, boolean streaming, boolean versioned) {
+        //streamed list is committed with RENAME outside of the batch - delete must not be delayed past it
+        if (streaming)
+            keyRouter.forWrite(key).opsForValue().delete(key)
+                    .doFinally(signal -> invalidateLocalCopies(key))
+                    .subscribe();
+        else
+            cacheWriteQueue.delete(key, versioned ? versionClock.next() : 0, invalidateAfterWrite(key));
+        invalidateLocalCopies(key);
+    }
+
+    /*
+    Deletes every key of evicted tag groups, near caches and hot key copies drop the deleted keys as well
+     */
+    private void invalidateTags(List<String> evictTagKeys) {
+        cacheWriteQueue.invalidateTags(evictTagKeys, nearCache.isEnabled() || hotKeyTracker.isPromoting() ?
+                keys -> keys.forEach(this::invalidateLocalCopies) : null);
+    }
+
+    private Mono<Object> loadToCache(String key, CacheMethodMetadata metadata, Supplier<List<String>> tagKeys,
+                                     Supplier<Mono<Object>> loader) {
+        try {
+            List<String> tags = tagKeys != null ? tagKeys.get() : Collections.emptyList();
+            long loadStartNanos = System.nanoTime();
+            long loadVersion = versionClock.next();
+            Mono<Object> response = loader.get().map(loaded -> {
+                metadata.getMeters().load(loadStartNanos);
+                writeCache(key, metadata, loaded, loadStartNanos, loadVersion, tags);
+                return loaded;
+            });
+            if (metadata.getNegativeTtl() != null)
+                response = response.switchIfEmpty(Mono.fromRunnable(() -> {
+                    metadata.getMeters().load(loadStartNanos);
+                    writeCache(key, metadata, null, loadStartNanos, loadVersion, tags);
+                }));
+            else if (isEvictedOnFailure(metadata))
+                response = response.switchIfEmpty(Mono.fromRunnable(() -> evictCache(key, metadata)));
+            return response.doOnError(e -> onLoadError(key, metadata));
+        } catch (RuntimeException e) {
+            if (isEvictedOnFailure(metadata))
+                evictCache(key, metadata);
+            return Mono.error(e);
+        }
+    }
+
+    /*
+    Versioned Update doesn't evict the cache upfront - record the update didn't return, or failed update,
+    must not stay cached
+     */
+    private boolean isEvictedOnFailure(CacheMethodMetadata metadata) {
+        return metadata.getOperation() == CacheOperation.UPDATE && isVersioned(metadata);
+    }
+
+    private void onLoadError(String key, CacheMethodMetadata metadata) {
+        metadata.getMeters().error(CacheMethodMeters.ErrorStage.LOAD);
+        if (isEvictedOnFailure(metadata))
+            evictCache(key, metadata);
+    }
+
+    /*
+    Elements are returned as soon as they arrive from the loader, and written to Redis list in chunks on the side
+     */
+    private Flux<Object> loadStreamToCache(String key, CacheMethodMetadata metadata, Supplier<Flux<Object>> loader) {
+        try {
+            if (!circuitBreaker.isClosed())
+                return loader.get();
+            return redisListStream.write(key, loader.get(), value -> encode(metadata, value), metadata.getTtl().next(),
+                    () -> onCacheWritten(key, metadata));
+        } catch (RuntimeException e) {
+            return Flux.error(e);
+        }
+    }
+
+    /*
+    Executes the loader with missing ids only, returns loaded records by their cache key,
+    records without resultId (or with duplicate one) are returned under synthetic keys and not cached
+     */
+    private Mono<Map<String, Object>> loadAllToCache(String key, CacheMethodMetadata metadata, List<Object> missingIds,
+                                                     Function<List<Object>, Flux<Object>> loader) {
+        long loadStartNanos = System.nanoTime();
+        long loadVersion = versionClock.next();
+        return Flux.defer(() -> loader.apply(missingIds)).collectList().map(loadedList -> {
+            metadata.getMeters().load(loadStartNanos);
+            Map<String, Object> loaded = new LinkedHashMap<>();
+            Map<String, Object> uncached = new LinkedHashMap<>();
+            for (Object value : loadedList) {
+                String id = metadata.getResultIdExpression().getValue(new Object[]{value});
+                if (id == null || loaded.putIfAbsent(aspectUtils.getIdKeyVal(key, id), value) != null)
+                    uncached.put("\0" + uncached.size(), value);
+            }
+            writeCacheAll(metadata, loaded, loadVersion);
+            loaded.putAll(uncached);
+            return loaded;
+        }).doOnError(e -> metadata.getMeters().error(CacheMethodMeters.ErrorStage.LOAD));
+    }
+
+    private Mono<List<Object>> loadListToCache(String key, CacheMethodMetadata metadata, Supplier<List<String>> tagKeys,
+                                               Supplier<Flux<Object>> loader) {
+        try {
+            List<String> tags = tagKeys != null ? tagKeys.get() : Collections.emptyList();
+            long loadStartNanos = System.nanoTime();
+            long loadVersion = versionClock.next();
+            return loader.get().collectList().map(loadedList -> {
+                metadata.getMeters().load(loadStartNanos);
+                writeCache(key, metadata, loadedList, loadStartNanos, loadVersion, tags);
+                return loadedList;
+            }).doOnError(e -> onLoadError(key, metadata));
+        } catch (RuntimeException e) {
+            if (isEvictedOnFailure(metadata))
+                evictCache(key, metadata);
+            return Mono.error(e);
+        }
+    }
+}
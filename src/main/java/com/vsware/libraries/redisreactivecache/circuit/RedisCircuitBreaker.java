@@ -0,0 +1,120 @@
+package com.vsware.libraries.redisreactivecache.circuit;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+Stops contacting Redis after failureThreshold consecutive failed or late cache reads.
+While open, reads are treated as cache misses and fills are not written, so requests are served by annotated methods
+without waiting for unavailable Redis. Once openDuration is over, single trial read is let through (half-open):
+success closes the breaker, failure opens it for another openDuration.
+Outcome is reported with the permit returned by tryAcquire, so only the trial read may close or reopen half-open breaker -
+late reply of a read started before the breaker opened is not taken for a trial
+ */
+@Slf4j
+public class RedisCircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    //tryAcquire: Redis must not be contacted
+    public static final long REJECTED = -1;
+    //tryAcquire: breaker closed, not a trial read
+    public static final long CLOSED_PERMIT = 0;
+
+    private final boolean enabled;
+    private final int failureThreshold;
+    private final long openNanos;
+    private final AtomicReference<State> state = new AtomicReference<>(State.CLOSED);
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    //permit of the current trial read
+    private final AtomicLong trial = new AtomicLong();
+    private final LongAdder openedCount = new LongAdder();
+    private final LongAdder rejectedCount = new LongAdder();
+    private volatile long openedAtNanos;
+
+    public RedisCircuitBreaker(boolean enabled, int failureThreshold, long openMillis) {
+        this.enabled = enabled;
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openNanos = openMillis * 1_000_000;
+    }
+
+    /*
+    REJECTED - Redis must not be contacted, otherwise permit the caller must report the outcome with
+    onSuccess/onFailure/onCancel: CLOSED_PERMIT, or positive permit of the trial read
+     */
+    public long tryAcquire() {
+        State current = state.get();
+        if (current == State.CLOSED)
+            return CLOSED_PERMIT;
+        //only the caller switching OPEN -> HALF_OPEN performs the trial read
+        if (current == State.OPEN && System.nanoTime() - openedAtNanos >= openNanos &&
+                state.compareAndSet(State.OPEN, State.HALF_OPEN))
+            return trial.incrementAndGet();
+        rejectedCount.increment();
+        return REJECTED;
+    }
+
+    /*
+    Cheap check for background writes, which are not trial calls
+     */
+    public boolean isClosed() {
+        return state.get() == State.CLOSED;
+    }
+
+    public void onSuccess(long permit) {
+        consecutiveFailures.set(0);
+        if (isTrial(permit) && state.compareAndSet(State.HALF_OPEN, State.CLOSED))
+            log.info("Redis cache circuit breaker closed");
+    }
+
+    public void onFailure(long permit) {
+        if (!enabled)
+            return;
+        if (isTrial(permit)) {
+            if (state.get() == State.HALF_OPEN)
+                open();
+        } else if (permit == CLOSED_PERMIT && state.get() == State.CLOSED &&
+                consecutiveFailures.incrementAndGet() >= failureThreshold) {
+            open();
+        }
+    }
+
+    /*
+    Cancelled trial read proves nothing - next caller performs a new one
+     */
+    public void onCancel(long permit) {
+        if (isTrial(permit))
+            state.compareAndSet(State.HALF_OPEN, State.OPEN);
+    }
+
+    public State getState() {
+        return state.get();
+    }
+
+    public long getOpenedCount() {
+        return openedCount.sum();
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount.sum();
+    }
+
+    private boolean isTrial(long permit) {
+        return permit > CLOSED_PERMIT && permit == trial.get();
+    }
+
+    private void open() {
+        openedAtNanos = System.nanoTime();
+        consecutiveFailures.set(0);
+        if (state.getAndSet(State.OPEN) != State.OPEN) {
+            openedCount.increment();
+            log.warn("Redis cache circuit breaker opened, Redis is bypassed for {} ms", openNanos / 1_000_000);
+        }
+    }
+}
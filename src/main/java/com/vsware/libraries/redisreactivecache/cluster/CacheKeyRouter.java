@@ -0,0 +1,228 @@
+package com.vsware.libraries.redisreactivecache.cluster;
+
+import com.vsware.libraries.redisreactivecache.replica.RecentWrites;
+import lombok.Getter;
+import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.function.Tuples;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/*
+Decides where cache keys live:
+ - single endpoint - every key goes to the default cache template
+ - sharding (RedisShards) - key goes to its node on ConsistentHashRing
+ - Redis Cluster (slotGrouping) - default template, multi-key operations are split per hash slot,
+   since multi-key commands and scripts must not cross slots (CROSSSLOT)
+Multi-key operations are grouped by node and slot, groups are sent in parallel - commands of one group
+are pipelined on the node connection.
+
+Without sharding reads go to readTemplate (replica reads, see ReplicaReadConnection) when set, except keys
+written by this instance (or invalidated by other instance's near cache message) within read-your-writes window
+(RecentWrites), those are read from the primary
+ */
+public class CacheKeyRouter {
+
+    private final ReactiveRedisTemplate<String, byte[]> defaultTemplate;
+    //null without replica reads
+    private final ReactiveRedisTemplate<String, byte[]> readTemplate;
+    //null without sharding
+    private final ConsistentHashRing<ReactiveRedisTemplate<String, byte[]>> ring;
+    private final boolean slotGrouping;
+    private final RecentWrites recentWrites;
+
+    public CacheKeyRouter(ReactiveRedisTemplate<String, byte[]> defaultTemplate, ReactiveRedisTemplate<String, byte[]> readTemplate,
+                          RedisShards shards, int virtualNodes, boolean slotGrouping, RecentWrites recentWrites) {
+        this.defaultTemplate = defaultTemplate;
+        this.ring = shards.isEnabled() ? new ConsistentHashRing<>(shards.getTemplates(), virtualNodes) : null;
+        this.readTemplate = ring == null ? readTemplate : null;
+        this.slotGrouping = slotGrouping;
+        this.recentWrites = recentWrites;
+    }
+
+    /*
+    Cache template: String keys, values as bytes produced by CacheCodec
+     */
+    public static ReactiveRedisTemplate<String, byte[]> cacheTemplate(ReactiveRedisConnectionFactory connectionFactory) {
+        return new ReactiveRedisTemplate<>(connectionFactory,
+                RedisSerializationContext.<String, byte[]>newSerializationContext(RedisSerializer.byteArray())
+                        .key(RedisSerializer.string())
+                        .hashKey(RedisSerializer.string())
+                        .build());
+    }
+
+    /*
+    Every template cache keys may be routed to
+     */
+    public Set<ReactiveRedisTemplate<String, byte[]>> getTemplates() {
+        Set<ReactiveRedisTemplate<String, byte[]>> templates = new LinkedHashSet<>();
+        if (ring != null)
+            templates.addAll(ring.getNodes());
+        else
+            templates.add(defaultTemplate);
+        if (readTemplate != null)
+            templates.add(readTemplate);
+        return templates;
+    }
+
+    private ReactiveRedisTemplate<String, byte[]> forKey(String key) {
+        return ring != null ? ring.get(key) : defaultTemplate;
+    }
+
+    public ReactiveRedisTemplate<String, byte[]> forRead(String key) {
+        if (readTemplate == null || recentWrites.isRecent(key))
+            return forKey(key);
+        return readTemplate;
+    }
+
+    /*
+    Template of the primary, the key is read from the primary within read-your-writes window
+     */
+    public ReactiveRedisTemplate<String, byte[]> forWrite(String key) {
+        recentWrites.written(key);
+        return forKey(key);
+    }
+
+    /*
+    Key changed by other instance (near cache invalidation message), read from the primary within read-your-writes window
+     */
+    public void written(String key) {
+        recentWrites.written(key);
+    }
+
+    public void written(Collection<String> keys) {
+        recentWrites.written(keys);
+    }
+
+    /*
+    Keys may be spread over several nodes or slots - multi-key commands must be split with group()
+     */
+    public boolean isDistributed() {
+        return ring != null || slotGrouping;
+    }
+
+    /*
+    Whether single multi-key command or script may touch all the keys
+     */
+    public boolean isColocated(String key, Collection<String> otherKeys) {
+        if (!isDistributed())
+            return true;
+        String hashedPart = SlotHash.hashedPart(key);
+        for (String otherKey : otherKeys) {
+            if (!SlotHash.hashedPart(otherKey).equals(hashedPart) && !sameNodeAndSlot(key, otherKey))
+                return false;
+        }
+        return true;
+    }
+
+    private boolean sameNodeAndSlot(String key, String otherKey) {
+        return forKey(key) == forKey(otherKey) && (!slotGrouping || SlotHash.slot(key) == SlotHash.slot(otherKey));
+    }
+
+    /*
+    Keys to be written grouped by node and (in Cluster) slot, each group keeps positions of its keys in the given list
+     */
+    public List<KeyGroup> group(List<String> keys) {
+        recentWrites.written(keys);
+        return group(keys, this::forKey);
+    }
+
+    private List<KeyGroup> group(List<String> keys, Function<String, ReactiveRedisTemplate<String, byte[]>> router) {
+        if (!isDistributed() && readTemplate == null)
+            return Collections.singletonList(new KeyGroup(defaultTemplate, keys, null));
+        Map<ReactiveRedisTemplate<String, byte[]>, Map<Integer, KeyGroup>> groups = new LinkedHashMap<>();
+        for (int i = 0; i < keys.size(); i++) {
+            String key = keys.get(i);
+            ReactiveRedisTemplate<String, byte[]> template = router.apply(key);
+            int slot = slotGrouping ? SlotHash.slot(key) : 0;
+            groups.computeIfAbsent(template, t -> new HashMap<>())
+                    .computeIfAbsent(slot, s -> new KeyGroup(template, new ArrayList<>(), new ArrayList<>()))
+                    .add(key, i);
+        }
+        List<KeyGroup> keyGroups = new ArrayList<>();
+        groups.values().forEach(slots -> keyGroups.addAll(slots.values()));
+        return keyGroups;
+    }
+
+    /*
+    MGET split per node and slot, values are returned in order of keys
+     */
+    public Mono<List<byte[]>> multiGet(List<String> keys) {
+        List<KeyGroup> groups = group(keys, this::forRead);
+        if (groups.size() == 1)
+            return groups.get(0).getTemplate().opsForValue().multiGet(groups.get(0).getKeys());
+        return Flux.fromIterable(groups)
+                .flatMap(group -> group.getTemplate().opsForValue().multiGet(group.getKeys())
+                        .map(values -> Tuples.of(group, values)))
+                .<List<byte[]>>collect(() -> new ArrayList<>(Collections.nCopies(keys.size(), null)), (values, groupValues) -> {
+                    for (int i = 0; i < groupValues.getT2().size(); i++) {
+                        values.set(groupValues.getT1().getPosition(i), groupValues.getT2().get(i));
+                    }
+                });
+    }
+
+    /*
+    MSET split per node and slot
+     */
+    public Mono<Void> multiSet(Map<String, byte[]> values) {
+        if (!isDistributed()) {
+            recentWrites.written(values.keySet());
+            return defaultTemplate.opsForValue().multiSet(values).then();
+        }
+        return Flux.fromIterable(group(new ArrayList<>(values.keySet())))
+                .flatMap(group -> {
+                    Map<String, byte[]> groupValues = new LinkedHashMap<>();
+                    group.getKeys().forEach(key -> groupValues.put(key, values.get(key)));
+                    return group.getTemplate().opsForValue().multiSet(groupValues);
+                })
+                .then();
+    }
+
+    /*
+    DEL split per node and slot
+     */
+    public Mono<Long> delete(List<String> keys) {
+        if (keys.isEmpty())
+            return Mono.just(0L);
+        return Flux.fromIterable(group(keys))
+                .flatMap(group -> group.getTemplate().delete(group.getKeys().toArray(new String[0])))
+                .reduce(0L, Long::sum);
+    }
+
+    @Getter
+    public static class KeyGroup {
+
+        private final ReactiveRedisTemplate<String, byte[]> template;
+        private final List<String> keys;
+        //null - keys are in their original order
+        private final List<Integer> positions;
+
+        KeyGroup(ReactiveRedisTemplate<String, byte[]> template, List<String> keys, List<Integer> positions) {
+            this.template = template;
+            this.keys = keys;
+            this.positions = positions;
+        }
+
+        private void add(String key, int position) {
+            keys.add(key);
+            positions.add(position);
+        }
+
+        public int getPosition(int index) {
+            return positions != null ? positions.get(index) : index;
+        }
+    }
+}
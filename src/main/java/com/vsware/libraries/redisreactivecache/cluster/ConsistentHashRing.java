@@ -0,0 +1,48 @@
+package com.vsware.libraries.redisreactivecache.cluster;
+
+import com.vsware.libraries.redisreactivecache.fingerprint.Murmur3Hasher;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/*
+Client-side sharding of keys across standalone Redis nodes. Every node is placed on the ring virtualNodes times
+(positions derived from its name, so placement doesn't depend on configuration order), key belongs to the first
+node clockwise from its hash. Adding or removing a node moves only ~1/n of the keys.
+Key is hashed by SlotHash.hashedPart, so keys sharing a hash tag share a node like they share a Cluster slot
+ */
+public class ConsistentHashRing<T> {
+
+    private final NavigableMap<Long, T> ring = new TreeMap<>();
+
+    public ConsistentHashRing(Map<String, T> nodes, int virtualNodes) {
+        if (nodes.isEmpty())
+            throw new IllegalArgumentException("ConsistentHashRing requires at least one node");
+        Murmur3Hasher hasher = new Murmur3Hasher();
+        for (Map.Entry<String, T> node : nodes.entrySet()) {
+            for (int i = 0; i < Math.max(1, virtualNodes); i++) {
+                hasher.reset().putString(node.getKey());
+                hasher.putInt(i);
+                ring.put(hasher.finish().getH1(), node.getValue());
+            }
+        }
+    }
+
+    public Collection<T> getNodes() {
+        return new LinkedHashSet<>(ring.values());
+    }
+
+    public T get(String key) {
+        Map.Entry<Long, T> node = ring.ceilingEntry(hash(key));
+        return node != null ? node.getValue() : ring.firstEntry().getValue();
+    }
+
+    private static long hash(String key) {
+        Murmur3Hasher hasher = new Murmur3Hasher();
+        hasher.putString(SlotHash.hashedPart(key));
+        return hasher.finish().getH1();
+    }
+}
@@ -0,0 +1,59 @@
+package com.vsware.libraries.redisreactivecache.cluster;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+Connections to standalone Redis nodes the cache keys are sharded across (spring.redis.shards, host:port list),
+each with its own cache template. Empty without sharding
+ */
+public class RedisShards implements DisposableBean {
+
+    private static final int DEFAULT_PORT = 6379;
+
+    private final List<LettuceConnectionFactory> connectionFactories = new ArrayList<>();
+    private final Map<String, ReactiveRedisTemplate<String, byte[]>> templates = new LinkedHashMap<>();
+
+    public RedisShards(String[] nodes, String password) {
+        for (String node : nodes) {
+            if (!StringUtils.hasText(node))
+                continue;
+            String hostAndPort = node.trim();
+            int separator = hostAndPort.lastIndexOf(':');
+            RedisStandaloneConfiguration configuration = separator < 0 ?
+                    new RedisStandaloneConfiguration(hostAndPort, DEFAULT_PORT) :
+                    new RedisStandaloneConfiguration(hostAndPort.substring(0, separator),
+                            Integer.parseInt(hostAndPort.substring(separator + 1)));
+            if (StringUtils.hasText(password))
+                configuration.setPassword(password);
+            LettuceConnectionFactory connectionFactory = new LettuceConnectionFactory(configuration);
+            connectionFactory.afterPropertiesSet();
+            connectionFactories.add(connectionFactory);
+            //node name decides ring positions - host:port, the same on every application instance
+            templates.put(configuration.getHostName() + ":" + configuration.getPort(),
+                    CacheKeyRouter.cacheTemplate(connectionFactory));
+        }
+    }
+
+    public boolean isEnabled() {
+        return !templates.isEmpty();
+    }
+
+    public Map<String, ReactiveRedisTemplate<String, byte[]>> getTemplates() {
+        return Collections.unmodifiableMap(templates);
+    }
+
+    @Override
+    public void destroy() {
+        connectionFactories.forEach(LettuceConnectionFactory::destroy);
+    }
+}
@@ -0,0 +1,111 @@
+package com.vsware.libraries.redisreactivecache.cluster;
+
+import java.nio.charset.StandardCharsets;
+
+/*
+Redis Cluster key placement: slot = CRC16(key) mod 16384, where only the hash tag is hashed if the key has one -
+content of the first {...} with at least one character, e.g. {user1}:profile and {user1}:orders share a slot
+ */
+public final class SlotHash {
+
+    public static final int SLOT_COUNT = 16384;
+
+    //characters appended to companion key to move it to the slot of its key
+    private static final byte[] PADDING = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz"
+            .getBytes(StandardCharsets.US_ASCII);
+    //62^4 candidates - always enough to hit any of 16384 slots
+    private static final int MAX_PADDING = 4;
+
+    //CRC16-CCITT (XMODEM), polynomial 0x1021 - the one used by Redis Cluster
+    private static final int[] CRC16_TABLE = new int[256];
+
+    static {
+        for (int i = 0; i < 256; i++) {
+            int crc = i << 8;
+            for (int bit = 0; bit < 8; bit++) {
+                crc = (crc & 0x8000) != 0 ? (crc << 1) ^ 0x1021 : crc << 1;
+            }
+            CRC16_TABLE[i] = crc & 0xFFFF;
+        }
+    }
+
+    private SlotHash() {
+    }
+
+    public static int slot(String key) {
+        return crc16(hashedPart(key).getBytes(StandardCharsets.UTF_8)) & (SLOT_COUNT - 1);
+    }
+
+    /*
+    The part of the key which decides its slot - hash tag content, or the whole key
+     */
+    public static String hashedPart(String key) {
+        int open = key.indexOf('{');
+        if (open < 0)
+            return key;
+        int close = key.indexOf('}', open + 1);
+        if (close < 0 || close == open + 1)
+            return key;
+        return key.substring(open + 1, close);
+    }
+
+    /*
+    Key template {hashTag}key - every key with the same hash tag lands in the same slot
+     */
+    public static String withHashTag(String hashTag, String key) {
+        return "{" + hashTag + "}" + key;
+    }
+
+    /*
+    Key derived from another key which must stay in the same slot (e.g. temporary list renamed to the key),
+    suffix must not contain braces:
+     - key with hash tag - key + suffix keeps the tag
+     - key without braces is used as hash tag - {key} is hashed exactly like key
+     - key which can't be used as hash tag (contains '}' without being tagged, or is empty) - key + suffix is hashed whole,
+       so up to 4 characters [0-9A-Za-z] are appended to land in the slot of key. Padding is found by CRC16 search
+       (tens of microseconds) and depends only on key and suffix, the same companion is derived every time
+     */
+    public static String companionKey(String key, String suffix) {
+        if (!hashedPart(key).equals(key))
+            return key + suffix;
+        if (!key.isEmpty() && key.indexOf('}') < 0)
+            return withHashTag(key, suffix);
+        return padToSlot(key + suffix, slot(key));
+    }
+
+    static String padToSlot(String key, int slot) {
+        int crc = crc16(key.getBytes(StandardCharsets.UTF_8));
+        if ((crc & (SLOT_COUNT - 1)) == slot)
+            return key;
+        for (int length = 1; length <= MAX_PADDING; length++) {
+            byte[] padding = new byte[length];
+            if (findPadding(crc, slot, padding, 0))
+                return key + new String(padding, StandardCharsets.US_ASCII);
+        }
+        throw new IllegalStateException("No padding moves key " + key + " to slot " + slot);
+    }
+
+    //depth-first search of padding[position..] completing crc to the slot
+    private static boolean findPadding(int crc, int slot, byte[] padding, int position) {
+        boolean last = position == padding.length - 1;
+        for (byte b : PADDING) {
+            int next = crc16(crc, b);
+            padding[position] = b;
+            if (last ? (next & (SLOT_COUNT - 1)) == slot : findPadding(next, slot, padding, position + 1))
+                return true;
+        }
+        return false;
+    }
+
+    static int crc16(byte[] bytes) {
+        int crc = 0;
+        for (byte b : bytes) {
+            crc = crc16(crc, b);
+        }
+        return crc;
+    }
+
+    private static int crc16(int crc, byte b) {
+        return ((crc << 8) ^ CRC16_TABLE[((crc >>> 8) ^ b) & 0xFF]) & 0xFFFF;
+    }
+}
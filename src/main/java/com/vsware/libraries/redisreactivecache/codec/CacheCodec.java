@@ -0,0 +1,24 @@
+package com.vsware.libraries.redisreactivecache.codec;
+
+import com.fasterxml.jackson.databind.JavaType;
+
+/*
+Cache value (de)serialization SPI. Values are decoded straight from Redis bytes into resolved type
+of the annotated method, without intermediate Object tree.
+Codec is selected by name - per annotation (codec attribute) or globally (spring.redis.codec),
+any CacheCodec bean is picked up
+ */
+public interface CacheCodec {
+
+    String getName();
+
+    byte[] encode(Object value);
+
+    <T> T decode(byte[] bytes, JavaType type);
+
+    /*
+    Startup warm-up - builds whatever (de)serialization of the type needs, so the first request doesn't pay for it
+     */
+    default void warmUp(JavaType type) {
+    }
+}
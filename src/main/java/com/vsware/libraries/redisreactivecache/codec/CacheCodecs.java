@@ -0,0 +1,39 @@
+package com.vsware.libraries.redisreactivecache.codec;
+
+import org.springframework.util.StringUtils;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+Registry of available CacheCodec beans by name
+ */
+public class CacheCodecs {
+
+    private final Map<String, CacheCodec> codecs = new HashMap<>();
+    private final CacheCodec defaultCodec;
+
+    public CacheCodecs(List<CacheCodec> codecs, String defaultCodecName) {
+        for (CacheCodec codec : codecs) {
+            this.codecs.put(codec.getName(), codec);
+        }
+        this.defaultCodec = get(defaultCodecName);
+    }
+
+    /*
+    Returns codec by name, default codec if name is empty
+     */
+    public CacheCodec get(String name) {
+        if (!StringUtils.hasText(name))
+            return defaultCodec;
+        CacheCodec codec = codecs.get(name);
+        if (codec == null)
+            throw new IllegalArgumentException("RedisReactiveCache codec '" + name + "' not found, available: " + codecs.keySet());
+        return codec;
+    }
+
+    public CacheCodec getDefault() {
+        return defaultCodec;
+    }
+}
@@ -0,0 +1,67 @@
+package com.vsware.libraries.redisreactivecache.codec;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+CacheCodec backed by Jackson ObjectMapper, data format depends on the mapper factory:
+JSON, Smile or CBOR. Readers are resolved once per type
+ */
+public class JacksonCacheCodec implements CacheCodec {
+
+    public static final String JSON = "json";
+    public static final String SMILE = "smile";
+    public static final String CBOR = "cbor";
+
+    private final String name;
+    private final ObjectMapper objectMapper;
+    private final Map<JavaType, ObjectReader> readers = new ConcurrentHashMap<>();
+
+    public JacksonCacheCodec(String name, ObjectMapper objectMapper) {
+        this.name = name;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public byte[] encode(Object value) {
+        try {
+            return objectMapper.writeValueAsBytes(value);
+        } catch (IOException e) {
+            throw new SerializationException("Could not write " + name + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public <T> T decode(byte[] bytes, JavaType type) {
+        try {
+            return reader(type).readValue(bytes);
+        } catch (IOException e) {
+            throw new SerializationException("Could not read " + name + ": " + e.getMessage(), e);
+        }
+    }
+
+    //reader prefetches root deserializer, canSerialize builds and caches serializer of the class
+    @Override
+    public void warmUp(JavaType type) {
+        reader(type);
+        objectMapper.canSerialize(type.getRawClass());
+    }
+
+    public ObjectReader reader(JavaType type) {
+        ObjectReader reader = readers.get(type);
+        if (reader == null)
+            reader = readers.computeIfAbsent(type, objectMapper::readerFor);
+        return reader;
+    }
+}
@@ -0,0 +1,38 @@
+package com.vsware.libraries.redisreactivecache.compression;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.vsware.libraries.redisreactivecache.codec.CacheCodec;
+
+/*
+Decorates CacheCodec with ValueCompressor, so every codec registered in CacheCodecs writes and reads compressed values
+ */
+public class CompressingCacheCodec implements CacheCodec {
+
+    private final CacheCodec delegate;
+    private final ValueCompressor valueCompressor;
+
+    public CompressingCacheCodec(CacheCodec delegate, ValueCompressor valueCompressor) {
+        this.delegate = delegate;
+        this.valueCompressor = valueCompressor;
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public byte[] encode(Object value) {
+        return valueCompressor.compress(delegate.encode(value));
+    }
+
+    @Override
+    public <T> T decode(byte[] bytes, JavaType type) {
+        return delegate.decode(valueCompressor.decompress(bytes), type);
+    }
+
+    @Override
+    public void warmUp(JavaType type) {
+        delegate.warmUp(type);
+    }
+}
@@ -0,0 +1,17 @@
+package com.vsware.libraries.redisreactivecache.compression;
+
+/*
+Compression SPI for cached values. Id is stored in the header of every compressed value,
+so it must be unique and never change once values were written with it.
+Any CompressionAlgorithm bean is picked up, e.g. LZ4 or Zstd backed ones, selected by name (spring.redis.compression_algorithm)
+ */
+public interface CompressionAlgorithm {
+
+    byte getId();
+
+    String getName();
+
+    byte[] compress(byte[] input);
+
+    byte[] decompress(byte[] input, int offset, int length);
+}
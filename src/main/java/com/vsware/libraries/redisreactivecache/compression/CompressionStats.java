@@ -0,0 +1,82 @@
+package com.vsware.libraries.redisreactivecache.compression;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+Counters of ValueCompressor, to tune compression_threshold_bytes:
+ratio close to 1 or high CPU time per value means threshold is too low
+ */
+public class CompressionStats {
+
+    private final LongAdder compressedCount = new LongAdder();
+    private final LongAdder skippedCount = new LongAdder();
+    private final LongAdder decompressedCount = new LongAdder();
+    private final LongAdder uncompressedBytes = new LongAdder();
+    private final LongAdder compressedBytes = new LongAdder();
+    private final LongAdder compressNanos = new LongAdder();
+    private final LongAdder decompressNanos = new LongAdder();
+
+    void recordCompressed(int inputLength, int outputLength, long nanos) {
+        compressedCount.increment();
+        uncompressedBytes.add(inputLength);
+        compressedBytes.add(outputLength);
+        compressNanos.add(nanos);
+    }
+
+    /*
+    Value above threshold which didn't get smaller, stored uncompressed
+     */
+    void recordSkipped(long nanos) {
+        skippedCount.increment();
+        compressNanos.add(nanos);
+    }
+
+    void recordDecompressed(long nanos) {
+        decompressedCount.increment();
+        decompressNanos.add(nanos);
+    }
+
+    public long getCompressedCount() {
+        return compressedCount.sum();
+    }
+
+    public long getSkippedCount() {
+        return skippedCount.sum();
+    }
+
+    public long getDecompressedCount() {
+        return decompressedCount.sum();
+    }
+
+    public long getUncompressedBytes() {
+        return uncompressedBytes.sum();
+    }
+
+    public long getCompressedBytes() {
+        return compressedBytes.sum();
+    }
+
+    /*
+    Compressed size / original size of all compressed values, 1 if nothing was compressed yet
+     */
+    public double getRatio() {
+        long uncompressed = uncompressedBytes.sum();
+        return uncompressed == 0 ? 1 : (double) compressedBytes.sum() / uncompressed;
+    }
+
+    public long getCompressTimeMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(compressNanos.sum());
+    }
+
+    public long getDecompressTimeMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(decompressNanos.sum());
+    }
+
+    @Override
+    public String toString() {
+        return "CompressionStats{compressed=" + getCompressedCount() + ", skipped=" + getSkippedCount() +
+                ", decompressed=" + getDecompressedCount() + ", ratio=" + getRatio() +
+                ", compressTimeMillis=" + getCompressTimeMillis() + ", decompressTimeMillis=" + getDecompressTimeMillis() + "}";
+    }
+}
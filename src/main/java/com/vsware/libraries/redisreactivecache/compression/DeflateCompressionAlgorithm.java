@@ -0,0 +1,73 @@
+package com.vsware.libraries.redisreactivecache.compression;
+
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.ByteArrayOutputStream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/*
+JDK Deflate (zlib format), always available
+ */
+public class DeflateCompressionAlgorithm implements CompressionAlgorithm {
+
+    public static final byte ID = 1;
+    public static final String NAME = "deflate";
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final int level;
+
+    public DeflateCompressionAlgorithm(int level) {
+        this.level = level;
+    }
+
+    @Override
+    public byte getId() {
+        return ID;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public byte[] compress(byte[] input) {
+        Deflater deflater = new Deflater(level);
+        try {
+            deflater.setInput(input);
+            deflater.finish();
+            ByteArrayOutputStream output = new ByteArrayOutputStream(Math.max(64, input.length / 4));
+            byte[] buffer = new byte[Math.min(BUFFER_SIZE, input.length + 64)];
+            while (!deflater.finished()) {
+                output.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return output.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    @Override
+    public byte[] decompress(byte[] input, int offset, int length) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(input, offset, length);
+            ByteArrayOutputStream output = new ByteArrayOutputStream(length * 4);
+            byte[] buffer = new byte[BUFFER_SIZE];
+            while (!inflater.finished()) {
+                int inflated = inflater.inflate(buffer);
+                if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary()))
+                    throw new SerializationException("Could not read " + NAME + ": truncated input");
+                output.write(buffer, 0, inflated);
+            }
+            return output.toByteArray();
+        } catch (DataFormatException e) {
+            throw new SerializationException("Could not read " + NAME + ": " + e.getMessage(), e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.vsware.libraries.redisreactivecache.compression;
+
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+Compresses encoded values bigger than threshold with configured CompressionAlgorithm.
+
+Stored format of compressed value: [0xFD][algorithm id: 1 byte][compressed bytes],
+0xFD is never the first byte of JSON/Smile/CBOR document, so uncompressed values (small ones, or written
+before compression was enabled) are stored and recognised without header. Compressed values are always readable,
+even with compression disabled, as long as their algorithm is registered
+ */
+public class ValueCompressor {
+
+    private static final byte HEADER = (byte) 0xFD;
+    private static final int HEADER_LENGTH = 2;
+
+    private final Map<Byte, CompressionAlgorithm> algorithms = new HashMap<>();
+    private final CompressionAlgorithm algorithm;
+    private final boolean enabled;
+    private final int thresholdBytes;
+    private final CompressionStats stats = new CompressionStats();
+
+    public ValueCompressor(List<CompressionAlgorithm> algorithms, String algorithmName, boolean enabled, int thresholdBytes) {
+        CompressionAlgorithm selected = null;
+        for (CompressionAlgorithm algorithm : algorithms) {
+            CompressionAlgorithm duplicate = this.algorithms.put(algorithm.getId(), algorithm);
+            if (duplicate != null)
+                throw new IllegalArgumentException("RedisReactiveCache compression algorithms '" + duplicate.getName() +
+                        "' and '" + algorithm.getName() + "' share the same id " + algorithm.getId());
+            if (algorithm.getName().equals(algorithmName))
+                selected = algorithm;
+        }
+        if (enabled && selected == null)
+            throw new IllegalArgumentException("RedisReactiveCache compression algorithm '" + algorithmName + "' not found");
+        this.algorithm = selected;
+        this.enabled = enabled;
+        this.thresholdBytes = thresholdBytes;
+    }
+
+    public byte[] compress(byte[] payload) {
+        if (!enabled || payload.length < thresholdBytes)
+            return payload;
+        long start = System.nanoTime();
+        byte[] compressed = algorithm.compress(payload);
+        if (compressed.length + HEADER_LENGTH >= payload.length) {
+            stats.recordSkipped(System.nanoTime() - start);
+            return payload;
+        }
+        byte[] stored = new byte[HEADER_LENGTH + compressed.length];
+        stored[0] = HEADER;
+        stored[1] = algorithm.getId();
+        System.arraycopy(compressed, 0, stored, HEADER_LENGTH, compressed.length);
+        stats.recordCompressed(payload.length, stored.length, System.nanoTime() - start);
+        return stored;
+    }
+
+    public byte[] decompress(byte[] stored) {
+        if (stored.length < HEADER_LENGTH || stored[0] != HEADER)
+            return stored;
+        CompressionAlgorithm storedAlgorithm = algorithms.get(stored[1]);
+        if (storedAlgorithm == null)
+            throw new SerializationException("Unknown RedisReactiveCache compression algorithm id " + stored[1]);
+        long start = System.nanoTime();
+        byte[] payload = storedAlgorithm.decompress(stored, HEADER_LENGTH, stored.length - HEADER_LENGTH);
+        stats.recordDecompressed(System.nanoTime() - start);
+        return payload;
+    }
+
+    public CompressionStats getStats() {
+        return stats;
+    }
+}
@@ -3,6 +3,8 @@ package com.vsware.libraries.redisreactivecache.config;
 import com.fasterxml.jackson.annotation.JsonAutoDetect;
 import com.fasterxml.jackson.annotation.PropertyAccessor;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.fasterxml.jackson.datatype.jsr310.deser.LocalDateDeserializer;
 import com.fasterxml.jackson.datatype.jsr310.deser.LocalDateTimeDeserializer;
@@ -10,7 +12,40 @@ import com.fasterxml.jackson.datatype.jsr310.deser.LocalTimeDeserializer;
 import com.fasterxml.jackson.datatype.jsr310.ser.LocalDateSerializer;
 import com.fasterxml.jackson.datatype.jsr310.ser.LocalDateTimeSerializer;
 import com.fasterxml.jackson.datatype.jsr310.ser.LocalTimeSerializer;
+import com.vsware.libraries.redisreactivecache.cache.ReactiveCache;
+import com.vsware.libraries.redisreactivecache.circuit.RedisCircuitBreaker;
+import com.vsware.libraries.redisreactivecache.cluster.CacheKeyRouter;
+import com.vsware.libraries.redisreactivecache.cluster.RedisShards;
+import com.vsware.libraries.redisreactivecache.codec.CacheCodec;
+import com.vsware.libraries.redisreactivecache.codec.CacheCodecs;
+import com.vsware.libraries.redisreactivecache.codec.JacksonCacheCodec;
+import com.vsware.libraries.redisreactivecache.compression.CompressingCacheCodec;
+import com.vsware.libraries.redisreactivecache.compression.CompressionAlgorithm;
+import com.vsware.libraries.redisreactivecache.compression.CompressionStats;
+import com.vsware.libraries.redisreactivecache.compression.DeflateCompressionAlgorithm;
+import com.vsware.libraries.redisreactivecache.compression.ValueCompressor;
+import com.vsware.libraries.redisreactivecache.fingerprint.ArgsFingerprint;
+import com.vsware.libraries.redisreactivecache.fingerprint.HashCodeArgsFingerprint;
+import com.vsware.libraries.redisreactivecache.fingerprint.Murmur3ArgsFingerprint;
+import com.vsware.libraries.redisreactivecache.hotkey.HotKeyTracker;
+import com.vsware.libraries.redisreactivecache.metadata.CacheMethodMetadataRegistry;
+import com.vsware.libraries.redisreactivecache.metrics.CacheMetrics;
+import com.vsware.libraries.redisreactivecache.nearcache.NearCache;
+import com.vsware.libraries.redisreactivecache.refresh.RefreshAhead;
+import com.vsware.libraries.redisreactivecache.replica.RecentWrites;
+import com.vsware.libraries.redisreactivecache.replica.ReplicaReadConnection;
+import com.vsware.libraries.redisreactivecache.stream.RedisListStream;
+import com.vsware.libraries.redisreactivecache.sync.RedisLoadLease;
+import com.vsware.libraries.redisreactivecache.sync.SingleFlight;
 import com.vsware.libraries.redisreactivecache.util.AspectUtils;
+import com.vsware.libraries.redisreactivecache.warmup.CacheWarmUp;
+import com.vsware.libraries.redisreactivecache.write.CacheWriteQueue;
+import com.vsware.libraries.redisreactivecache.write.OverflowPolicy;
+import com.vsware.libraries.redisreactivecache.write.VersionClock;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import org.springframework.beans.factory.ListableBeanFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.context.annotation.Bean;
@@ -18,15 +53,20 @@ import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
 import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
 import org.springframework.data.redis.core.ReactiveRedisTemplate;
 import org.springframework.data.redis.serializer.GenericToStringSerializer;
 import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
 
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.stream.Collectors;
 
 @Configuration
 @ConditionalOnClass(ReactiveRedisConnectionFactory.class)
@@ -37,10 +77,113 @@ public class RedisReactiveCacheConfig {
     public String DEFAULT_DATE_FORMAT;
     @Value("${spring.redis.time_format:HH:mm:ss}")
     public String DEFAULT_TIME_FORMAT;
+    @Value("${spring.redis.codec:json}")
+    public String DEFAULT_CODEC;
+    @Value("${spring.redis.compression_enabled:false}")
+    public boolean COMPRESSION_ENABLED;
+    @Value("${spring.redis.compression_algorithm:deflate}")
+    public String COMPRESSION_ALGORITHM;
+    @Value("${spring.redis.compression_threshold_bytes:4096}")
+    public int COMPRESSION_THRESHOLD_BYTES;
+    @Value("${spring.redis.compression_level:1}")
+    public int COMPRESSION_LEVEL;
+    @Value("${spring.redis.args_hash:hashcode}")
+    public String ARGS_HASH;
+    @Value("${spring.redis.default_ttl_ms:0}")
+    public long DEFAULT_TTL_MS;
+    @Value("${spring.redis.ttl_jitter:0}")
+    public double TTL_JITTER;
+    @Value("${spring.redis.refresh_beta:1.0}")
+    public double REFRESH_BETA;
+    @Value("${spring.redis.read_timeout_ms:0}")
+    public long READ_TIMEOUT_MS;
+    @Value("${spring.redis.circuit_breaker_enabled:true}")
+    public boolean CIRCUIT_BREAKER_ENABLED;
+    @Value("${spring.redis.circuit_failure_threshold:5}")
+    public int CIRCUIT_FAILURE_THRESHOLD;
+    @Value("${spring.redis.circuit_open_ms:5000}")
+    public long CIRCUIT_OPEN_MS;
+    @Value("${spring.redis.stream_chunk_size:500}")
+    public int STREAM_CHUNK_SIZE;
+    @Value("${spring.redis.stream_tmp_ttl_ms:600000}")
+    public long STREAM_TMP_TTL_MS;
+    @Value("${spring.redis.lock_lease_ms:3000}")
+    public long LOCK_LEASE_MS;
+    @Value("${spring.redis.lock_poll_interval_ms:50}")
+    public long LOCK_POLL_INTERVAL_MS;
+    @Value("${spring.redis.write_queue_capacity:10000}")
+    public int WRITE_QUEUE_CAPACITY;
+    @Value("${spring.redis.write_concurrency:64}")
+    public int WRITE_CONCURRENCY;
+    @Value("${spring.redis.write_overflow_policy:DROP_NEWEST}")
+    public OverflowPolicy WRITE_OVERFLOW_POLICY;
+    @Value("${spring.redis.write_batch_enabled:false}")
+    public boolean WRITE_BATCH_ENABLED;
+    @Value("${spring.redis.write_batch_size:128}")
+    public int WRITE_BATCH_SIZE;
+    @Value("${spring.redis.write_batch_window_micros:200}")
+    public long WRITE_BATCH_WINDOW_MICROS;
+    @Value("${spring.redis.versioned_writes_enabled:true}")
+    public boolean VERSIONED_WRITES_ENABLED;
+    @Value("${spring.redis.version_tombstone_ttl_ms:60000}")
+    public long VERSION_TOMBSTONE_TTL_MS;
+    @Value("${spring.redis.shards:}")
+    public String[] SHARDS;
+    @Value("${spring.redis.shard_virtual_nodes:160}")
+    public int SHARD_VIRTUAL_NODES;
+    @Value("${spring.redis.password:}")
+    public String PASSWORD;
+    @Value("${spring.redis.cluster_slot_grouping:false}")
+    public boolean CLUSTER_SLOT_GROUPING;
+    @Value("${spring.redis.read_from:}")
+    public String READ_FROM;
+    @Value("${spring.redis.replica_nodes:}")
+    public String[] REPLICA_NODES;
+    @Value("${spring.redis.read_your_writes_ms:1000}")
+    public long READ_YOUR_WRITES_MS;
+    @Value("${spring.redis.read_your_writes_max_keys:100000}")
+    public long READ_YOUR_WRITES_MAX_KEYS;
+    @Value("${spring.redis.warmup_enabled:true}")
+    public boolean WARMUP_ENABLED;
+    @Value("${spring.redis.warmup_hot_keys_file:}")
+    public String WARMUP_HOT_KEYS_FILE;
+    @Value("${spring.redis.warmup_timeout_ms:10000}")
+    public long WARMUP_TIMEOUT_MS;
+    @Value("${spring.redis.metrics_prefix:redis.reactive.cache}")
+    public String METRICS_PREFIX;
+    @Value("${spring.redis.near_cache_enabled:false}")
+    public boolean NEAR_CACHE_ENABLED;
+    @Value("${spring.redis.near_cache_channel:redis-reactive-cache:invalidation}")
+    public String NEAR_CACHE_CHANNEL;
+    @Value("${spring.redis.near_cache_max_size:10000}")
+    public long NEAR_CACHE_MAX_SIZE;
+    @Value("${spring.redis.near_cache_ttl_ms:60000}")
+    public long NEAR_CACHE_TTL_MS;
+    @Value("${spring.redis.hot_keys_enabled:true}")
+    public boolean HOT_KEYS_ENABLED;
+    @Value("${spring.redis.hot_keys_sample_rate:16}")
+    public int HOT_KEYS_SAMPLE_RATE;
+    @Value("${spring.redis.hot_keys_top_k:10}")
+    public int HOT_KEYS_TOP_K;
+    @Value("${spring.redis.hot_keys_window_ms:10000}")
+    public long HOT_KEYS_WINDOW_MS;
+    @Value("${spring.redis.hot_keys_sketch_width:2048}")
+    public int HOT_KEYS_SKETCH_WIDTH;
+    @Value("${spring.redis.hot_keys_sketch_depth:4}")
+    public int HOT_KEYS_SKETCH_DEPTH;
+    @Value("${spring.redis.hot_keys_promote:false}")
+    public boolean HOT_KEYS_PROMOTE;
+    @Value("${spring.redis.hot_keys_promote_min_rate:100}")
+    public double HOT_KEYS_PROMOTE_MIN_RATE;
+    @Value("${spring.redis.hot_keys_promote_ttl_ms:1000}")
+    public long HOT_KEYS_PROMOTE_TTL_MS;
 
     @Bean
     public ObjectMapper objectMapper() {
-        ObjectMapper objectMapper = new ObjectMapper();
+        return configureObjectMapper(new ObjectMapper());
+    }
+
+    private ObjectMapper configureObjectMapper(ObjectMapper objectMapper) {
         objectMapper.setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.ANY);
 
         JavaTimeModule javaTimeModule = new JavaTimeModule();
@@ -80,8 +223,200 @@ public class RedisReactiveCacheConfig {
         );
     }
 
+    /*
+    Cache values are stored as bytes produced by CacheCodec, decoded straight into the annotated method return type
+     */
+    @Bean
+    public ReactiveRedisTemplate<String, byte[]> redisReactiveCacheTemplate(ReactiveRedisConnectionFactory reactiveRedisConnectionFactory) {
+        return new ReactiveRedisTemplate<>(reactiveRedisConnectionFactory,
+                RedisSerializationContext.<String, byte[]>newSerializationContext(RedisSerializer.byteArray())
+                        .key(RedisSerializer.string())
+                        .hashKey(RedisSerializer.string())
+                        .build()
+        );
+    }
+
+    @Bean
+    public CacheCodec jsonCacheCodec(ObjectMapper objectMapper) {
+        return new JacksonCacheCodec(JacksonCacheCodec.JSON, objectMapper);
+    }
+
+    @Bean
+    public CacheCodec smileCacheCodec() {
+        return new JacksonCacheCodec(JacksonCacheCodec.SMILE, configureObjectMapper(new ObjectMapper(new SmileFactory())));
+    }
+
+    @Bean
+    public CacheCodec cborCacheCodec() {
+        return new JacksonCacheCodec(JacksonCacheCodec.CBOR, configureObjectMapper(new ObjectMapper(new CBORFactory())));
+    }
+
+    @Bean
+    public CompressionAlgorithm deflateCompressionAlgorithm() {
+        return new DeflateCompressionAlgorithm(COMPRESSION_LEVEL);
+    }
+
+    @Bean
+    public ValueCompressor valueCompressor(List<CompressionAlgorithm> compressionAlgorithms) {
+        return new ValueCompressor(compressionAlgorithms, COMPRESSION_ALGORITHM, COMPRESSION_ENABLED, COMPRESSION_THRESHOLD_BYTES);
+    }
+
+    /*
+    Every codec is wrapped with compression, compressed values are recognised by header so they can be read
+    regardless of current compression settings
+     */
+    @Bean
+    public CacheCodecs cacheCodecs(List<CacheCodec> cacheCodecs, ValueCompressor valueCompressor) {
+        return new CacheCodecs(cacheCodecs.stream()
+                .map(cacheCodec -> (CacheCodec) new CompressingCacheCodec(cacheCodec, valueCompressor))
+                .collect(Collectors.toList()), DEFAULT_CODEC);
+    }
+
+    @Bean
+    public CompressionStats compressionStats(ValueCompressor valueCompressor, CacheMetrics cacheMetrics) {
+        cacheMetrics.monitor(valueCompressor.getStats());
+        return valueCompressor.getStats();
+    }
+
+    /*
+    Meters are registered in application MeterRegistry (e.g. Actuator's), or in Micrometer global registry without it
+     */
+    @Bean
+    public CacheMetrics cacheMetrics(ObjectProvider<MeterRegistry> meterRegistry) {
+        return new CacheMetrics(meterRegistry.getIfAvailable(() -> Metrics.globalRegistry), METRICS_PREFIX);
+    }
+
+    @Bean
+    public ArgsFingerprint murmur3ArgsFingerprint(ObjectMapper objectMapper) {
+        return new Murmur3ArgsFingerprint(objectMapper);
+    }
+
+    @Bean
+    public ArgsFingerprint hashCodeArgsFingerprint() {
+        return new HashCodeArgsFingerprint();
+    }
+
+    /*
+    useArgsHash suffix engine is selected by name - hashcode (default, keys of previous versions), murmur3 or custom ArgsFingerprint bean.
+    Changing it changes every useArgsHash key - old entries have to be flushed (see README)
+     */
+    @Bean
+    public AspectUtils aspectUtils(List<ArgsFingerprint> argsFingerprints) {
+        ArgsFingerprint argsFingerprint = argsFingerprints.stream()
+                .filter(fingerprint -> fingerprint.getName().equals(ARGS_HASH))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("RedisReactiveCache args_hash '" + ARGS_HASH +
+                        "' not found, available: " + argsFingerprints.stream().map(ArgsFingerprint::getName)
+                        .collect(Collectors.toList())));
+        return new AspectUtils(argsFingerprint);
+    }
+
+    @Bean
+    public SingleFlight singleFlight() {
+        return new SingleFlight();
+    }
+
+    @Bean
+    public RedisLoadLease redisLoadLease(ReactiveRedisTemplate<String, Object> reactiveRedisTemplate) {
+        return new RedisLoadLease(reactiveRedisTemplate, Duration.ofMillis(LOCK_LEASE_MS), Duration.ofMillis(LOCK_POLL_INTERVAL_MS));
+    }
+
+    @Bean
+    public NearCache nearCache(ReactiveRedisTemplate<String, Object> reactiveRedisTemplate, CacheKeyRouter cacheKeyRouter) {
+        return new NearCache(reactiveRedisTemplate, cacheKeyRouter, NEAR_CACHE_ENABLED, NEAR_CACHE_CHANNEL,
+                NEAR_CACHE_MAX_SIZE, Duration.ofMillis(NEAR_CACHE_TTL_MS));
+    }
+
+    /*
+    Sampled reads feed count-min sketch, top keys are published every window by API (getTopKeys) and metrics
+     */
+    @Bean
+    public HotKeyTracker hotKeyTracker(CacheMetrics cacheMetrics) {
+        HotKeyTracker hotKeyTracker = new HotKeyTracker(HOT_KEYS_ENABLED, HOT_KEYS_SAMPLE_RATE, HOT_KEYS_TOP_K,
+                Duration.ofMillis(HOT_KEYS_WINDOW_MS), HOT_KEYS_SKETCH_WIDTH, HOT_KEYS_SKETCH_DEPTH, HOT_KEYS_PROMOTE,
+                HOT_KEYS_PROMOTE_MIN_RATE, Duration.ofMillis(HOT_KEYS_PROMOTE_TTL_MS));
+        if (HOT_KEYS_ENABLED)
+            cacheMetrics.monitor(hotKeyTracker, HOT_KEYS_TOP_K);
+        return hotKeyTracker;
+    }
+
+    @Bean
+    public RefreshAhead refreshAhead() {
+        return new RefreshAhead(REFRESH_BETA);
+    }
+
+    @Bean
+    public RedisShards redisShards() {
+        return new RedisShards(SHARDS, PASSWORD);
+    }
+
+    @Bean
+    public ReplicaReadConnection replicaReadConnection(ReactiveRedisConnectionFactory reactiveRedisConnectionFactory) {
+        return new ReplicaReadConnection(reactiveRedisConnectionFactory, READ_FROM, REPLICA_NODES);
+    }
+
+    /*
+    Cache keys are sharded across spring.redis.shards nodes when set, otherwise they all go to the default connection.
+    Multi-key operations are split per hash slot with Redis Cluster connection or cluster_slot_grouping.
+    With read_from cache reads go through replica read connection, writes stay on the primary
+     */
+    @Bean
+    public CacheKeyRouter cacheKeyRouter(ReactiveRedisConnectionFactory reactiveRedisConnectionFactory,
+                                         ReactiveRedisTemplate<String, byte[]> redisReactiveCacheTemplate,
+                                         RedisShards redisShards, ReplicaReadConnection replicaReadConnection) {
+        boolean cluster = reactiveRedisConnectionFactory instanceof LettuceConnectionFactory &&
+                ((LettuceConnectionFactory) reactiveRedisConnectionFactory).isClusterAware();
+        ReactiveRedisTemplate<String, byte[]> readTemplate = replicaReadConnection.isEnabled() ?
+                CacheKeyRouter.cacheTemplate(replicaReadConnection.getConnectionFactory()) : null;
+        return new CacheKeyRouter(redisReactiveCacheTemplate, readTemplate, redisShards, SHARD_VIRTUAL_NODES,
+                cluster || CLUSTER_SLOT_GROUPING, new RecentWrites(Duration.ofMillis(READ_YOUR_WRITES_MS), READ_YOUR_WRITES_MAX_KEYS));
+    }
+
+    @Bean
+    public RedisListStream redisListStream(CacheKeyRouter cacheKeyRouter) {
+        return new RedisListStream(cacheKeyRouter, STREAM_CHUNK_SIZE, Duration.ofMillis(STREAM_TMP_TTL_MS));
+    }
+
+    @Bean
+    public RedisCircuitBreaker redisCircuitBreaker(CacheMetrics cacheMetrics) {
+        RedisCircuitBreaker redisCircuitBreaker = new RedisCircuitBreaker(CIRCUIT_BREAKER_ENABLED, CIRCUIT_FAILURE_THRESHOLD,
+                CIRCUIT_OPEN_MS);
+        cacheMetrics.monitor(redisCircuitBreaker);
+        return redisCircuitBreaker;
+    }
+
+    /*
+    Update and Evict write conditionally by version, fills loaded before the change are not written back
+     */
+    @Bean
+    public VersionClock versionClock() {
+        return new VersionClock(VERSIONED_WRITES_ENABLED);
+    }
+
+    @Bean
+    public CacheWriteQueue cacheWriteQueue(CacheKeyRouter cacheKeyRouter, CacheMetrics cacheMetrics) {
+        CacheWriteQueue cacheWriteQueue = new CacheWriteQueue(cacheKeyRouter, WRITE_QUEUE_CAPACITY,
+                WRITE_CONCURRENCY, WRITE_OVERFLOW_POLICY, WRITE_BATCH_ENABLED, WRITE_BATCH_SIZE, WRITE_BATCH_WINDOW_MICROS,
+                Duration.ofMillis(VERSION_TOMBSTONE_TTL_MS), cacheMetrics.getRedisWrite());
+        cacheMetrics.monitor(cacheWriteQueue);
+        return cacheWriteQueue;
+    }
+
+    @Bean
+    public CacheMethodMetadataRegistry cacheMethodMetadataRegistry(AspectUtils aspectUtils, ObjectMapper objectMapper,
+                                                                   CacheCodecs cacheCodecs, CacheMetrics cacheMetrics) {
+        return new CacheMethodMetadataRegistry(aspectUtils, objectMapper, cacheCodecs, cacheMetrics, DEFAULT_TTL_MS, TTL_JITTER,
+                READ_TIMEOUT_MS);
+    }
+
+    /*
+    Runs once all beans are created, so annotated methods, codecs, connections and hot keys are ready
+    before the application reports ready
+     */
     @Bean
-    public AspectUtils aspectUtils() {
-        return new AspectUtils();
+    public CacheWarmUp cacheWarmUp(ListableBeanFactory beanFactory, CacheMethodMetadataRegistry cacheMethodMetadataRegistry,
+                                   CacheKeyRouter cacheKeyRouter, ReactiveCache reactiveCache) {
+        return new CacheWarmUp(beanFactory, cacheMethodMetadataRegistry, cacheKeyRouter, reactiveCache,
+                WARMUP_ENABLED, WARMUP_HOT_KEYS_FILE, Duration.ofMillis(WARMUP_TIMEOUT_MS));
     }
 }
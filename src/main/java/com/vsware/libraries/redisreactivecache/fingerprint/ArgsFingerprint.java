@@ -0,0 +1,12 @@
+package com.vsware.libraries.redisreactivecache.fingerprint;
+
+/*
+Cache key suffix of useArgsHash methods, computed from the annotated method arguments.
+Engine is selected by name (spring.redis.args_hash), any ArgsFingerprint bean is picked up
+ */
+public interface ArgsFingerprint {
+
+    String getName();
+
+    String fingerprint(Object[] args);
+}
@@ -0,0 +1,22 @@
+package com.vsware.libraries.redisreactivecache.fingerprint;
+
+import java.util.Arrays;
+
+/*
+Default 32-bit Arrays.hashCode of arguments - same keys as written by previous versions.
+Relies on hashCode of every argument and collides easily on large key volumes, see Murmur3ArgsFingerprint
+ */
+public class HashCodeArgsFingerprint implements ArgsFingerprint {
+
+    public static final String NAME = "hashcode";
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public String fingerprint(Object[] args) {
+        return Integer.toString(Arrays.hashCode(args));
+    }
+}
@@ -0,0 +1,233 @@
+package com.vsware.libraries.redisreactivecache.fingerprint;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Array;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.temporal.TemporalAccessor;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/*
+128-bit MurmurHash3 of canonical encoding of arguments, written as 22 characters of URL safe Base64.
+Every value is type tagged and length prefixed: scalars, strings, collections, maps and arrays are streamed
+into the hasher directly, other objects as their Jackson serialization (so equal beans give equal fingerprint
+regardless of hashCode). Sets and maps are hashed order independently.
+
+Fingerprint of large immutable argument (long String, List.of/Set.of/Map.of of immutable values) is computed once
+per instance and kept in small identity keyed cache
+ */
+public class Murmur3ArgsFingerprint implements ArgsFingerprint {
+
+    public static final String NAME = "murmur3";
+
+    private static final int CACHED_STRING_LENGTH = 256;
+    private static final int CACHED_COLLECTION_SIZE = 16;
+    private static final String IMMUTABLE_COLLECTIONS_PREFIX = "java.util.ImmutableCollections$";
+
+    private static final byte NULL = 0;
+    private static final byte STRING = 1;
+    private static final byte INTEGRAL = 2;
+    private static final byte FLOATING = 3;
+    private static final byte BOOLEAN = 4;
+    private static final byte CHARACTER = 5;
+    private static final byte ENUM = 6;
+    private static final byte UUID_VALUE = 7;
+    private static final byte BIG_NUMBER = 8;
+    private static final byte TEMPORAL = 9;
+    private static final byte LIST = 10;
+    private static final byte SET = 11;
+    private static final byte MAP = 12;
+    private static final byte ARRAY = 13;
+    private static final byte BYTES = 14;
+    private static final byte OBJECT = 15;
+
+    private final ObjectMapper objectMapper;
+    private final Cache<Object, long[]> immutableArgs = Caffeine.newBuilder()
+            .weakKeys()
+            .maximumSize(10_000)
+            .build();
+
+    public Murmur3ArgsFingerprint(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper.copy()
+                .enable(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS)
+                .disable(SerializationFeature.FAIL_ON_EMPTY_BEANS);
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public String fingerprint(Object[] args) {
+        Murmur3Hasher hasher = new Murmur3Hasher();
+        Murmur3Hasher argHasher = new Murmur3Hasher();
+        hasher.putInt(args.length);
+        for (Object arg : args) {
+            long[] cached = isCacheCandidate(arg) ? immutableArgs.getIfPresent(arg) : null;
+            if (cached == null) {
+                boolean immutable = write(arg, argHasher.reset());
+                argHasher.finish();
+                cached = new long[]{argHasher.getH1(), argHasher.getH2()};
+                if (immutable && isCacheCandidate(arg))
+                    immutableArgs.put(arg, cached);
+            }
+            hasher.putLong(cached[0]);
+            hasher.putLong(cached[1]);
+        }
+        hasher.finish();
+        byte[] fingerprint = new byte[16];
+        for (int i = 0; i < 8; i++) {
+            fingerprint[i] = (byte) (hasher.getH1() >>> (i * 8));
+            fingerprint[i + 8] = (byte) (hasher.getH2() >>> (i * 8));
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(fingerprint);
+    }
+
+    private static boolean isCacheCandidate(Object arg) {
+        if (arg instanceof String)
+            return ((String) arg).length() >= CACHED_STRING_LENGTH;
+        if (arg instanceof Collection)
+            return ((Collection<?>) arg).size() >= CACHED_COLLECTION_SIZE && isImmutableCollection(arg);
+        if (arg instanceof Map)
+            return ((Map<?, ?>) arg).size() >= CACHED_COLLECTION_SIZE && isImmutableCollection(arg);
+        return false;
+    }
+
+    private static boolean isImmutableCollection(Object value) {
+        return value.getClass().getName().startsWith(IMMUTABLE_COLLECTIONS_PREFIX);
+    }
+
+    /*
+    Streams canonical encoding of value into hasher, returns true if the value is immutable
+     */
+    private boolean write(Object value, Murmur3Hasher hasher) {
+        if (value == null) {
+            hasher.putByte(NULL);
+        } else if (value instanceof String) {
+            hasher.putByte(STRING);
+            hasher.putString((String) value);
+        } else if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            hasher.putByte(INTEGRAL);
+            hasher.putLong(((Number) value).longValue());
+        } else if (value instanceof Double || value instanceof Float) {
+            hasher.putByte(FLOATING);
+            hasher.putLong(Double.doubleToLongBits(((Number) value).doubleValue()));
+        } else if (value instanceof Boolean) {
+            hasher.putByte(BOOLEAN);
+            hasher.putByte((Boolean) value ? 1 : 0);
+        } else if (value instanceof Character) {
+            hasher.putByte(CHARACTER);
+            hasher.putChar((Character) value);
+        } else if (value instanceof Enum) {
+            hasher.putByte(ENUM);
+            hasher.putString(((Enum<?>) value).getDeclaringClass().getName());
+            hasher.putString(((Enum<?>) value).name());
+        } else if (value instanceof UUID) {
+            hasher.putByte(UUID_VALUE);
+            hasher.putLong(((UUID) value).getMostSignificantBits());
+            hasher.putLong(((UUID) value).getLeastSignificantBits());
+        } else if (value instanceof BigDecimal || value instanceof BigInteger) {
+            hasher.putByte(BIG_NUMBER);
+            hasher.putString(value.toString());
+        } else if (value instanceof TemporalAccessor && value.getClass().getName().startsWith("java.time.")) {
+            hasher.putByte(TEMPORAL);
+            hasher.putString(value.getClass().getName());
+            hasher.putString(value.toString());
+        } else if (value instanceof List) {
+            hasher.putByte(LIST);
+            hasher.putInt(((List<?>) value).size());
+            boolean immutable = isImmutableCollection(value);
+            for (Object element : (List<?>) value) {
+                immutable &= write(element, hasher);
+            }
+            return immutable;
+        } else if (value instanceof Collection) {
+            hasher.putByte(SET);
+            return writeUnordered((Collection<?>) value, hasher) && isImmutableCollection(value);
+        } else if (value instanceof Map) {
+            hasher.putByte(MAP);
+            return writeUnordered(((Map<?, ?>) value).entrySet(), hasher) && isImmutableCollection(value);
+        } else if (value instanceof Map.Entry) {
+            boolean immutable = write(((Map.Entry<?, ?>) value).getKey(), hasher);
+            return write(((Map.Entry<?, ?>) value).getValue(), hasher) && immutable;
+        } else if (value instanceof byte[]) {
+            hasher.putByte(BYTES);
+            hasher.putInt(((byte[]) value).length);
+            hasher.putBytes((byte[]) value, 0, ((byte[]) value).length);
+            return false;
+        } else if (value.getClass().isArray()) {
+            int length = Array.getLength(value);
+            hasher.putByte(ARRAY);
+            hasher.putInt(length);
+            for (int i = 0; i < length; i++) {
+                write(Array.get(value, i), hasher);
+            }
+            return false;
+        } else {
+            hasher.putByte(OBJECT);
+            hasher.putString(value.getClass().getName());
+            writeObject(value, hasher);
+            return false;
+        }
+        return true;
+    }
+
+    /*
+    Element hashes are summed, so iteration order of equal sets and maps doesn't matter
+     */
+    private boolean writeUnordered(Collection<?> elements, Murmur3Hasher hasher) {
+        Murmur3Hasher elementHasher = new Murmur3Hasher();
+        boolean immutable = true;
+        long h1 = 0;
+        long h2 = 0;
+        for (Object element : elements) {
+            immutable &= write(element, elementHasher.reset());
+            elementHasher.finish();
+            h1 += elementHasher.getH1();
+            h2 += elementHasher.getH2();
+        }
+        hasher.putInt(elements.size());
+        hasher.putLong(h1);
+        hasher.putLong(h2);
+        return immutable;
+    }
+
+    private void writeObject(Object value, Murmur3Hasher hasher) {
+        try {
+            objectMapper.writeValue(new HasherOutputStream(hasher), value);
+        } catch (IOException e) {
+            //not serializable - falls back to its hashCode, as legacy fingerprint does
+            hasher.putInt(value.hashCode());
+        }
+    }
+
+    private static class HasherOutputStream extends OutputStream {
+
+        private final Murmur3Hasher hasher;
+
+        HasherOutputStream(Murmur3Hasher hasher) {
+            this.hasher = hasher;
+        }
+
+        @Override
+        public void write(int b) {
+            hasher.putByte(b);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) {
+            hasher.putBytes(bytes, offset, length);
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.vsware.libraries.redisreactivecache.fingerprint;
+
+/*
+Streaming MurmurHash3 x64 128-bit (seed 0) - input is fed value by value, no intermediate byte array or String is built.
+Not thread safe, reusable after reset()
+ */
+public final class Murmur3Hasher {
+
+    private static final long C1 = 0x87c37b91114253d5L;
+    private static final long C2 = 0x4cf5ad432745937fL;
+
+    private final byte[] block = new byte[16];
+    private int blockLength;
+    private long length;
+    private long h1;
+    private long h2;
+
+    public Murmur3Hasher reset() {
+        blockLength = 0;
+        length = 0;
+        h1 = 0;
+        h2 = 0;
+        return this;
+    }
+
+    public void putByte(int value) {
+        block[blockLength++] = (byte) value;
+        length++;
+        if (blockLength == block.length) {
+            mixBlock();
+            blockLength = 0;
+        }
+    }
+
+    public void putBytes(byte[] bytes, int offset, int count) {
+        for (int i = offset; i < offset + count; i++) {
+            putByte(bytes[i]);
+        }
+    }
+
+    public void putChar(char value) {
+        putByte(value);
+        putByte(value >>> 8);
+    }
+
+    public void putInt(int value) {
+        for (int shift = 0; shift < 32; shift += 8) {
+            putByte(value >>> shift);
+        }
+    }
+
+    public void putLong(long value) {
+        for (int shift = 0; shift < 64; shift += 8) {
+            putByte((int) (value >>> shift));
+        }
+    }
+
+    //length prefixed, so consecutive strings can't shift into each other
+    public void putString(String value) {
+        putInt(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            putChar(value.charAt(i));
+        }
+    }
+
+    /*
+    Completes the hash, result is available from getH1/getH2
+     */
+    public Murmur3Hasher finish() {
+        long k1 = 0;
+        long k2 = 0;
+        for (int i = blockLength - 1; i >= 8; i--) {
+            k2 = (k2 << 8) | (block[i] & 0xffL);
+        }
+        for (int i = Math.min(blockLength, 8) - 1; i >= 0; i--) {
+            k1 = (k1 << 8) | (block[i] & 0xffL);
+        }
+        if (blockLength > 8)
+            h2 ^= mixK2(k2);
+        if (blockLength > 0)
+            h1 ^= mixK1(k1);
+        blockLength = 0;
+
+        h1 ^= length;
+        h2 ^= length;
+        h1 += h2;
+        h2 += h1;
+        h1 = fmix64(h1);
+        h2 = fmix64(h2);
+        h1 += h2;
+        h2 += h1;
+        return this;
+    }
+
+    public long getH1() {
+        return h1;
+    }
+
+    public long getH2() {
+        return h2;
+    }
+
+    private void mixBlock() {
+        long k1 = 0;
+        long k2 = 0;
+        for (int i = 7; i >= 0; i--) {
+            k1 = (k1 << 8) | (block[i] & 0xffL);
+            k2 = (k2 << 8) | (block[i + 8] & 0xffL);
+        }
+        h1 ^= mixK1(k1);
+        h1 = Long.rotateLeft(h1, 27);
+        h1 += h2;
+        h1 = h1 * 5 + 0x52dce729;
+        h2 ^= mixK2(k2);
+        h2 = Long.rotateLeft(h2, 31);
+        h2 += h1;
+        h2 = h2 * 5 + 0x38495ab5;
+    }
+
+    private static long mixK1(long k1) {
+        k1 *= C1;
+        k1 = Long.rotateLeft(k1, 31);
+        return k1 * C2;
+    }
+
+    private static long mixK2(long k2) {
+        k2 *= C2;
+        k2 = Long.rotateLeft(k2, 33);
+        return k2 * C1;
+    }
+
+    private static long fmix64(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+}
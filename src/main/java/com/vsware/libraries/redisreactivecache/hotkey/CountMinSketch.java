@@ -0,0 +1,67 @@
+package com.vsware.libraries.redisreactivecache.hotkey;
+
+import com.vsware.libraries.redisreactivecache.fingerprint.Murmur3Hasher;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/*
+Count-min sketch - approximate access counts of unbounded number of keys in fixed memory (depth x width counters).
+Estimate never undercounts, overcounts by collisions only. Lock-free, counters are updated with atomic increments.
+Row positions are derived from single 128-bit Murmur3 hash (h1 + row * h2)
+ */
+public class CountMinSketch {
+
+    private final int depth;
+    private final int mask;
+    private final AtomicLongArray counters;
+
+    public CountMinSketch(int width, int depth) {
+        //width rounded up to power of two, so row position is a mask instead of modulo
+        int rowWidth = Integer.highestOneBit(Math.max(2, width) - 1) << 1;
+        this.depth = Math.max(1, depth);
+        this.mask = rowWidth - 1;
+        this.counters = new AtomicLongArray(this.depth * rowWidth);
+    }
+
+    /*
+    Counts single access of the key, returns its new estimate
+     */
+    public long add(String key) {
+        Murmur3Hasher hasher = hash(key);
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counters.incrementAndGet(index(hasher, row)));
+        }
+        return estimate;
+    }
+
+    public long estimate(String key) {
+        Murmur3Hasher hasher = hash(key);
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counters.get(index(hasher, row)));
+        }
+        return estimate;
+    }
+
+    /*
+    Aging - halves every counter, so keys which stopped being accessed fade out
+     */
+    public void halve() {
+        for (int i = 0; i < counters.length(); i++) {
+            long count = counters.get(i);
+            if (count > 0)
+                counters.addAndGet(i, -(count - (count >>> 1)));
+        }
+    }
+
+    private static Murmur3Hasher hash(String key) {
+        Murmur3Hasher hasher = new Murmur3Hasher();
+        hasher.putString(key);
+        return hasher.finish();
+    }
+
+    private int index(Murmur3Hasher hasher, int row) {
+        return row * (mask + 1) + (int) ((hasher.getH1() + row * hasher.getH2()) & mask);
+    }
+}
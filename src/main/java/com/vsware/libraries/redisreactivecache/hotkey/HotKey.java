@@ -0,0 +1,36 @@
+package com.vsware.libraries.redisreactivecache.hotkey;
+
+/*
+Frequently accessed cache key with its estimated access rate
+ */
+public class HotKey {
+
+    //Class.method as in metrics method tag - with key it forms a line of warm-up hot keys file
+    private final String method;
+    private final String key;
+    //accesses per second, averaged over recent windows
+    private final double rate;
+
+    public HotKey(String method, String key, double rate) {
+        this.method = method;
+        this.key = key;
+        this.rate = rate;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public double getRate() {
+        return rate;
+    }
+
+    @Override
+    public String toString() {
+        return method + " " + key + " " + String.format("%.1f/s", rate);
+    }
+}
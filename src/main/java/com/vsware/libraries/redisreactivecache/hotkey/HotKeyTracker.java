@@ -0,0 +1,204 @@
+package com.vsware.libraries.redisreactivecache.hotkey;
+
+import com.vsware.libraries.redisreactivecache.nearcache.GuardedLocalCache;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+Hot key detection - which evaluated cache keys dominate reads, a single such key can saturate its Redis node.
+
+Every sampleRate-th read (randomly sampled) is counted in CountMinSketch, keys whose estimate reaches the admission
+threshold become candidates counted exactly. Every window candidates' rates are computed (averaged with previous
+windows), top-K of them are published by getTopKeys() and the sketch is halved, so keys which cooled down fade out.
+Recording is lock-free, not sampled reads cost single random number.
+
+With promotion, reads of top keys with rate >= promoteMinRate are served from short-lived in-process copy -
+no coherence messages, the copy is at most promoteTtl stale (dropped locally when this instance changes the key)
+ */
+@Slf4j
+public class HotKeyTracker implements InitializingBean, DisposableBean {
+
+    //candidates below this rate (per second) are dropped
+    private static final double MIN_RATE = 0.1;
+    private static final Duration MIN_WINDOW = Duration.ofMillis(100);
+
+    private final boolean enabled;
+    private final int sampleRate;
+    private final int topK;
+    private final int maxCandidates;
+    private final Duration window;
+    private final boolean promote;
+    private final double promoteMinRate;
+    private final CountMinSketch sketch;
+    private final Map<String, Candidate> candidates = new ConcurrentHashMap<>();
+    //sketch estimate a key needs to become candidate once top-K is full, updated every window
+    private volatile long admissionThreshold;
+    private volatile List<HotKey> topKeys = Collections.emptyList();
+    private volatile Set<String> promotedKeys = Collections.emptySet();
+    //null without promotion
+    private final GuardedLocalCache promoted;
+    private final LongAdder sampledCount = new LongAdder();
+    private Disposable rotation;
+
+    public HotKeyTracker(boolean enabled, int sampleRate, int topK, Duration window, int sketchWidth, int sketchDepth,
+                         boolean promote, double promoteMinRate, Duration promoteTtl) {
+        this.enabled = enabled;
+        this.sampleRate = Math.max(1, sampleRate);
+        this.topK = Math.max(1, topK);
+        this.maxCandidates = this.topK * 4;
+        this.window = window.compareTo(MIN_WINDOW) < 0 ? MIN_WINDOW : window;
+        this.promote = enabled && promote;
+        this.promoteMinRate = promoteMinRate;
+        this.sketch = enabled ? new CountMinSketch(sketchWidth, sketchDepth) : null;
+        this.promoted = this.promote ? new GuardedLocalCache(this.topK, promoteTtl) : null;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean isPromoting() {
+        return promoted != null;
+    }
+
+    /*
+    Read of cache key by annotated method (Class.method)
+     */
+    public void record(String method, String key) {
+        if (!enabled || (sampleRate > 1 && ThreadLocalRandom.current().nextInt(sampleRate) != 0))
+            return;
+        sampledCount.increment();
+        long estimate = sketch.add(key);
+        Candidate candidate = candidates.get(key);
+        if (candidate == null) {
+            if (estimate < admissionThreshold || candidates.size() >= maxCandidates)
+                return;
+            candidate = candidates.computeIfAbsent(key, k -> new Candidate(method));
+        }
+        candidate.sampled.increment();
+    }
+
+    /*
+    Most frequently read keys of recent windows, by rate descending
+     */
+    public List<HotKey> getTopKeys() {
+        return topKeys;
+    }
+
+    //sampled reads counted in the sketch
+    public long getSampledCount() {
+        return sampledCount.sum();
+    }
+
+    public int getPromotedCount() {
+        return promotedKeys.size();
+    }
+
+    /*
+    Serves promoted hot key from in-process copy if present, otherwise subscribes to source and keeps its value
+     */
+    public <T> Mono<T> promoted(String key, Mono<T> source) {
+        if (promoted == null)
+            return source;
+        return Mono.defer(() -> {
+            if (!promotedKeys.contains(key))
+                return source;
+            return promoted.cached(key, source);
+        });
+    }
+
+    /*
+    Value of the key was changed by this instance
+     */
+    public void invalidate(String key) {
+        if (promoted == null)
+            return;
+        promoted.invalidate(key);
+    }
+
+    /*
+    Failed rotation keeps previous top keys, the next window rotates again
+     */
+    void onWindow() {
+        try {
+            rotate();
+        } catch (RuntimeException e) {
+            log.warn("Hot key detection window rotation failed", e);
+        }
+    }
+
+    void rotate() {
+        double windowSeconds = window.toMillis() / 1000.0;
+        List<Map.Entry<String, Candidate>> ranked = new ArrayList<>(candidates.size());
+        for (Map.Entry<String, Candidate> candidate : candidates.entrySet()) {
+            Candidate value = candidate.getValue();
+            double windowRate = value.sampled.sumThenReset() * (double) sampleRate / windowSeconds;
+            value.rate = value.rate == 0 ? windowRate : (value.rate + windowRate) / 2;
+            if (value.rate < MIN_RATE)
+                candidates.remove(candidate.getKey());
+            else
+                ranked.add(candidate);
+        }
+        ranked.sort(Comparator.comparingDouble((Map.Entry<String, Candidate> candidate) -> candidate.getValue().rate).reversed());
+        //least frequent candidates make room for new ones
+        for (int i = maxCandidates / 2; i < ranked.size(); i++) {
+            candidates.remove(ranked.get(i).getKey());
+        }
+        List<HotKey> top = new ArrayList<>(Math.min(topK, ranked.size()));
+        Set<String> promotable = new HashSet<>();
+        for (int i = 0; i < Math.min(topK, ranked.size()); i++) {
+            Map.Entry<String, Candidate> candidate = ranked.get(i);
+            top.add(new HotKey(candidate.getValue().method, candidate.getKey(), candidate.getValue().rate));
+            if (promote && candidate.getValue().rate >= promoteMinRate)
+                promotable.add(candidate.getKey());
+        }
+        //sampled reads per window of the least frequent top key, a new key must get close to it
+        admissionThreshold = top.size() < topK ? 0 :
+                (long) (top.get(top.size() - 1).getRate() * windowSeconds / sampleRate / 2);
+        topKeys = Collections.unmodifiableList(top);
+        promotedKeys = Collections.unmodifiableSet(promotable);
+        sketch.halve();
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (!enabled)
+            return;
+        rotation = Flux.interval(window, window)
+                .subscribe(tick -> onWindow(), e -> log.error("Hot key detection stopped", e));
+    }
+
+    @Override
+    public void destroy() {
+        if (rotation != null)
+            rotation.dispose();
+    }
+
+    private static class Candidate {
+
+        private final String method;
+        private final LongAdder sampled = new LongAdder();
+        //only accessed by rotation
+        private double rate;
+
+        Candidate(String method) {
+            this.method = method;
+        }
+    }
+}
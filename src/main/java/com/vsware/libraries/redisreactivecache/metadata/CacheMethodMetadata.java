@@ -0,0 +1,64 @@
+package com.vsware.libraries.redisreactivecache.metadata;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.vsware.libraries.redisreactivecache.codec.CacheCodec;
+import com.vsware.libraries.redisreactivecache.metrics.CacheMethodMeters;
+import com.vsware.libraries.redisreactivecache.util.CacheKeyExpression;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.List;
+
+/*
+Everything the cache needs to know about an annotated method or programmatic CacheSpec, resolved once on first
+invocation and reused for every following call (see CacheMethodMetadataRegistry)
+ */
+@Getter
+@Builder
+public class CacheMethodMetadata {
+
+    //null for CacheSpec
+    private final Method method;
+    //Class.method (spec name), as in metrics method tag
+    private final String methodName;
+    private final CacheOperation operation;
+    private final Annotation annotation;
+    private final String key;
+    private final boolean useArgsHash;
+    private final CacheCodec codec;
+    private final CacheTtl ttl;
+    private final boolean streaming;
+    private final boolean distributedLock;
+    private final boolean nearCache;
+    private final long refreshAfterMillis;
+    //Get only - expiry of cached empty result, null when negative caching is disabled
+    private final Duration negativeTtl;
+    //Get/GetAll only - null when cache read has no latency budget
+    private final Duration readTimeout;
+    private final ReturnKind returnKind;
+    private final String[] parameterNames;
+    private final CacheKeyExpression keyExpression;
+    //null without hashTag
+    private final CacheKeyExpression hashTagExpression;
+    //groups written key is registered in (Add/Get/Update), groups invalidated by Update/Evict
+    private final List<CacheKeyExpression> tagExpressions;
+    private final List<CacheKeyExpression> evictTagExpressions;
+    //normalized Flux storage only - prefix of entity keys and id of each element, null otherwise
+    private final String entityKey;
+    private final CacheKeyExpression entityIdExpression;
+    //GetAll only - index of ids collection parameter and id of returned element
+    private final int idsParameterIndex;
+    private final CacheKeyExpression resultIdExpression;
+    //type argument of Mono<T>/Flux<T>
+    private final JavaType valueType;
+    //type of the value stored in Redis: T for Mono<T>, List<T> for Flux<T>, T per id for GetAll, List<String> of ids in entityKey mode
+    private final JavaType cachedType;
+    private final CacheMethodMeters meters;
+
+    public boolean isNormalized() {
+        return entityIdExpression != null;
+    }
+}
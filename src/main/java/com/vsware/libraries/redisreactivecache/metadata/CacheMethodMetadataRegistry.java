@@ -0,0 +1,339 @@
+package com.vsware.libraries.redisreactivecache.metadata;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.type.TypeFactory;
+import com.vsware.libraries.redisreactivecache.annotation.RedisReactiveCacheAdd;
+import com.vsware.libraries.redisreactivecache.annotation.RedisReactiveCacheEvict;
+import com.vsware.libraries.redisreactivecache.annotation.RedisReactiveCacheGet;
+import com.vsware.libraries.redisreactivecache.annotation.RedisReactiveCacheGetAll;
+import com.vsware.libraries.redisreactivecache.annotation.RedisReactiveCacheUpdate;
+import com.vsware.libraries.redisreactivecache.cache.CacheSpec;
+import com.vsware.libraries.redisreactivecache.codec.CacheCodec;
+import com.vsware.libraries.redisreactivecache.codec.CacheCodecs;
+import com.vsware.libraries.redisreactivecache.metrics.CacheMetrics;
+import com.vsware.libraries.redisreactivecache.util.AspectUtils;
+import com.vsware.libraries.redisreactivecache.util.CacheKeyExpression;
+import org.springframework.core.DefaultParameterNameDiscoverer;
+import org.springframework.core.ParameterNameDiscoverer;
+import org.springframework.util.StringUtils;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/*
+Registry of resolved annotated methods, keyed by Method per cache operation.
+Reflection, annotation lookup, parameter names discovery, SpEL parsing and Jackson type resolution
+are done only once per method, so every following invocation costs a single map lookup.
+Specs of programmatic cache (see ReactiveCache) are resolved the same way, keyed by spec per operation and return kind
+ */
+public class CacheMethodMetadataRegistry {
+
+    private final AspectUtils aspectUtils;
+    private final ObjectMapper objectMapper;
+    private final CacheCodecs cacheCodecs;
+    private final CacheMetrics cacheMetrics;
+    private final long defaultTtlMillis;
+    private final double defaultTtlJitter;
+    private final long defaultReadTimeoutMillis;
+    private final ParameterNameDiscoverer parameterNameDiscoverer = new DefaultParameterNameDiscoverer();
+    private final Map<CacheOperation, Map<Method, CacheMethodMetadata>> registry = new EnumMap<>(CacheOperation.class);
+    private final Map<CacheOperation, Map<CacheSpec<?>, CacheMethodMetadata>> monoSpecs = new EnumMap<>(CacheOperation.class);
+    private final Map<CacheOperation, Map<CacheSpec<?>, CacheMethodMetadata>> fluxSpecs = new EnumMap<>(CacheOperation.class);
+
+    public CacheMethodMetadataRegistry(AspectUtils aspectUtils, ObjectMapper objectMapper, CacheCodecs cacheCodecs,
+                                       CacheMetrics cacheMetrics, long defaultTtlMillis, double defaultTtlJitter,
+                                       long defaultReadTimeoutMillis) {
+        this.aspectUtils = aspectUtils;
+        this.objectMapper = objectMapper;
+        this.cacheCodecs = cacheCodecs;
+        this.cacheMetrics = cacheMetrics;
+        this.defaultTtlMillis = defaultTtlMillis;
+        this.defaultTtlJitter = defaultTtlJitter;
+        this.defaultReadTimeoutMillis = defaultReadTimeoutMillis;
+        for (CacheOperation operation : CacheOperation.values()) {
+            registry.put(operation, new ConcurrentHashMap<>());
+            monoSpecs.put(operation, new ConcurrentHashMap<>());
+            fluxSpecs.put(operation, new ConcurrentHashMap<>());
+        }
+    }
+
+    public CacheMethodMetadata get(CacheOperation operation, Method method) {
+        Map<Method, CacheMethodMetadata> operationRegistry = registry.get(operation);
+        //plain get first - computeIfAbsent may lock the bin even when the value is present
+        CacheMethodMetadata metadata = operationRegistry.get(method);
+        if (metadata == null)
+            metadata = operationRegistry.computeIfAbsent(method, m -> resolve(operation, m));
+        return metadata;
+    }
+
+    /*
+    Whether metadata of the method is resolved already (by its first call or startup warm-up)
+     */
+    public boolean isResolved(CacheOperation operation, Method method) {
+        return registry.get(operation).containsKey(method);
+    }
+
+    public CacheMethodMetadata get(CacheOperation operation, ReturnKind returnKind, CacheSpec<?> spec) {
+        Map<CacheSpec<?>, CacheMethodMetadata> operationRegistry =
+                (returnKind == ReturnKind.FLUX ? fluxSpecs : monoSpecs).get(operation);
+        CacheMethodMetadata metadata = operationRegistry.get(spec);
+        if (metadata == null)
+            metadata = operationRegistry.computeIfAbsent(spec, s -> resolve(operation, returnKind, s));
+        return metadata;
+    }
+
+    private CacheMethodMetadata resolve(CacheOperation operation, Method method) {
+        Annotation annotation = method.getAnnotation(operation.getAnnotationType());
+        if (annotation == null)
+            throw new IllegalStateException("Method " + method + " is not annotated with @" +
+                    operation.getAnnotationType().getSimpleName());
+
+        String key;
+        boolean useArgsHash;
+        String hashTag;
+        CacheCodec codec = cacheCodecs.getDefault();
+        CacheTtl ttl = CacheTtl.NONE;
+        boolean streaming = false;
+        boolean distributedLock = false;
+        boolean nearCache = false;
+        long refreshAfterMillis = 0;
+        long negativeTtlMillis = 0;
+        long readTimeoutMillis = 0;
+        String[] tags = new String[0];
+        String[] evictTags = new String[0];
+        String entityKey = "";
+        String entityId = "";
+        switch (operation) {
+            case ADD:
+                key = ((RedisReactiveCacheAdd) annotation).key();
+                hashTag = ((RedisReactiveCacheAdd) annotation).hashTag();
+                useArgsHash = ((RedisReactiveCacheAdd) annotation).useArgsHash();
+                codec = cacheCodecs.get(((RedisReactiveCacheAdd) annotation).codec());
+                ttl = resolveTtl(((RedisReactiveCacheAdd) annotation).ttl(), ((RedisReactiveCacheAdd) annotation).ttlUnit(),
+                        ((RedisReactiveCacheAdd) annotation).ttlJitter());
+                streaming = ((RedisReactiveCacheAdd) annotation).streaming();
+                tags = ((RedisReactiveCacheAdd) annotation).tags();
+                entityKey = ((RedisReactiveCacheAdd) annotation).entityKey();
+                entityId = ((RedisReactiveCacheAdd) annotation).entityId();
+                break;
+            case GET:
+                key = ((RedisReactiveCacheGet) annotation).key();
+                hashTag = ((RedisReactiveCacheGet) annotation).hashTag();
+                useArgsHash = ((RedisReactiveCacheGet) annotation).useArgsHash();
+                codec = cacheCodecs.get(((RedisReactiveCacheGet) annotation).codec());
+                ttl = resolveTtl(((RedisReactiveCacheGet) annotation).ttl(), ((RedisReactiveCacheGet) annotation).ttlUnit(),
+                        ((RedisReactiveCacheGet) annotation).ttlJitter());
+                streaming = ((RedisReactiveCacheGet) annotation).streaming();
+                distributedLock = ((RedisReactiveCacheGet) annotation).distributedLock();
+                nearCache = ((RedisReactiveCacheGet) annotation).nearCache();
+                tags = ((RedisReactiveCacheGet) annotation).tags();
+                entityKey = ((RedisReactiveCacheGet) annotation).entityKey();
+                entityId = ((RedisReactiveCacheGet) annotation).entityId();
+                refreshAfterMillis = ((RedisReactiveCacheGet) annotation).ttlUnit()
+                        .toMillis(((RedisReactiveCacheGet) annotation).refreshAfter());
+                readTimeoutMillis = resolveReadTimeout(((RedisReactiveCacheGet) annotation).readTimeoutMillis());
+                negativeTtlMillis = ((RedisReactiveCacheGet) annotation).ttlUnit()
+                        .toMillis(((RedisReactiveCacheGet) annotation).negativeTtl());
+                break;
+            case GET_ALL:
+                key = ((RedisReactiveCacheGetAll) annotation).key();
+                hashTag = ((RedisReactiveCacheGetAll) annotation).hashTag();
+                useArgsHash = false;
+                codec = cacheCodecs.get(((RedisReactiveCacheGetAll) annotation).codec());
+                ttl = resolveTtl(((RedisReactiveCacheGetAll) annotation).ttl(), ((RedisReactiveCacheGetAll) annotation).ttlUnit(),
+                        ((RedisReactiveCacheGetAll) annotation).ttlJitter());
+                readTimeoutMillis = resolveReadTimeout(((RedisReactiveCacheGetAll) annotation).readTimeoutMillis());
+                break;
+            case UPDATE:
+                key = ((RedisReactiveCacheUpdate) annotation).key();
+                hashTag = ((RedisReactiveCacheUpdate) annotation).hashTag();
+                useArgsHash = ((RedisReactiveCacheUpdate) annotation).useArgsHash();
+                codec = cacheCodecs.get(((RedisReactiveCacheUpdate) annotation).codec());
+                ttl = resolveTtl(((RedisReactiveCacheUpdate) annotation).ttl(), ((RedisReactiveCacheUpdate) annotation).ttlUnit(),
+                        ((RedisReactiveCacheUpdate) annotation).ttlJitter());
+                streaming = ((RedisReactiveCacheUpdate) annotation).streaming();
+                tags = ((RedisReactiveCacheUpdate) annotation).tags();
+                entityKey = ((RedisReactiveCacheUpdate) annotation).entityKey();
+                entityId = ((RedisReactiveCacheUpdate) annotation).entityId();
+                evictTags = ((RedisReactiveCacheUpdate) annotation).evictTags();
+                break;
+            default:
+                key = ((RedisReactiveCacheEvict) annotation).key();
+                hashTag = ((RedisReactiveCacheEvict) annotation).hashTag();
+                useArgsHash = ((RedisReactiveCacheEvict) annotation).useArgsHash();
+                evictTags = ((RedisReactiveCacheEvict) annotation).evictTags();
+        }
+
+        checkRefreshAfter("Annotated method " + method, refreshAfterMillis, ttl);
+        ReturnKind returnKind = ReturnKind.of(method.getReturnType());
+        JavaType valueType = resolveValueType(method);
+        boolean normalized = StringUtils.hasText(entityKey) || StringUtils.hasText(entityId);
+        if (normalized && (!StringUtils.hasText(entityKey) || !StringUtils.hasText(entityId)))
+            throw new RuntimeException("RedisReactiveCache annotation entityKey and entityId must be set together");
+        if (normalized && (returnKind != ReturnKind.FLUX || streaming))
+            throw new IllegalStateException("RedisReactiveCache: Annotated method " + method +
+                    " must return Flux<?> and must not be streaming to use entityKey");
+        JavaType cachedType = valueType;
+        if (returnKind == ReturnKind.FLUX && operation != CacheOperation.GET_ALL)
+            cachedType = normalized ? objectMapper.getTypeFactory().constructCollectionType(List.class, String.class) :
+                    objectMapper.getTypeFactory().constructCollectionType(List.class, valueType);
+        String[] parameterNames = parameterNameDiscoverer.getParameterNames(method);
+        if (parameterNames == null)
+            parameterNames = new String[0];
+        CacheKeyExpression entityIdExpression = normalized ? aspectUtils.parseKey(new Class<?>[]{valueType.getRawClass()},
+                entityId, new String[]{"result"}) : null;
+        int idsParameterIndex = -1;
+        CacheKeyExpression resultIdExpression = null;
+        if (operation == CacheOperation.GET_ALL) {
+            if (returnKind != ReturnKind.FLUX)
+                throw new IllegalStateException("RedisReactiveCacheGetAll: Annotated method " + method + " must return Flux<?>");
+            if (!StringUtils.hasText(((RedisReactiveCacheGetAll) annotation).resultId()))
+                throw new RuntimeException("RedisReactiveCacheGetAll annotation missing resultId");
+            idsParameterIndex = resolveIdsParameterIndex(method, ((RedisReactiveCacheGetAll) annotation).ids(), parameterNames);
+            resultIdExpression = aspectUtils.parseKey(new Class<?>[]{valueType.getRawClass()},
+                    ((RedisReactiveCacheGetAll) annotation).resultId(), new String[]{"result"});
+        }
+
+        return CacheMethodMetadata.builder()
+                .method(method)
+                .methodName(method.getDeclaringClass().getSimpleName() + "." + method.getName())
+                .operation(operation)
+                .annotation(annotation)
+                .key(key)
+                .useArgsHash(useArgsHash)
+                .codec(codec)
+                .ttl(ttl)
+                .streaming(streaming && returnKind == ReturnKind.FLUX)
+                .distributedLock(distributedLock)
+                .nearCache(nearCache)
+                .refreshAfterMillis(refreshAfterMillis)
+                .readTimeout(readTimeoutMillis > 0 ? Duration.ofMillis(readTimeoutMillis) : null)
+                .negativeTtl(negativeTtlMillis > 0 && !(streaming && returnKind == ReturnKind.FLUX) ?
+                        Duration.ofMillis(negativeTtlMillis) : null)
+                .returnKind(returnKind)
+                .parameterNames(parameterNames)
+                .keyExpression(aspectUtils.parseKey(method, key, parameterNames))
+                .hashTagExpression(StringUtils.hasText(hashTag) ? aspectUtils.parseKey(method, hashTag, parameterNames) : null)
+                .tagExpressions(parseTags(method, tags, parameterNames))
+                .evictTagExpressions(parseTags(method, evictTags, parameterNames))
+                .entityKey(normalized ? entityKey : null)
+                .entityIdExpression(entityIdExpression)
+                .idsParameterIndex(idsParameterIndex)
+                .resultIdExpression(resultIdExpression)
+                .valueType(valueType)
+                .cachedType(cachedType)
+                .meters(cacheMetrics.forMethod(method, operation, key))
+                .build();
+    }
+
+    /*
+    Spec has no method - keys are evaluated by the caller, tags and entityKey storage are not available
+     */
+    @SuppressWarnings("unchecked")
+    private CacheMethodMetadata resolve(CacheOperation operation, ReturnKind returnKind, CacheSpec<?> spec) {
+        if (!StringUtils.hasText(spec.getName()) || spec.getType() == null)
+            throw new IllegalArgumentException("RedisReactiveCache CacheSpec must have name and type");
+        Function<Object, ?> resultId = (Function<Object, ?>) spec.getResultId();
+        if (operation == CacheOperation.GET_ALL && resultId == null)
+            throw new IllegalStateException("RedisReactiveCache CacheSpec " + spec.getName() + " missing resultId");
+        JavaType valueType = objectMapper.getTypeFactory().constructType(spec.getType());
+        JavaType cachedType = returnKind == ReturnKind.FLUX && operation != CacheOperation.GET_ALL ?
+                objectMapper.getTypeFactory().constructCollectionType(List.class, valueType) : valueType;
+        boolean read = operation == CacheOperation.GET || operation == CacheOperation.GET_ALL;
+        long readTimeoutMillis = !read ? 0 :
+                resolveReadTimeout(spec.getReadTimeout() != null ? spec.getReadTimeout().toMillis() : -1);
+        CacheTtl ttl = resolveTtl(spec.getTtl() != null ? spec.getTtl().toMillis() : -1, TimeUnit.MILLISECONDS,
+                spec.getTtlJitter());
+        long refreshAfterMillis = operation == CacheOperation.GET && spec.getRefreshAfter() != null ?
+                spec.getRefreshAfter().toMillis() : 0;
+        checkRefreshAfter("CacheSpec " + spec.getName(), refreshAfterMillis, ttl);
+        return CacheMethodMetadata.builder()
+                .methodName(spec.getName())
+                .operation(operation)
+                .key(spec.getName())
+                .codec(cacheCodecs.get(spec.getCodec()))
+                .ttl(ttl)
+                .distributedLock(operation == CacheOperation.GET && spec.isDistributedLock())
+                .nearCache(operation == CacheOperation.GET && spec.isNearCache())
+                .refreshAfterMillis(refreshAfterMillis)
+                .readTimeout(readTimeoutMillis > 0 ? Duration.ofMillis(readTimeoutMillis) : null)
+                .negativeTtl(operation == CacheOperation.GET && spec.getNegativeTtl() != null &&
+                        !spec.getNegativeTtl().isZero() ? spec.getNegativeTtl() : null)
+                .returnKind(returnKind)
+                .parameterNames(new String[0])
+                .tagExpressions(Collections.emptyList())
+                .evictTagExpressions(Collections.emptyList())
+                .idsParameterIndex(-1)
+                .resultIdExpression(resultId != null ? args -> {
+                    Object id = resultId.apply(args[0]);
+                    return id != null ? id.toString() : null;
+                } : null)
+                .valueType(valueType)
+                .cachedType(cachedType)
+                .meters(cacheMetrics.forCache(spec.getName(), operation))
+                .build();
+    }
+
+    /*
+    "#param" names ids parameter, empty ids - first Collection parameter
+     */
+    private int resolveIdsParameterIndex(Method method, String ids, String[] parameterNames) {
+        Class<?>[] parameterTypes = method.getParameterTypes();
+        String name = ids.trim().startsWith("#") ? ids.trim().substring(1) : ids.trim();
+        for (int i = 0; i < parameterTypes.length; i++) {
+            if (Collection.class.isAssignableFrom(parameterTypes[i]) &&
+                    (name.isEmpty() || (i < parameterNames.length && parameterNames[i].equals(name))))
+                return i;
+        }
+        throw new IllegalStateException("RedisReactiveCacheGetAll: Annotated method " + method +
+                " has no Collection parameter " + (name.isEmpty() ? "with ids" : "'" + name + "'"));
+    }
+
+    private List<CacheKeyExpression> parseTags(Method method, String[] tags, String[] parameterNames) {
+        if (tags.length == 0)
+            return Collections.emptyList();
+        List<CacheKeyExpression> tagExpressions = new ArrayList<>(tags.length);
+        for (String tag : tags) {
+            tagExpressions.add(aspectUtils.parseKey(method, tag, parameterNames));
+        }
+        return tagExpressions;
+    }
+
+    private CacheTtl resolveTtl(long ttl, TimeUnit ttlUnit, double ttlJitter) {
+        long ttlMillis = ttl < 0 ? defaultTtlMillis : ttlUnit.toMillis(ttl);
+        return CacheTtl.of(ttlMillis, ttlJitter < 0 ? defaultTtlJitter : ttlJitter);
+    }
+
+    /*
+    Refreshed value is rewritten with ttl - without hard expiry beyond the soft one a key nobody reads stays forever
+    and refresh-ahead has no window before the key expires
+     */
+    private static void checkRefreshAfter(String owner, long refreshAfterMillis, CacheTtl ttl) {
+        if (refreshAfterMillis > 0 && ttl.getTtlMillis() <= refreshAfterMillis)
+            throw new IllegalStateException("RedisReactiveCache: " + owner + " refreshAfter (" + refreshAfterMillis +
+                    " ms) requires ttl greater than refreshAfter, ttl is " + ttl.getTtlMillis() + " ms");
+    }
+
+    private long resolveReadTimeout(long readTimeoutMillis) {
+        return readTimeoutMillis < 0 ? defaultReadTimeoutMillis : readTimeoutMillis;
+    }
+
+    private JavaType resolveValueType(Method method) {
+        TypeFactory typeFactory = objectMapper.getTypeFactory();
+        if (method.getGenericReturnType() instanceof ParameterizedType)
+            return typeFactory.constructType(aspectUtils.getMethodActualReturnType(method));
+        return typeFactory.constructType(Object.class);
+    }
+}
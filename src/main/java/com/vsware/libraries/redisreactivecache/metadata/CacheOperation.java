@@ -0,0 +1,27 @@
+package com.vsware.libraries.redisreactivecache.metadata;
+
+import com.vsware.libraries.redisreactivecache.annotation.RedisReactiveCacheAdd;
+import com.vsware.libraries.redisreactivecache.annotation.RedisReactiveCacheEvict;
+import com.vsware.libraries.redisreactivecache.annotation.RedisReactiveCacheGet;
+import com.vsware.libraries.redisreactivecache.annotation.RedisReactiveCacheGetAll;
+import com.vsware.libraries.redisreactivecache.annotation.RedisReactiveCacheUpdate;
+
+import java.lang.annotation.Annotation;
+
+public enum CacheOperation {
+    ADD(RedisReactiveCacheAdd.class),
+    GET(RedisReactiveCacheGet.class),
+    GET_ALL(RedisReactiveCacheGetAll.class),
+    UPDATE(RedisReactiveCacheUpdate.class),
+    EVICT(RedisReactiveCacheEvict.class);
+
+    private final Class<? extends Annotation> annotationType;
+
+    CacheOperation(Class<? extends Annotation> annotationType) {
+        this.annotationType = annotationType;
+    }
+
+    public Class<? extends Annotation> getAnnotationType() {
+        return annotationType;
+    }
+}
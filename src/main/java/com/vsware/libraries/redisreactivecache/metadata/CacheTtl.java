@@ -0,0 +1,47 @@
+package com.vsware.libraries.redisreactivecache.metadata;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/*
+Expiry of cache entries written by annotated method.
+Jitter is a fraction of ttl (0.1 - up to +10%) randomly added to every write,
+so the keys written together don't expire together
+ */
+public class CacheTtl {
+
+    public static final CacheTtl NONE = new CacheTtl(0, 0);
+
+    private final long ttlMillis;
+    private final long maxJitterMillis;
+
+    private CacheTtl(long ttlMillis, long maxJitterMillis) {
+        this.ttlMillis = ttlMillis;
+        this.maxJitterMillis = maxJitterMillis;
+    }
+
+    public static CacheTtl of(long ttlMillis, double jitter) {
+        if (ttlMillis <= 0)
+            return NONE;
+        return new CacheTtl(ttlMillis, jitter > 0 ? (long) (ttlMillis * jitter) : 0);
+    }
+
+    public boolean isExpiring() {
+        return ttlMillis > 0;
+    }
+
+    public long getTtlMillis() {
+        return ttlMillis;
+    }
+
+    /*
+    Expiry for next write, null if entries don't expire
+     */
+    public Duration next() {
+        if (ttlMillis <= 0)
+            return null;
+        if (maxJitterMillis <= 0)
+            return Duration.ofMillis(ttlMillis);
+        return Duration.ofMillis(ttlMillis + ThreadLocalRandom.current().nextLong(maxJitterMillis + 1));
+    }
+}
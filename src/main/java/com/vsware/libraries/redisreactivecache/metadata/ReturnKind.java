@@ -0,0 +1,18 @@
+package com.vsware.libraries.redisreactivecache.metadata;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public enum ReturnKind {
+    MONO,
+    FLUX,
+    UNSUPPORTED;
+
+    public static ReturnKind of(Class<?> returnType) {
+        if (returnType.isAssignableFrom(Mono.class))
+            return MONO;
+        else if (returnType.isAssignableFrom(Flux.class))
+            return FLUX;
+        return UNSUPPORTED;
+    }
+}
@@ -0,0 +1,77 @@
+package com.vsware.libraries.redisreactivecache.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+Meters of single annotated method, created once with the method metadata so recording costs no registry lookup
+ */
+public class CacheMethodMeters {
+
+    public enum ErrorStage {
+        REDIS_READ, REDIS_TIMEOUT, DECODE, ENCODE, LOAD
+    }
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter bypasses;
+    private final Counter[] errors;
+    private final Timer redisRead;
+    private final Timer load;
+    private final Timer decode;
+    private final Timer encode;
+    private final DistributionSummary payloadRead;
+    private final DistributionSummary payloadWritten;
+
+    CacheMethodMeters(Counter hits, Counter misses, Counter bypasses, Counter[] errors, Timer redisRead, Timer load, Timer decode, Timer encode,
+                      DistributionSummary payloadRead, DistributionSummary payloadWritten) {
+        this.hits = hits;
+        this.misses = misses;
+        this.bypasses = bypasses;
+        this.errors = errors;
+        this.redisRead = redisRead;
+        this.load = load;
+        this.decode = decode;
+        this.encode = encode;
+        this.payloadRead = payloadRead;
+        this.payloadWritten = payloadWritten;
+    }
+
+    public void hit(int count) {
+        hits.increment(count);
+    }
+
+    public void miss(int count) {
+        misses.increment(count);
+    }
+
+    //Redis not read - circuit breaker open
+    public void bypass(int count) {
+        bypasses.increment(count);
+    }
+
+    public void error(ErrorStage stage) {
+        errors[stage.ordinal()].increment();
+    }
+
+    public void redisRead(long startNanos) {
+        redisRead.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void load(long startNanos) {
+        load.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void decoded(long startNanos, int payloadSize) {
+        decode.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        payloadRead.record(payloadSize);
+    }
+
+    public void encoded(long startNanos, int payloadSize) {
+        encode.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        payloadWritten.record(payloadSize);
+    }
+}
@@ -0,0 +1,145 @@
+package com.vsware.libraries.redisreactivecache.metrics;
+
+import com.vsware.libraries.redisreactivecache.circuit.RedisCircuitBreaker;
+import com.vsware.libraries.redisreactivecache.compression.CompressionStats;
+import com.vsware.libraries.redisreactivecache.hotkey.HotKey;
+import com.vsware.libraries.redisreactivecache.hotkey.HotKeyTracker;
+import com.vsware.libraries.redisreactivecache.metadata.CacheOperation;
+import com.vsware.libraries.redisreactivecache.write.CacheWriteQueue;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/*
+Micrometer meters of the library, names start with configurable prefix (spring.redis.metrics_prefix).
+Method meters are tagged with annotated method (Class.method), cache (annotation key as written - not evaluated,
+so number of tag values stays bounded) and operation. Programmatic cache is tagged with spec name as both method and cache.
+Registered in application MeterRegistry (exposed by Actuator when present), otherwise in global registry
+ */
+public class CacheMetrics {
+
+    private final MeterRegistry registry;
+    private final String prefix;
+    private final Timer redisWrite;
+
+    public CacheMetrics(MeterRegistry registry, String prefix) {
+        this.registry = registry;
+        this.prefix = prefix;
+        this.redisWrite = Timer.builder(prefix + ".redis.write")
+                .description("Latency of background cache write command or batch")
+                .register(registry);
+    }
+
+    public CacheMethodMeters forMethod(Method method, CacheOperation operation, String key) {
+        return forMethod(method.getDeclaringClass().getSimpleName() + "." + method.getName(), operation, key);
+    }
+
+    public CacheMethodMeters forCache(String name, CacheOperation operation) {
+        return forMethod(name, operation, name);
+    }
+
+    private CacheMethodMeters forMethod(String methodName, CacheOperation operation, String key) {
+        Tags tags = Tags.of("method", methodName, "cache", key, "operation", operation.name().toLowerCase(Locale.ROOT));
+        Counter[] errors = new Counter[CacheMethodMeters.ErrorStage.values().length];
+        for (CacheMethodMeters.ErrorStage stage : CacheMethodMeters.ErrorStage.values()) {
+            errors[stage.ordinal()] = Counter.builder(prefix + ".errors")
+                    .tags(tags).tag("stage", stage.name().toLowerCase(Locale.ROOT))
+                    .register(registry);
+        }
+        return new CacheMethodMeters(
+                Counter.builder(prefix + ".gets").tags(tags).tag("result", "hit").register(registry),
+                Counter.builder(prefix + ".gets").tags(tags).tag("result", "miss").register(registry),
+                Counter.builder(prefix + ".bypassed").description("Cache reads skipped while circuit breaker was open")
+                        .tags(tags).register(registry),
+                errors,
+                Timer.builder(prefix + ".redis.read").description("Latency of Redis cache read").tags(tags).register(registry),
+                Timer.builder(prefix + ".load").description("Latency of annotated method or loader").tags(tags).register(registry),
+                Timer.builder(prefix + ".decode").tags(tags).register(registry),
+                Timer.builder(prefix + ".encode").tags(tags).register(registry),
+                DistributionSummary.builder(prefix + ".payload").baseUnit("bytes").tags(tags).tag("direction", "read")
+                        .register(registry),
+                DistributionSummary.builder(prefix + ".payload").baseUnit("bytes").tags(tags).tag("direction", "write")
+                        .register(registry));
+    }
+
+    public Timer getRedisWrite() {
+        return redisWrite;
+    }
+
+    public void monitor(CacheWriteQueue cacheWriteQueue) {
+        Gauge.builder(prefix + ".write.queue.depth", cacheWriteQueue, CacheWriteQueue::getDepth)
+                .description("Cache writes waiting to be sent to Redis")
+                .register(registry);
+        Gauge.builder(prefix + ".write.queue.in.flight", cacheWriteQueue, CacheWriteQueue::getInFlight)
+                .description("Cache write commands sent to Redis and not yet replied")
+                .register(registry);
+        FunctionCounter.builder(prefix + ".write.dropped", cacheWriteQueue, CacheWriteQueue::getDroppedCount)
+                .description("Cache writes dropped because the write queue was full")
+                .register(registry);
+        FunctionCounter.builder(prefix + ".write.skipped", cacheWriteQueue, CacheWriteQueue::getSkippedCount)
+                .description("Responses not cached because the write queue was full")
+                .register(registry);
+    }
+
+    public void monitor(RedisCircuitBreaker circuitBreaker) {
+        Gauge.builder(prefix + ".circuit.open", circuitBreaker,
+                        breaker -> breaker.getState() == RedisCircuitBreaker.State.CLOSED ? 0 : 1)
+                .description("1 while Redis is bypassed by circuit breaker")
+                .register(registry);
+        FunctionCounter.builder(prefix + ".circuit.opened", circuitBreaker, RedisCircuitBreaker::getOpenedCount)
+                .description("Times circuit breaker opened")
+                .register(registry);
+        FunctionCounter.builder(prefix + ".circuit.rejected", circuitBreaker, RedisCircuitBreaker::getRejectedCount)
+                .description("Redis reads skipped while circuit breaker was open")
+                .register(registry);
+    }
+
+    public void monitor(CompressionStats compressionStats) {
+        Gauge.builder(prefix + ".compression.ratio", compressionStats, CompressionStats::getRatio)
+                .description("Compressed size / original size of compressed values")
+                .register(registry);
+        FunctionCounter.builder(prefix + ".compression.skipped", compressionStats, CompressionStats::getSkippedCount)
+                .description("Values above threshold stored uncompressed as they didn't get smaller")
+                .register(registry);
+        FunctionTimer.builder(prefix + ".compression.compress", compressionStats,
+                        stats -> stats.getCompressedCount() + stats.getSkippedCount(),
+                        CompressionStats::getCompressTimeMillis, TimeUnit.MILLISECONDS)
+                .register(registry);
+        FunctionTimer.builder(prefix + ".compression.decompress", compressionStats,
+                        CompressionStats::getDecompressedCount,
+                        CompressionStats::getDecompressTimeMillis, TimeUnit.MILLISECONDS)
+                .register(registry);
+    }
+
+    /*
+    Rate of every top-K rank instead of rate per key - keys are unbounded tag values, they're available from getTopKeys()
+     */
+    public void monitor(HotKeyTracker hotKeyTracker, int topK) {
+        for (int rank = 1; rank <= topK; rank++) {
+            int index = rank - 1;
+            Gauge.builder(prefix + ".hotkeys.rate", hotKeyTracker, tracker -> {
+                        List<HotKey> topKeys = tracker.getTopKeys();
+                        return index < topKeys.size() ? topKeys.get(index).getRate() : 0;
+                    })
+                    .description("Reads per second of hot key at the rank")
+                    .tag("rank", String.valueOf(rank))
+                    .register(registry);
+        }
+        Gauge.builder(prefix + ".hotkeys.promoted", hotKeyTracker, HotKeyTracker::getPromotedCount)
+                .description("Hot keys served from in-process copy")
+                .register(registry);
+        FunctionCounter.builder(prefix + ".hotkeys.sampled", hotKeyTracker, HotKeyTracker::getSampledCount)
+                .description("Cache reads counted by hot key detection")
+                .register(registry);
+    }
+}
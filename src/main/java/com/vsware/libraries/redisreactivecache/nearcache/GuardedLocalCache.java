@@ -0,0 +1,96 @@
+package com.vsware.libraries.redisreactivecache.nearcache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+Bounded in-process copies of values, loaded value is stored only if its key was not invalidated while loading
+(the loaded value may be stale already). Invalidations are counted per key being loaded, so they don't hold back
+loads of other keys - counters exist only while the key has loads in flight.
+
+Check and store run in the key's counter compute, invalidation increments the counter before it drops the copy,
+so either the store sees the invalidation or the invalidation drops the stored copy
+ */
+public class GuardedLocalCache {
+
+    private final Cache<String, Object> cache;
+    private final Map<String, Loads> loads = new ConcurrentHashMap<>();
+    //incremented by invalidateAll, which invalidates every key being loaded
+    private final AtomicLong clears = new AtomicLong();
+
+    public GuardedLocalCache(long maxSize, Duration ttl) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    public Object get(String key) {
+        return cache.getIfPresent(key);
+    }
+
+    /*
+    Serves value if present, otherwise subscribes to source and stores its value unless the key was invalidated meanwhile
+     */
+    public <T> Mono<T> cached(String key, Mono<T> source) {
+        return Mono.defer(() -> {
+            @SuppressWarnings("unchecked")
+            T value = (T) cache.getIfPresent(key);
+            if (value != null)
+                return Mono.just(value);
+            long clearsBeforeLoad = clears.get();
+            //read in the compute - an invalidation right after it must not be taken as seen
+            long[] invalidationsBeforeLoad = new long[1];
+            loads.compute(key, (k, keyLoads) -> {
+                Loads started = keyLoads == null ? new Loads() : keyLoads;
+                started.inFlight++;
+                invalidationsBeforeLoad[0] = started.invalidations;
+                return started;
+            });
+            return source
+                    .doOnNext(loaded -> store(key, loaded, invalidationsBeforeLoad[0], clearsBeforeLoad))
+                    .doFinally(signal -> loads.computeIfPresent(key, (k, keyLoads) -> --keyLoads.inFlight == 0 ? null : keyLoads));
+        });
+    }
+
+    public void invalidate(String key) {
+        loads.computeIfPresent(key, (k, keyLoads) -> {
+            keyLoads.invalidations++;
+            return keyLoads;
+        });
+        cache.invalidate(key);
+    }
+
+    public void invalidateAll() {
+        clears.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    private void store(String key, Object loaded, long invalidationsBeforeLoad, long clearsBeforeLoad) {
+        loads.computeIfPresent(key, (k, keyLoads) -> {
+            if (keyLoads.invalidations == invalidationsBeforeLoad && clears.get() == clearsBeforeLoad)
+                cache.put(key, loaded);
+            return keyLoads;
+        });
+        //invalidateAll doesn't go through the counters - it may have run between the check and the put
+        if (clears.get() != clearsBeforeLoad)
+            cache.invalidate(key);
+    }
+
+    //only accessed in compute of the key
+    private static class Loads {
+
+        private int inFlight;
+        private long invalidations;
+    }
+}
@@ -0,0 +1,147 @@
+package com.vsware.libraries.redisreactivecache.nearcache;
+
+import com.vsware.libraries.redisreactivecache.cluster.CacheKeyRouter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.UUID;
+
+/*
+Bounded in-process (L1) cache in front of Redis, holds already deserialized values
+(value of Mono<T> or List<T> of Flux<T>) for @RedisReactiveCacheGet(nearCache = true) methods.
+
+Coherence between application instances: every Add/Update/Evict publishes evaluated cache key to Redis channel,
+every instance listens to the channel and drops the key from its L1. If subscription to the channel is lost
+(fails or completes), whole L1 is dropped as invalidation messages could have been missed and L1 is bypassed until
+the subscription is active again - each (re)subscription publishes its own marker to the channel, the marker coming
+back proves that invalidations are received. Keys invalidated by other instances are read from the primary within
+read-your-writes window, replicas may not have received the change yet.
+
+Cached instances are shared between callers, they must not be modified
+ */
+@Slf4j
+public class NearCache implements InitializingBean, DisposableBean {
+
+    //channel messages with the prefix are subscription markers, not keys
+    private static final String MARKER_PREFIX = "__near_cache_subscribed__:";
+    private static final Duration MARKER_INTERVAL = Duration.ofMillis(100);
+
+    private final ReactiveRedisTemplate<String, Object> reactiveRedisTemplate;
+    private final CacheKeyRouter keyRouter;
+    private final boolean enabled;
+    private final String channel;
+    private final GuardedLocalCache cache;
+    private final String marker = MARKER_PREFIX + UUID.randomUUID();
+    //invalidations of other instances are received
+    private volatile boolean connected;
+    private Disposable subscription;
+
+    public NearCache(ReactiveRedisTemplate<String, Object> reactiveRedisTemplate, CacheKeyRouter keyRouter, boolean enabled,
+                     String channel, long maxSize, Duration ttl) {
+        this.reactiveRedisTemplate = reactiveRedisTemplate;
+        this.keyRouter = keyRouter;
+        this.enabled = enabled;
+        this.channel = channel;
+        this.cache = new GuardedLocalCache(maxSize, ttl);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean isConnected() {
+        return connected;
+    }
+
+    /*
+    Completes once invalidation channel subscription is active (L1 is used)
+     */
+    public Mono<Void> awaitConnected() {
+        return Mono.fromSupplier(() -> connected)
+                .filter(active -> active)
+                .repeatWhenEmpty(repeat -> repeat.delayElements(MARKER_INTERVAL))
+                .then();
+    }
+
+    public Object get(String key) {
+        return cache.get(key);
+    }
+
+    /*
+    Serves value from L1 if present, otherwise subscribes to source (Redis read, falling back to loader)
+    and keeps its value in L1. Without invalidation channel subscription L1 is bypassed
+     */
+    public <T> Mono<T> cached(String key, Mono<T> source) {
+        return Mono.defer(() -> connected ? cache.cached(key, source) : source);
+    }
+
+    /*
+    Drops key from L1 of all application instances
+     */
+    public void invalidate(String key) {
+        if (!enabled)
+            return;
+        cache.invalidate(key);
+        reactiveRedisTemplate.convertAndSend(channel, key).subscribe();
+    }
+
+    public long size() {
+        return cache.size();
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (!enabled)
+            return;
+        //deferred - listener container is created per (re)subscription, connection failure is retried as well.
+        //Completed subscription is resubscribed the same way
+        subscription = Flux.defer(() -> reactiveRedisTemplate.listenToChannel(channel)
+                        .map(message -> String.valueOf(message.getMessage()))
+                        .mergeWith(publishMarker().thenMany(Flux.empty())))
+                .concatWith(Flux.error(() -> new IllegalStateException("RedisReactiveCache near cache invalidation channel subscription completed")))
+                .doOnNext(this::onMessage)
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1))
+                        .maxBackoff(Duration.ofSeconds(30))
+                        .transientErrors(true)
+                        .doBeforeRetry(signal -> {
+                            log.warn("Near cache invalidation channel subscription lost, dropping near cache", signal.failure());
+                            connected = false;
+                            cache.invalidateAll();
+                        }))
+                .subscribe();
+    }
+
+    @Override
+    public void destroy() {
+        if (subscription != null)
+            subscription.dispose();
+    }
+
+    /*
+    Subscription is established asynchronously - marker is published until it comes back
+     */
+    private Mono<Void> publishMarker() {
+        return Flux.interval(Duration.ZERO, MARKER_INTERVAL)
+                .takeWhile(tick -> !connected)
+                .concatMap(tick -> reactiveRedisTemplate.convertAndSend(channel, marker))
+                .then();
+    }
+
+    private void onMessage(String message) {
+        if (!message.startsWith(MARKER_PREFIX)) {
+            keyRouter.written(message);
+            cache.invalidate(message);
+        } else if (message.equals(marker) && !connected) {
+            //values stored before the subscription may have missed invalidations
+            cache.invalidateAll();
+            connected = true;
+        }
+    }
+}
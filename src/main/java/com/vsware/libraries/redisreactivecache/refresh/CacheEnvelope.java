@@ -0,0 +1,31 @@
+package com.vsware.libraries.redisreactivecache.refresh;
+
+/*
+Encoded cached value together with its soft expiry (refresh-ahead mode)
+ */
+public class CacheEnvelope {
+
+    private final byte[] payload;
+    //epoch millis after which the value should be reloaded in background
+    private final long softExpireAt;
+    //how long the value took to load, used for probabilistic early refresh
+    private final long loadMillis;
+
+    public CacheEnvelope(byte[] payload, long softExpireAt, long loadMillis) {
+        this.payload = payload;
+        this.softExpireAt = softExpireAt;
+        this.loadMillis = loadMillis;
+    }
+
+    public byte[] getPayload() {
+        return payload;
+    }
+
+    public long getSoftExpireAt() {
+        return softExpireAt;
+    }
+
+    public long getLoadMillis() {
+        return loadMillis;
+    }
+}
@@ -0,0 +1,54 @@
+package com.vsware.libraries.redisreactivecache.refresh;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+/*
+Stale-while-revalidate support for @RedisReactiveCacheGet(refreshAfter = ...):
+value is stored with soft expiry header, Redis key itself expires after hard ttl.
+Value past its soft expiry is still served, but triggers single background reload.
+Reload is triggered probabilistically slightly before soft expiry (XFetch): the longer value takes to load
+and the bigger beta is, the earlier reload may happen, so concurrent requests don't all see expiry at the same time.
+
+Stored format: [0xFE][softExpireAt: 8 bytes][loadMillis: 8 bytes][encoded value],
+0xFE is never the first byte of JSON/Smile/CBOR document, so values without header (e.g. written by Add/Update)
+are recognised and served as is
+ */
+public class RefreshAhead {
+
+    private static final byte HEADER = (byte) 0xFE;
+    private static final int HEADER_LENGTH = 1 + Long.BYTES * 2;
+
+    private final double beta;
+
+    public RefreshAhead(double beta) {
+        this.beta = beta;
+    }
+
+    public byte[] wrap(byte[] payload, long refreshAfterMillis, long loadMillis) {
+        return ByteBuffer.allocate(HEADER_LENGTH + payload.length)
+                .put(HEADER)
+                .putLong(System.currentTimeMillis() + refreshAfterMillis)
+                .putLong(loadMillis)
+                .put(payload)
+                .array();
+    }
+
+    /*
+    Returns envelope of cached bytes, or null if value was stored without soft expiry header
+     */
+    public CacheEnvelope unwrap(byte[] cached) {
+        if (cached.length < HEADER_LENGTH || cached[0] != HEADER)
+            return null;
+        ByteBuffer buffer = ByteBuffer.wrap(cached, 1, HEADER_LENGTH - 1);
+        return new CacheEnvelope(Arrays.copyOfRange(cached, HEADER_LENGTH, cached.length),
+                buffer.getLong(), buffer.getLong());
+    }
+
+    public boolean shouldRefresh(CacheEnvelope envelope) {
+        //-ln(random) is exponentially distributed with mean 1
+        double earlyMillis = -envelope.getLoadMillis() * beta * Math.log(1 - ThreadLocalRandom.current().nextDouble());
+        return System.currentTimeMillis() + earlyMillis >= envelope.getSoftExpireAt();
+    }
+}
@@ -0,0 +1,39 @@
+package com.vsware.libraries.redisreactivecache.replica;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.Collection;
+
+/*
+Read-your-writes window: keys this instance wrote or deleted within the window are read from the primary,
+replica may not have received the write yet. Window starts when the write command is sent, so it should cover
+replication lag. Bounded - when more keys are written within the window, the oldest ones may be read from replica early
+ */
+public class RecentWrites {
+
+    //null when the window is disabled
+    private final Cache<String, Boolean> keys;
+
+    public RecentWrites(Duration window, long maxSize) {
+        this.keys = window.isZero() || window.isNegative() ? null : Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(window)
+                .build();
+    }
+
+    public void written(String key) {
+        if (keys != null)
+            keys.put(key, Boolean.TRUE);
+    }
+
+    public void written(Collection<String> writtenKeys) {
+        if (keys != null)
+            writtenKeys.forEach(key -> keys.put(key, Boolean.TRUE));
+    }
+
+    public boolean isRecent(String key) {
+        return keys != null && keys.getIfPresent(key) != null;
+    }
+}
@@ -0,0 +1,96 @@
+package com.vsware.libraries.redisreactivecache.replica;
+
+import io.lettuce.core.ReadFrom;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.RedisStaticMasterReplicaConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.util.StringUtils;
+
+/*
+Separate connection for cache reads (GET/MGET/LRANGE) with Lettuce ReadFrom (e.g. replicaPreferred), writes stay
+on the application connection to the primary. Topology follows the application connection factory:
+Cluster and Sentinel nodes are discovered by Lettuce, standalone primary needs its replicas listed (replica_nodes).
+Null connection factory - replica reads are disabled
+ */
+@Slf4j
+public class ReplicaReadConnection implements DisposableBean {
+
+    private static final int DEFAULT_PORT = 6379;
+
+    private final LettuceConnectionFactory connectionFactory;
+
+    public ReplicaReadConnection(ReactiveRedisConnectionFactory primaryConnectionFactory, String readFrom,
+                                 String[] replicaNodes) {
+        this.connectionFactory = StringUtils.hasText(readFrom) ?
+                createConnectionFactory(primaryConnectionFactory, ReadFrom.valueOf(readFrom.trim()), replicaNodes) : null;
+        if (connectionFactory != null)
+            connectionFactory.afterPropertiesSet();
+    }
+
+    private static LettuceConnectionFactory createConnectionFactory(ReactiveRedisConnectionFactory primaryConnectionFactory,
+                                                                    ReadFrom readFrom, String[] replicaNodes) {
+        if (!(primaryConnectionFactory instanceof LettuceConnectionFactory)) {
+            log.warn("RedisReactiveCache read_from requires LettuceConnectionFactory, cache reads stay on the primary");
+            return null;
+        }
+        LettuceConnectionFactory primary = (LettuceConnectionFactory) primaryConnectionFactory;
+        LettuceClientConfiguration clientConfiguration = clientConfiguration(primary.getClientConfiguration(), readFrom);
+        if (primary.isClusterAware())
+            return new LettuceConnectionFactory(primary.getClusterConfiguration(), clientConfiguration);
+        if (primary.isRedisSentinelAware())
+            return new LettuceConnectionFactory(primary.getSentinelConfiguration(), clientConfiguration);
+        if (replicaNodes.length == 0) {
+            log.warn("RedisReactiveCache read_from with standalone Redis requires replica_nodes, cache reads stay on the primary");
+            return null;
+        }
+        RedisStandaloneConfiguration standalone = primary.getStandaloneConfiguration();
+        RedisStaticMasterReplicaConfiguration configuration =
+                new RedisStaticMasterReplicaConfiguration(standalone.getHostName(), standalone.getPort());
+        for (String node : replicaNodes) {
+            if (!StringUtils.hasText(node))
+                continue;
+            String hostAndPort = node.trim();
+            int separator = hostAndPort.lastIndexOf(':');
+            if (separator < 0)
+                configuration.node(hostAndPort, DEFAULT_PORT);
+            else
+                configuration.node(hostAndPort.substring(0, separator), Integer.parseInt(hostAndPort.substring(separator + 1)));
+        }
+        configuration.setPassword(standalone.getPassword());
+        configuration.setDatabase(standalone.getDatabase());
+        return new LettuceConnectionFactory(configuration, clientConfiguration);
+    }
+
+    //same client settings as the application connection, plus ReadFrom
+    private static LettuceClientConfiguration clientConfiguration(LettuceClientConfiguration primary, ReadFrom readFrom) {
+        LettuceClientConfiguration.LettuceClientConfigurationBuilder builder = LettuceClientConfiguration.builder()
+                .readFrom(readFrom)
+                .commandTimeout(primary.getCommandTimeout())
+                .shutdownTimeout(primary.getShutdownTimeout());
+        primary.getClientOptions().ifPresent(builder::clientOptions);
+        primary.getClientResources().ifPresent(builder::clientResources);
+        primary.getClientName().ifPresent(builder::clientName);
+        if (primary.isUseSsl())
+            builder.useSsl();
+        return builder.build();
+    }
+
+    public boolean isEnabled() {
+        return connectionFactory != null;
+    }
+
+    //null when disabled
+    public ReactiveRedisConnectionFactory getConnectionFactory() {
+        return connectionFactory;
+    }
+
+    @Override
+    public void destroy() {
+        if (connectionFactory != null)
+            connectionFactory.destroy();
+    }
+}
@@ -0,0 +1,182 @@
+package com.vsware.libraries.redisreactivecache.stream;
+
+import com.vsware.libraries.redisreactivecache.cluster.CacheKeyRouter;
+import com.vsware.libraries.redisreactivecache.cluster.SlotHash;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.util.concurrent.Queues;
+import reactor.util.function.Tuple2;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.ConcurrentModificationException;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.function.Function;
+
+/*
+Streaming cache of Flux results stored as Redis list.
+Write: elements are passed downstream as they arrive and, on the side, appended to temporary list in chunks (RPUSH),
+on source completion temporary list is committed with RENAME to the cache key. Failed or cancelled streams
+never become visible, their temporary list is deleted (and expires anyway). Elements waiting for Redis are bounded,
+when Redis can't keep up with the source the write gives up (source still flows to the caller).
+Read: list is streamed back page by page with LRANGE, so neither side keeps the whole result in heap.
+The first list element is generation header, unique per write - every page is read together with the header
+and compared with the first page's one, so a list replaced or deleted between pages fails the read
+(ConcurrentModificationException) instead of mixing two versions or completing truncated.
+Temporary list is kept in the slot (and shard) of the cache key, RENAME can't move keys across them
+ */
+@Slf4j
+public class RedisListStream {
+
+    private static final String TMP_SUFFIX = ":tmp:";
+    //leading byte of generation header, unlike codec output (see also ValueCompressor, RefreshAhead)
+    private static final byte GENERATION_HEADER = (byte) 0xFC;
+    //chunks buffered for Redis before the write gives up
+    private static final int MAX_BUFFERED_CHUNKS = 16;
+
+    /*
+    Page of the list (indexes include the header) with the header first,
+    empty if the key doesn't exist, has no header (written by previous version) or other generation than ARGV[3]
+     */
+    private static final RedisScript<List> PAGE_SCRIPT = RedisScript.of(
+            "local generation = redis.call('lindex', KEYS[1], 0) " +
+                    "if not generation or string.byte(generation, 1) ~= 252 " +
+                    "or (ARGV[3] ~= '' and generation ~= ARGV[3]) then return {} end " +
+                    "local page = redis.call('lrange', KEYS[1], ARGV[1], ARGV[2]) " +
+                    "table.insert(page, 1, generation) " +
+                    "return page", List.class);
+
+    private final CacheKeyRouter keyRouter;
+    private final int chunkSize;
+    //safety expiry of temporary list, in case the node dies before commit
+    private final Duration tmpTtl;
+
+    public RedisListStream(CacheKeyRouter keyRouter, int chunkSize, Duration tmpTtl) {
+        this.keyRouter = keyRouter;
+        this.chunkSize = chunkSize;
+        this.tmpTtl = tmpTtl;
+    }
+
+    public <T> Flux<T> write(String key, Flux<T> source, Function<Object, byte[]> encoder, Duration ttl, Runnable onCommit) {
+        return Flux.defer(() -> {
+            String tmpKey = SlotHash.companionKey(key, TMP_SUFFIX + UUID.randomUUID());
+            ReactiveRedisTemplate<String, byte[]> reactiveRedisTemplate = keyRouter.forWrite(key);
+            int maxBuffered = chunkSize * MAX_BUFFERED_CHUNKS;
+            Sinks.Many<byte[]> sink = Sinks.many().unicast().onBackpressureBuffer(Queues.<byte[]>get(maxBuffered).get());
+            byte[] generation = generation();
+            sink.asFlux()
+                    .buffer(chunkSize)
+                    .index()
+                    .concatMap(chunk -> appendChunk(reactiveRedisTemplate, tmpKey, generation, chunk))
+                    .count()
+                    .flatMap(chunks -> chunks > 0 ?
+                            commit(reactiveRedisTemplate, tmpKey, key, ttl).doOnSuccess(committed -> onCommit.run()) :
+                            Mono.empty())
+                    .onErrorResume(e -> {
+                        if (!(e instanceof CancellationException))
+                            log.warn("Streaming cache write failed for cacheKey: " + key, e);
+                        return reactiveRedisTemplate.delete(tmpKey).then(Mono.empty());
+                    })
+                    .subscribe();
+            return source
+                    .doOnNext(element -> {
+                        if (sink.tryEmitNext(encoder.apply(element)) == Sinks.EmitResult.FAIL_OVERFLOW)
+                            sink.tryEmitError(new IllegalStateException("RedisReactiveCache streaming cache write of cacheKey: " +
+                                    key + " exceeded " + maxBuffered + " buffered elements, Redis is slower than the source"));
+                    })
+                    .doOnComplete(sink::tryEmitComplete)
+                    .doOnError(sink::tryEmitError)
+                    .doOnCancel(() -> sink.tryEmitError(new CancellationException("Streaming cache source cancelled")));
+        });
+    }
+
+    /*
+    Streams encoded list elements, completes empty if the key doesn't exist (or was written without generation header).
+    Fails with ConcurrentModificationException when the list is replaced or deleted while it's read
+     */
+    public Flux<byte[]> read(String key) {
+        return readPage(key, 1, null)
+                .expand(page -> page.elements.size() < chunkSize ? Mono.empty() :
+                        readPage(key, page.start + chunkSize, page.generation))
+                //one page ahead of the elements being returned
+                .concatMap(page -> Flux.fromIterable(page.elements), 1);
+    }
+
+    private Mono<Page> readPage(String key, long start, byte[] generation) {
+        List<byte[]> args = List.of(Long.toString(start).getBytes(StandardCharsets.US_ASCII),
+                Long.toString(start + chunkSize - 1).getBytes(StandardCharsets.US_ASCII),
+                generation != null ? generation : new byte[0]);
+        return keyRouter.forRead(key).execute(PAGE_SCRIPT, Collections.singletonList(key), args)
+                .collectList()
+                .flatMap(reply -> {
+                    List<byte[]> page = toElements(reply, new ArrayList<>());
+                    if (!page.isEmpty())
+                        return Mono.just(new Page(start, page.get(0), page.subList(1, page.size())));
+                    if (generation == null)
+                        return Mono.empty();
+                    return Mono.error(new ConcurrentModificationException("RedisReactiveCache cached list of cacheKey: " +
+                            key + " was replaced or deleted while it was read"));
+                });
+    }
+
+    private static List<byte[]> toElements(Collection<?> reply, List<byte[]> elements) {
+        for (Object element : reply) {
+            if (element instanceof Collection)
+                toElements((Collection<?>) element, elements);
+            else if (element instanceof byte[])
+                elements.add((byte[]) element);
+        }
+        return elements;
+    }
+
+    private static byte[] generation() {
+        byte[] id = UUID.randomUUID().toString().getBytes(StandardCharsets.US_ASCII);
+        byte[] generation = new byte[id.length + 1];
+        generation[0] = GENERATION_HEADER;
+        System.arraycopy(id, 0, generation, 1, id.length);
+        return generation;
+    }
+
+    //the first chunk is preceded by generation header
+    private Mono<Long> appendChunk(ReactiveRedisTemplate<String, byte[]> reactiveRedisTemplate, String tmpKey,
+                                   byte[] generation, Tuple2<Long, List<byte[]>> chunk) {
+        if (chunk.getT1() > 0)
+            return reactiveRedisTemplate.opsForList().rightPushAll(tmpKey, chunk.getT2());
+        List<byte[]> elements = new ArrayList<>(chunk.getT2().size() + 1);
+        elements.add(generation);
+        elements.addAll(chunk.getT2());
+        return reactiveRedisTemplate.opsForList().rightPushAll(tmpKey, elements)
+                .flatMap(size -> reactiveRedisTemplate.expire(tmpKey, tmpTtl).thenReturn(size));
+    }
+
+    private Mono<Boolean> commit(ReactiveRedisTemplate<String, byte[]> reactiveRedisTemplate, String tmpKey, String key,
+                                 Duration ttl) {
+        //read-your-writes window starts with the commit
+        keyRouter.written(Collections.singletonList(key));
+        return reactiveRedisTemplate.rename(tmpKey, key)
+                .then(ttl != null ? reactiveRedisTemplate.expire(key, ttl) : reactiveRedisTemplate.persist(key));
+    }
+
+    private static class Page {
+
+        //list index of the first element
+        private final long start;
+        private final byte[] generation;
+        private final List<byte[]> elements;
+
+        Page(long start, byte[] generation, List<byte[]> elements) {
+            this.start = start;
+            this.generation = generation;
+            this.elements = elements;
+        }
+    }
+}
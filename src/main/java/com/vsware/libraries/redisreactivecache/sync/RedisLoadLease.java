@@ -0,0 +1,62 @@
+package com.vsware.libraries.redisreactivecache.sync;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/*
+Cross-node load coordination: node which acquires short living lease (SET key:lock token NX PX lease)
+executes the loader, other nodes poll the cache key until the value appears or the lease time is over,
+after that they execute the loader on their own.
+Lease is released by its owner only (compare token and delete) once the loader terminates
+ */
+@Slf4j
+public class RedisLoadLease {
+
+    public static final String LOCK_SUFFIX = ":lock";
+
+    private static final RedisScript<Long> RELEASE_SCRIPT = RedisScript.of(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+
+    private final ReactiveRedisTemplate<String, Object> reactiveRedisTemplate;
+    private final Duration leaseTime;
+    private final Duration pollInterval;
+    private final long maxPolls;
+
+    public RedisLoadLease(ReactiveRedisTemplate<String, Object> reactiveRedisTemplate, Duration leaseTime, Duration pollInterval) {
+        this.reactiveRedisTemplate = reactiveRedisTemplate;
+        this.leaseTime = leaseTime;
+        this.pollInterval = pollInterval;
+        this.maxPolls = Math.max(1, leaseTime.toMillis() / Math.max(1, pollInterval.toMillis()));
+    }
+
+    public <T> Mono<T> load(String key, Supplier<Mono<T>> loader, Supplier<Mono<T>> cacheReader) {
+        String lockKey = key + LOCK_SUFFIX;
+        String token = UUID.randomUUID().toString();
+        return reactiveRedisTemplate.opsForValue().setIfAbsent(lockKey, token, leaseTime)
+                .onErrorResume(e -> {
+                    log.warn("Unable to acquire Redis load lease for cacheKey: " + key, e);
+                    return Mono.just(false);
+                })
+                .flatMap(acquired -> acquired ?
+                        Mono.defer(loader).doFinally(signal -> release(lockKey, token)) :
+                        awaitValue(cacheReader).switchIfEmpty(Mono.defer(loader)));
+    }
+
+    private <T> Mono<T> awaitValue(Supplier<Mono<T>> cacheReader) {
+        return Mono.defer(cacheReader)
+                .repeatWhenEmpty(attempts -> attempts.take(maxPolls).delayElements(pollInterval));
+    }
+
+    private void release(String lockKey, String token) {
+        reactiveRedisTemplate.execute(RELEASE_SCRIPT, Collections.singletonList(lockKey), Collections.singletonList(token))
+                .subscribe();
+    }
+}
@@ -0,0 +1,27 @@
+package com.vsware.libraries.redisreactivecache.sync;
+
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/*
+In-JVM request coalescing: concurrent loads of the same cache key share a single in-flight Mono,
+so the annotated method (DB call) is executed once per key no matter how many subscribers missed the cache.
+Entry is removed as soon as the load terminates, next miss starts a new load
+ */
+public class SingleFlight {
+
+    private final ConcurrentMap<String, Mono<?>> inFlight = new ConcurrentHashMap<>();
+
+    @SuppressWarnings("unchecked")
+    public <T> Mono<T> execute(String key, Supplier<Mono<T>> loader) {
+        return Mono.defer(() -> (Mono<T>) inFlight.computeIfAbsent(key, k ->
+                Mono.defer(loader).doFinally(signal -> inFlight.remove(k)).cache()));
+    }
+
+    public int inFlightCount() {
+        return inFlight.size();
+    }
+}
@@ -1,30 +1,83 @@
 package com.vsware.libraries.redisreactivecache.util;
 
 import com.fasterxml.jackson.core.type.TypeReference;
+import com.vsware.libraries.redisreactivecache.cluster.SlotHash;
+import com.vsware.libraries.redisreactivecache.fingerprint.ArgsFingerprint;
+import com.vsware.libraries.redisreactivecache.metadata.CacheMethodMetadata;
 import org.aspectj.lang.JoinPoint;
-import org.aspectj.lang.reflect.CodeSignature;
 import org.aspectj.lang.reflect.MethodSignature;
-import org.springframework.expression.ExpressionParser;
-import org.springframework.expression.spel.standard.SpelExpressionParser;
-import org.springframework.expression.spel.support.StandardEvaluationContext;
-import org.springframework.util.StringUtils;
 
 import java.lang.reflect.Method;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
-import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 public class AspectUtils {
 
-    private final ExpressionParser expressionParser = new SpelExpressionParser();
+    public static final String TAG_SUFFIX = ":tag";
 
-    public String getKeyVal(JoinPoint joinPoint, String key, boolean useArgsHash) {
-        String cacheKey = resolveKey(joinPoint, key);
-        if (useArgsHash)
-            return cacheKey + "_" + Arrays.hashCode(joinPoint.getArgs());
+    private final CacheKeyExpressionParser keyExpressionParser = new CacheKeyExpressionParser();
+    private final ArgsFingerprint argsFingerprint;
+
+    public AspectUtils(ArgsFingerprint argsFingerprint) {
+        this.argsFingerprint = argsFingerprint;
+    }
+
+    public String getKeyVal(JoinPoint joinPoint, CacheMethodMetadata metadata) {
+        Object[] args = joinPoint.getArgs();
+        String cacheKey = withHashTag(args, metadata, metadata.getKeyExpression().getValue(args));
+        if (metadata.isUseArgsHash())
+            return cacheKey + "_" + getArgsHash(args);
         else
             return cacheKey;
+    }
+
+    /*
+    hashTag key template: {<hashTag>}<key>
+     */
+    private String withHashTag(Object[] args, CacheMethodMetadata metadata, String key) {
+        if (metadata.getHashTagExpression() == null)
+            return key;
+        return SlotHash.withHashTag(metadata.getHashTagExpression().getValue(args), key);
+    }
+
+    /*
+    useArgsHash key suffix
+     */
+    public String getArgsHash(Object[] args) {
+        return argsFingerprint.fingerprint(args);
+    }
+
+    /*
+    Key of single entity cached by id: <key>_<id>
+     */
+    public String getIdKeyVal(String key, Object id) {
+        return key + "_" + id;
+    }
+
+    /*
+    Keys of Redis sets holding cache keys of tag groups: <tag>:tag, with method hashTag {<hashTag>}<tag>:tag
+     */
+    public List<String> getTagKeyVals(JoinPoint joinPoint, CacheMethodMetadata metadata,
+                                      List<CacheKeyExpression> tagExpressions) {
+        if (tagExpressions.isEmpty())
+            return Collections.emptyList();
+        Object[] args = joinPoint.getArgs();
+        List<String> tagKeys = new ArrayList<>(tagExpressions.size());
+        for (CacheKeyExpression tagExpression : tagExpressions) {
+            tagKeys.add(withHashTag(args, metadata, tagExpression.getValue(args) + TAG_SUFFIX));
+        }
+        return tagKeys;
+    }
+
+    public CacheKeyExpression parseKey(Method method, String key, String[] parameterNames) {
+        return keyExpressionParser.parse(method, key, parameterNames);
+    }
 
+    public CacheKeyExpression parseKey(Class<?>[] parameterTypes, String key, String[] parameterNames) {
+        return keyExpressionParser.parse(parameterTypes, key, parameterNames);
     }
 
     public Method getMethod(JoinPoint joinPoint) {
@@ -44,26 +97,4 @@ public class AspectUtils {
             }
         };
     }
-
-    private String[] getParamNames(JoinPoint joinPoint) {
-        CodeSignature codeSignature = (CodeSignature) joinPoint.getSignature();
-        return codeSignature.getParameterNames();
-    }
-
-    private String resolveKey(JoinPoint joinPoint, String key) {
-        if (StringUtils.hasText(key)) {
-            if (key.contains("#") || key.contains("'")) {
-                String[] parameterNames = getParamNames(joinPoint);
-                Object[] args = joinPoint.getArgs();
-                StandardEvaluationContext context = new StandardEvaluationContext();
-                for (int i = 0; i < parameterNames.length; i++) {
-                    context.setVariable(parameterNames[i], args[i]);
-                }
-                return (String) expressionParser.parseExpression(key).getValue(context);
-            }
-            return key;
-        }
-        throw new RuntimeException("RedisReactiveCache annotation missing key");
-    }
-
 }
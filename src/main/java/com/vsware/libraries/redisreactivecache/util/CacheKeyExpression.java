@@ -0,0 +1,10 @@
+package com.vsware.libraries.redisreactivecache.util;
+
+/*
+Pre-built cache key generator for a single annotated method, created once by CacheKeyExpressionParser
+and evaluated on every invocation against the method arguments
+ */
+public interface CacheKeyExpression {
+
+    String getValue(Object[] args);
+}
@@ -0,0 +1,207 @@
+package com.vsware.libraries.redisreactivecache.util;
+
+import org.springframework.expression.EvaluationContext;
+import org.springframework.expression.Expression;
+import org.springframework.expression.ExpressionParser;
+import org.springframework.expression.spel.SpelCompilerMode;
+import org.springframework.expression.spel.SpelParserConfiguration;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.expression.spel.support.StandardEvaluationContext;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.util.StringUtils;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/*
+Builds CacheKeyExpression for annotation key:
+ - plain literal (no '#' and no ''') - returned as is
+ - "#param" and "#param.getter().getter()..." - resolved with precomputed argument index and getter methods, SpEL is skipped
+ - any other expression - parsed once and compiled by SpEL compiler (MIXED mode, falls back to interpretation if
+   expression can't be compiled). Parameter references are rewritten to "#root[index]" and arguments are passed
+   as root object, so every evaluation shares single evaluation context - nothing is set up per call
+ */
+public class CacheKeyExpressionParser {
+
+    private static final Pattern SIMPLE_KEY_PATTERN =
+            Pattern.compile("#([A-Za-z_$][\\w$]*)((?:\\.[A-Za-z_$][\\w$]*\\(\\))*)");
+    private static final Pattern GETTER_PATTERN = Pattern.compile("\\.([A-Za-z_$][\\w$]*)\\(\\)");
+
+    private final ExpressionParser expressionParser = new SpelExpressionParser(
+            new SpelParserConfiguration(SpelCompilerMode.MIXED, CacheKeyExpressionParser.class.getClassLoader()));
+    //holds no variables, only read by evaluations
+    private final EvaluationContext evaluationContext = sharedEvaluationContext();
+
+    public CacheKeyExpression parse(Method method, String key, String[] parameterNames) {
+        return parse(method.getParameterTypes(), key, parameterNames);
+    }
+
+    public CacheKeyExpression parse(Class<?>[] parameterTypes, String key, String[] parameterNames) {
+        if (!StringUtils.hasText(key))
+            throw new RuntimeException("RedisReactiveCache annotation missing key");
+        if (!key.contains("#") && !key.contains("'"))
+            return new LiteralKeyExpression(key);
+
+        SpelKeyExpression spelKeyExpression = new SpelKeyExpression(
+                expressionParser.parseExpression(toRootReferences(key, parameterNames)), evaluationContext);
+        CacheKeyExpression simpleKeyExpression = parseSimpleKey(parameterTypes, key.trim(), parameterNames, spelKeyExpression);
+        return simpleKeyExpression != null ? simpleKeyExpression : spelKeyExpression;
+    }
+
+    private CacheKeyExpression parseSimpleKey(Class<?>[] parameterTypes, String key, String[] parameterNames,
+                                              SpelKeyExpression fallback) {
+        Matcher matcher = SIMPLE_KEY_PATTERN.matcher(key);
+        if (!matcher.matches())
+            return null;
+        int argIndex = indexOf(parameterNames, matcher.group(1));
+        if (argIndex < 0)
+            return null;
+
+        List<Method> getters = new ArrayList<>();
+        Class<?> type = parameterTypes[argIndex];
+        Matcher getterMatcher = GETTER_PATTERN.matcher(matcher.group(2));
+        while (getterMatcher.find()) {
+            Method getter = ReflectionUtils.findMethod(type, getterMatcher.group(1));
+            if (getter == null || getter.getReturnType() == void.class || Modifier.isStatic(getter.getModifiers()))
+                return null;
+            ReflectionUtils.makeAccessible(getter);
+            getters.add(getter);
+            type = getter.getReturnType();
+        }
+        if (getters.isEmpty())
+            return new ArgumentKeyExpression(argIndex);
+        return new GetterChainKeyExpression(argIndex, getters.toArray(new Method[0]), fallback);
+    }
+
+    /*
+    "#param" outside of string literals -> "#root[index]", unknown names are left as (unset) variables.
+    Literals are delimited by ' or ", the other quote character is plain text inside. Doubled delimiter (escaped quote)
+    closes and reopens the literal, so it needs no special handling
+     */
+    static String toRootReferences(String key, String[] parameterNames) {
+        StringBuilder rewritten = new StringBuilder(key.length() + 16);
+        //delimiter of the current literal, 0 outside of literals
+        char quote = 0;
+        int i = 0;
+        while (i < key.length()) {
+            char c = key.charAt(i);
+            if (quote == 0 && (c == '\'' || c == '"'))
+                quote = c;
+            else if (c == quote)
+                quote = 0;
+            if (c != '#' || quote != 0) {
+                rewritten.append(c);
+                i++;
+                continue;
+            }
+            int end = i + 1;
+            while (end < key.length() && (end == i + 1 ? Character.isJavaIdentifierStart(key.charAt(end)) :
+                    Character.isJavaIdentifierPart(key.charAt(end)))) {
+                end++;
+            }
+            int argIndex = end > i + 1 ? indexOf(parameterNames, key.substring(i + 1, end)) : -1;
+            if (argIndex >= 0)
+                rewritten.append("#root[").append(argIndex).append(']');
+            else
+                rewritten.append(key, i, end);
+            i = end;
+        }
+        return rewritten.toString();
+    }
+
+    //resolvers and converters of StandardEvaluationContext are created lazily - initialized upfront, before it's shared
+    private static EvaluationContext sharedEvaluationContext() {
+        StandardEvaluationContext context = new StandardEvaluationContext();
+        context.getPropertyAccessors();
+        context.getConstructorResolvers();
+        context.getMethodResolvers();
+        context.getTypeLocator();
+        context.getTypeConverter();
+        return context;
+    }
+
+    private static int indexOf(String[] parameterNames, String name) {
+        for (int i = 0; i < parameterNames.length; i++) {
+            if (parameterNames[i].equals(name))
+                return i;
+        }
+        return -1;
+    }
+
+    private static String toKey(Object value) {
+        return value == null ? null : value.toString();
+    }
+
+    static class LiteralKeyExpression implements CacheKeyExpression {
+
+        private final String key;
+
+        LiteralKeyExpression(String key) {
+            this.key = key;
+        }
+
+        @Override
+        public String getValue(Object[] args) {
+            return key;
+        }
+    }
+
+    static class ArgumentKeyExpression implements CacheKeyExpression {
+
+        private final int argIndex;
+
+        ArgumentKeyExpression(int argIndex) {
+            this.argIndex = argIndex;
+        }
+
+        @Override
+        public String getValue(Object[] args) {
+            return toKey(args[argIndex]);
+        }
+    }
+
+    static class GetterChainKeyExpression implements CacheKeyExpression {
+
+        private final int argIndex;
+        private final Method[] getters;
+        private final SpelKeyExpression fallback;
+
+        GetterChainKeyExpression(int argIndex, Method[] getters, SpelKeyExpression fallback) {
+            this.argIndex = argIndex;
+            this.getters = getters;
+            this.fallback = fallback;
+        }
+
+        @Override
+        public String getValue(Object[] args) {
+            Object value = args[argIndex];
+            for (Method getter : getters) {
+                //let SpEL produce its usual evaluation error for null in the chain
+                if (value == null)
+                    return fallback.getValue(args);
+                value = ReflectionUtils.invokeMethod(getter, value);
+            }
+            return toKey(value);
+        }
+    }
+
+    static class SpelKeyExpression implements CacheKeyExpression {
+
+        private final Expression expression;
+        private final EvaluationContext context;
+
+        SpelKeyExpression(Expression expression, EvaluationContext context) {
+            this.expression = expression;
+            this.context = context;
+        }
+
+        @Override
+        public String getValue(Object[] args) {
+            return toKey(expression.getValue(context, args));
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.vsware.libraries.redisreactivecache.warmup;
+
+import com.vsware.libraries.redisreactivecache.cache.ReactiveCache;
+import com.vsware.libraries.redisreactivecache.cluster.CacheKeyRouter;
+import com.vsware.libraries.redisreactivecache.metadata.CacheMethodMetadata;
+import com.vsware.libraries.redisreactivecache.metadata.CacheMethodMetadataRegistry;
+import com.vsware.libraries.redisreactivecache.metadata.CacheOperation;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ListableBeanFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.util.StringUtils;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/*
+Startup warm-up, runs once all singletons are created - before the application reports ready:
+ - every bean is scanned for cache annotations, metadata of annotated methods is resolved (reflection, SpEL parsing,
+   Jackson types) and codecs build their (de)serializers, so the first request of each method doesn't pay for it
+ - every Redis connection cache keys are routed to is opened with PING
+ - hot keys listed in hotKeysFile are preloaded into near cache
+
+hotKeysFile has one key per line: <Class.method> <cacheKey>, Class.method as in metrics method tag, of a Get method
+with nearCache = true; blank lines and lines starting with # are skipped.
+Warm-up never fails the startup, errors are logged and the cache falls back to lazy initialization
+ */
+@Slf4j
+public class CacheWarmUp implements SmartInitializingSingleton {
+
+    private final ListableBeanFactory beanFactory;
+    private final CacheMethodMetadataRegistry metadataRegistry;
+    private final CacheKeyRouter keyRouter;
+    private final ReactiveCache reactiveCache;
+    private final boolean enabled;
+    private final String hotKeysFile;
+    private final Duration timeout;
+
+    public CacheWarmUp(ListableBeanFactory beanFactory, CacheMethodMetadataRegistry metadataRegistry, CacheKeyRouter keyRouter,
+                       ReactiveCache reactiveCache, boolean enabled, String hotKeysFile, Duration timeout) {
+        this.beanFactory = beanFactory;
+        this.metadataRegistry = metadataRegistry;
+        this.keyRouter = keyRouter;
+        this.reactiveCache = reactiveCache;
+        this.enabled = enabled;
+        this.hotKeysFile = hotKeysFile;
+        this.timeout = timeout;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!enabled)
+            return;
+        long startNanos = System.nanoTime();
+        Map<String, CacheMethodMetadata> getMethods = resolveMetadata();
+        openConnections();
+        long preloaded = StringUtils.hasText(hotKeysFile) ? preload(getMethods) : 0;
+        log.info("RedisReactiveCache warm-up: {} Get methods resolved, {} hot keys preloaded in {} ms", getMethods.size(),
+                preloaded, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+    }
+
+    /*
+    Returns metadata of Get methods by Class.method
+     */
+    private Map<String, CacheMethodMetadata> resolveMetadata() {
+        Set<Method> methods = new LinkedHashSet<>();
+        for (String beanName : beanFactory.getBeanDefinitionNames()) {
+            Class<?> beanType = beanFactory.getType(beanName, false);
+            if (beanType == null)
+                continue;
+            //annotations may be on the class or on its interfaces (e.g. reactive repositories)
+            Set<Class<?>> candidates = new LinkedHashSet<>(ClassUtils.getAllInterfacesForClassAsSet(beanType));
+            candidates.add(ClassUtils.getUserClass(beanType));
+            for (Class<?> candidate : candidates) {
+                ReflectionUtils.doWithMethods(candidate, methods::add,
+                        method -> Modifier.isPublic(method.getModifiers()) && !method.isBridge() && !method.isSynthetic());
+            }
+        }
+        Map<String, CacheMethodMetadata> getMethods = new HashMap<>();
+        for (Method method : methods) {
+            for (CacheOperation operation : CacheOperation.values()) {
+                if (!method.isAnnotationPresent(operation.getAnnotationType()))
+                    continue;
+                try {
+                    CacheMethodMetadata metadata = metadataRegistry.get(operation, method);
+                    metadata.getCodec().warmUp(metadata.getValueType());
+                    metadata.getCodec().warmUp(metadata.getCachedType());
+                    if (operation == CacheOperation.GET)
+                        getMethods.putIfAbsent(metadata.getMethodName(), metadata);
+                } catch (RuntimeException e) {
+                    log.warn("RedisReactiveCache warm-up failed for method " + method, e);
+                }
+            }
+        }
+        return getMethods;
+    }
+
+    private void openConnections() {
+        try {
+            Flux.fromIterable(keyRouter.getTemplates())
+                    .flatMap(template -> template.execute(connection -> connection.ping()))
+                    .then()
+                    .block(timeout);
+        } catch (RuntimeException e) {
+            log.warn("RedisReactiveCache warm-up: Redis is not reachable, connections will be opened by the first requests", e);
+        }
+    }
+
+    private long preload(Map<String, CacheMethodMetadata> getMethods) {
+        Map<CacheMethodMetadata, List<String>> hotKeys;
+        try {
+            hotKeys = parseHotKeys(Files.readAllLines(Paths.get(hotKeysFile), StandardCharsets.UTF_8), getMethods);
+        } catch (IOException e) {
+            log.warn("RedisReactiveCache warm-up: unable to read hot keys file " + hotKeysFile, e);
+            return 0;
+        }
+        try {
+            Long preloaded = Flux.fromIterable(hotKeys.entrySet())
+                    .flatMap(methodKeys -> reactiveCache.preload(methodKeys.getKey(), methodKeys.getValue()))
+                    .reduce(0L, Long::sum)
+                    .block(timeout);
+            return preloaded != null ? preloaded : 0;
+        } catch (RuntimeException e) {
+            log.warn("RedisReactiveCache warm-up: hot keys preload failed", e);
+            return 0;
+        }
+    }
+
+    /*
+    Groups keys of hot keys file lines by Get method, lines of unknown methods are skipped
+     */
+    static Map<CacheMethodMetadata, List<String>> parseHotKeys(List<String> lines, Map<String, CacheMethodMetadata> getMethods) {
+        Map<CacheMethodMetadata, List<String>> hotKeys = new LinkedHashMap<>();
+        for (String line : lines) {
+            String hotKey = line.trim();
+            int separator = hotKey.indexOf(' ');
+            if (hotKey.isEmpty() || hotKey.startsWith("#") || separator < 0)
+                continue;
+            CacheMethodMetadata metadata = getMethods.get(hotKey.substring(0, separator));
+            if (metadata != null)
+                hotKeys.computeIfAbsent(metadata, m -> new ArrayList<>()).add(hotKey.substring(separator + 1).trim());
+        }
+        return hotKeys;
+    }
+}
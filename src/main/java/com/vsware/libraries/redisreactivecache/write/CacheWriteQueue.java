@@ -0,0 +1,655 @@
+package com.vsware.libraries.redisreactivecache.write;
+
+import com.vsware.libraries.redisreactivecache.cluster.CacheKeyRouter;
+import com.vsware.libraries.redisreactivecache.cluster.SlotHash;
+import com.vsware.libraries.redisreactivecache.metadata.CacheTtl;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/*
+Bounded queue of fire-and-forget cache writes (SET [PX], MSET) and deletes (DEL), so slow Redis never makes
+pending writes and captured responses pile up in heap:
+ - at most capacity writes are pending, overflow is handled by OverflowPolicy. Deletes are never dropped,
+   stale cache is worse than a missing one, they are queued even over capacity. For the same reason write of changed
+   value (invalidateOnDrop - Add/Update) is never dropped silently, it's replaced with delete of its key
+ - at most concurrency commands (or batches) are in flight, following ones wait in the queue
+
+With batching enabled operations are collected for a short window or until batchSize operations are pending,
+and sent as single batch - one script execution, one round trip. Within a batch only one operation of each key is sent:
+change (write of changed value or delete) always supersedes plain fill, otherwise the one with newer version -
+or the later one, when unversioned.
+
+Tagged writes register their key in per-tag sets within the same script as the SET, so group invalidation
+(delete every member of the tag sets) never misses a written key. Both are sent as scripts of their own, between batches.
+
+Keys are sent to their node by CacheKeyRouter. When keys are spread over Cluster slots or shards, batches and MSET
+are split per node and slot, tag sets are popped first and their members deleted per node and slot.
+Key is registered in tag sets outside its slot together with (not atomically with) the SET - both are sent at once,
+so no later operation of the key or its tags overtakes them (see below).
+
+Versioned writes (see VersionClock) are conditional - script compares the version with the one kept in companion
+version key <key>:v (same slot) and skips write older than the last change of the key. Changes store their version,
+deletes as tombstone expiring after tombstoneTtl, so cache fill which loaded the record before it was changed or deleted
+can't write it back. Plain fills don't store their version, keys which were never changed have no version key.
+Version of changed value expires with the value, or after tombstoneTtl when the value doesn't expire.
+
+Commands are sent in queue order, so operations of the same key reach Redis in order: single thread at a time
+takes next commands out of the queue (under the lock) and subscribes them (outside of it), so neither callers nor
+Redis client threads completing commands ever wait for a command to be written to the connection
+ */
+@Slf4j
+public class CacheWriteQueue implements DisposableBean {
+
+    public static final String VERSION_SUFFIX = ":v";
+
+    private static final byte[] DELETE = new byte[0];
+    private static final byte[] CHANGED = {'1'};
+    private static final byte[] FILLED = {'0'};
+    private static final long DELETE_TTL = -1;
+    private static final long INVALIDATE_TAGS_TTL = -2;
+    //members deleted by single DEL, keeps unpack() within Lua stack limit
+    private static final int INVALIDATE_CHUNK_SIZE = 1000;
+
+    //KEYS - n cache keys followed by their n version keys, ARGV - value, ttl millis, version and changed flag of each key,
+    //then tombstone ttl millis. ttl < 0 - DEL, 0 - SET, > 0 - SET PX. Version 0 - unconditional write, otherwise
+    //the write is skipped if version key holds newer version (or the same one and the write is just a fill).
+    //Version of changed value expires with it, after tombstone ttl if the value doesn't expire
+    private static final RedisScript<Long> WRITE_SCRIPT = RedisScript.of(
+            "local n = #KEYS / 2 " +
+                    "local tombstoneTtl = ARGV[#ARGV] " +
+                    "for i = 1, n do " +
+                    "local ttl = tonumber(ARGV[i * 4 - 2]) " +
+                    "local version = tonumber(ARGV[i * 4 - 1]) " +
+                    "local changed = ARGV[i * 4] == '1' " +
+                    "local current = 0 " +
+                    "if version > 0 then current = tonumber(redis.call('get', KEYS[n + i]) or '0') end " +
+                    "if version == 0 or current < version or (changed and current == version) then " +
+                    "if ttl < 0 then redis.call('del', KEYS[i]) " +
+                    "elseif ttl == 0 then redis.call('set', KEYS[i], ARGV[i * 4 - 3]) " +
+                    "else redis.call('set', KEYS[i], ARGV[i * 4 - 3], 'px', ttl) end " +
+                    "if version > 0 and changed then " +
+                    "if ttl < 0 then redis.call('set', KEYS[n + i], ARGV[i * 4 - 1], 'px', tombstoneTtl) " +
+                    "elseif ttl == 0 then redis.call('set', KEYS[n + i], ARGV[i * 4 - 1], 'px', tombstoneTtl) " +
+                    "else redis.call('set', KEYS[n + i], ARGV[i * 4 - 1], 'px', ttl) end " +
+                    "end " +
+                    "end " +
+                    "end " +
+                    "return n",
+            Long.class);
+
+    //KEYS[1] - cache key, KEYS[2] - its version key, following KEYS - tag sets, ARGV - value, ttl millis (0 - no expiry),
+    //version, changed flag and tombstone ttl millis as in WRITE_SCRIPT. Skipped write is not registered in tag sets.
+    //Tag set lives as long as its longest living member, or forever if any member doesn't expire
+    private static final RedisScript<Long> TAGGED_SET_SCRIPT = RedisScript.of(
+            "local ttl = tonumber(ARGV[2]) " +
+                    "if tonumber(ARGV[3]) > 0 then " +
+                    "local current = tonumber(redis.call('get', KEYS[2]) or '0') " +
+                    "local version = tonumber(ARGV[3]) " +
+                    "if current > version or (current == version and ARGV[4] ~= '1') then return 0 end " +
+                    "if ARGV[4] == '1' then " +
+                    "if ttl > 0 then redis.call('set', KEYS[2], ARGV[3], 'px', ttl) " +
+                    "else redis.call('set', KEYS[2], ARGV[3], 'px', ARGV[5]) end " +
+                    "end " +
+                    "end " +
+                    "if ttl > 0 then redis.call('set', KEYS[1], ARGV[1], 'px', ttl) " +
+                    "else redis.call('set', KEYS[1], ARGV[1]) end " +
+                    "for i = 3, #KEYS do " +
+                    "local pttl = redis.call('pttl', KEYS[i]) " +
+                    "redis.call('sadd', KEYS[i], KEYS[1]) " +
+                    "if ttl == 0 then redis.call('persist', KEYS[i]) " +
+                    "elseif pttl == -2 or (pttl >= 0 and pttl < ttl) then redis.call('pexpire', KEYS[i], ttl) end " +
+                    "end " +
+                    "return #KEYS",
+            Long.class);
+
+    //KEYS - tag sets, ARGV - member key and its ttl millis, registration part of TAGGED_SET_SCRIPT
+    private static final RedisScript<Long> REGISTER_TAGS_SCRIPT = RedisScript.of(
+            "local ttl = tonumber(ARGV[2]) " +
+                    "for i = 1, #KEYS do " +
+                    "local pttl = redis.call('pttl', KEYS[i]) " +
+                    "redis.call('sadd', KEYS[i], ARGV[1]) " +
+                    "if ttl == 0 then redis.call('persist', KEYS[i]) " +
+                    "elseif pttl == -2 or (pttl >= 0 and pttl < ttl) then redis.call('pexpire', KEYS[i], ttl) end " +
+                    "end " +
+                    "return #KEYS",
+            Long.class);
+
+    //KEYS - tag sets, deletes the sets and returns their members - members outside the slot are deleted by the caller
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> POP_TAGS_SCRIPT = RedisScript.of(
+            "local members = {} " +
+                    "for i = 1, #KEYS do " +
+                    "local tagged = redis.call('smembers', KEYS[i]) " +
+                    "for j = 1, #tagged do members[#members + 1] = tagged[j] end " +
+                    "redis.call('del', KEYS[i]) " +
+                    "end " +
+                    "return members",
+            List.class);
+
+    //KEYS - tag sets, deletes every member and the sets themselves, returns deleted members
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> INVALIDATE_TAGS_SCRIPT = RedisScript.of(
+            "local deleted = {} " +
+                    "for i = 1, #KEYS do " +
+                    "local members = redis.call('smembers', KEYS[i]) " +
+                    "for j = 1, #members, " + INVALIDATE_CHUNK_SIZE + " do " +
+                    "redis.call('del', unpack(members, j, math.min(j + " + (INVALIDATE_CHUNK_SIZE - 1) + ", #members))) " +
+                    "end " +
+                    "for j = 1, #members do deleted[#deleted + 1] = members[j] end " +
+                    "redis.call('del', KEYS[i]) " +
+                    "end " +
+                    "return deleted",
+            List.class);
+
+    private final CacheKeyRouter keyRouter;
+    private final int capacity;
+    private final int concurrency;
+    private final OverflowPolicy overflowPolicy;
+    private final boolean batchEnabled;
+    private final int batchSize;
+    private final long batchWindowMicros;
+    private final Timer writeTimer;
+    private final byte[] tombstoneTtlMillis;
+    private final Scheduler flushScheduler;
+    //guarded by this
+    private final ArrayDeque<CacheWrite> queue = new ArrayDeque<>();
+    private boolean draining;
+    //written under the lock, read without it
+    private volatile int depth;
+    private volatile boolean flushScheduled;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final LongAdder droppedCount = new LongAdder();
+    private final LongAdder skippedCount = new LongAdder();
+
+    public CacheWriteQueue(CacheKeyRouter keyRouter, int capacity, int concurrency,
+                           OverflowPolicy overflowPolicy, boolean batchEnabled, int batchSize, long batchWindowMicros,
+                           Duration tombstoneTtl, Timer writeTimer) {
+        this.keyRouter = keyRouter;
+        this.capacity = Math.max(1, capacity);
+        this.concurrency = Math.max(1, concurrency);
+        this.overflowPolicy = overflowPolicy;
+        this.batchEnabled = batchEnabled;
+        this.batchSize = Math.max(1, batchSize);
+        this.batchWindowMicros = batchWindowMicros;
+        this.writeTimer = writeTimer;
+        this.tombstoneTtlMillis = Long.toString(Math.max(1, tombstoneTtl.toMillis())).getBytes(StandardCharsets.US_ASCII);
+        this.flushScheduler = batchEnabled ? Schedulers.newSingle("redis-reactive-cache-writer", true) : null;
+    }
+
+    /*
+    With SKIP policy and full queue response should not be cached - called before the response is encoded
+     */
+    public boolean acceptsWrites() {
+        if (overflowPolicy != OverflowPolicy.SKIP || getDepth() < capacity)
+            return true;
+        skippedCount.increment();
+        return false;
+    }
+
+    public void set(String key, byte[] value, Duration ttl, boolean invalidateOnDrop) {
+        set(key, value, ttl, invalidateOnDrop, Collections.emptyList());
+    }
+
+    /*
+    tagKeys - tag sets the key is registered in, together with the write
+     */
+    public void set(String key, byte[] value, Duration ttl, boolean invalidateOnDrop, List<String> tagKeys) {
+        set(key, value, ttl, invalidateOnDrop, tagKeys, 0);
+    }
+
+    /*
+    version > 0 - conditional write, with invalidateOnDrop (changed value) the version is stored
+     */
+    public void set(String key, byte[] value, Duration ttl, boolean invalidateOnDrop, List<String> tagKeys, long version) {
+        set(key, value, ttl, invalidateOnDrop, tagKeys, version, null);
+    }
+
+    /*
+    onWritten (nullable) runs once the command carrying the write (or delete replacing it on overflow) completed,
+    also when the write was superseded within a batch. Not run for dropped fill
+     */
+    public void set(String key, byte[] value, Duration ttl, boolean invalidateOnDrop, List<String> tagKeys, long version,
+                    Runnable onWritten) {
+        enqueue(new CacheWrite(key, value, ttl != null ? Math.max(1, ttl.toMillis()) : 0, invalidateOnDrop, tagKeys, version,
+                onWritten));
+    }
+
+    /*
+    Sent as single MSET, or SET PX of every key (each with its own jitter) if ttl is set
+     */
+    public void setAll(Map<String, byte[]> values, CacheTtl ttl) {
+        setAll(values, ttl, 0);
+    }
+
+    /*
+    Cache fill of several keys, version > 0 - conditional write of every key (one script per node and slot),
+    keys changed after the version are skipped
+     */
+    public void setAll(Map<String, byte[]> values, CacheTtl ttl, long version) {
+        if (values.isEmpty())
+            return;
+        if (batchEnabled) {
+            values.forEach((key, value) -> set(key, value, ttl.next(), false, Collections.emptyList(), version));
+            return;
+        }
+        enqueue(new CacheWrite(values, ttl, version));
+    }
+
+    public void delete(String key) {
+        delete(key, 0);
+    }
+
+    /*
+    version > 0 - the key is deleted unless it was changed later, tombstone keeps older fills out
+     */
+    public void delete(String key, long version) {
+        delete(key, version, null);
+    }
+
+    /*
+    onWritten (nullable) runs once the delete completed
+     */
+    public void delete(String key, long version, Runnable onWritten) {
+        enqueue(new CacheWrite(key, DELETE, DELETE_TTL, false, Collections.emptyList(), version, onWritten));
+    }
+
+    /*
+    Deletes every key registered in tagKeys sets, and the sets. Like delete, never dropped.
+    onInvalidated (nullable) receives deleted keys
+     */
+    public void invalidateTags(List<String> tagKeys, Consumer<List<String>> onInvalidated) {
+        if (tagKeys.isEmpty())
+            return;
+        enqueue(new CacheWrite(tagKeys, onInvalidated));
+    }
+
+    private void enqueue(CacheWrite write) {
+        boolean full;
+        synchronized (this) {
+            if (!write.isDelete() && queue.size() >= capacity && !makeRoom()) {
+                droppedCount.increment();
+                if (!write.invalidateOnDrop)
+                    return;
+                write = new CacheWrite(write.key, DELETE, DELETE_TTL, false, Collections.emptyList(), write.version,
+                        write.onWritten);
+            }
+            queue.add(write);
+            depth = queue.size();
+            full = !batchEnabled || queue.size() >= batchSize;
+            if (!full && !flushScheduled) {
+                flushScheduled = true;
+                flushScheduler.schedule(this::flush, batchWindowMicros, TimeUnit.MICROSECONDS);
+            }
+        }
+        if (full)
+            drain();
+    }
+
+    //guarded by this, only plain cache fills can be dropped to make room
+    private boolean makeRoom() {
+        if (overflowPolicy != OverflowPolicy.DROP_OLDEST)
+            return false;
+        for (Iterator<CacheWrite> iterator = queue.iterator(); iterator.hasNext(); ) {
+            CacheWrite pending = iterator.next();
+            if (!pending.isDelete() && !pending.invalidateOnDrop) {
+                iterator.remove();
+                droppedCount.increment();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void flush() {
+        flushScheduled = false;
+        drain();
+    }
+
+    /*
+    Only one thread drains at a time, others return right away - the draining thread sees their writes when it takes
+    the lock again. Every state change (write queued, command completed) is followed by drain(), which checks the state
+    under the lock, so no write is left in the queue while there is room in flight
+     */
+    private void drain() {
+        synchronized (this) {
+            if (draining)
+                return;
+            draining = true;
+        }
+        while (true) {
+            List<CacheWrite> writes;
+            synchronized (this) {
+                if (queue.isEmpty() || inFlight.get() >= concurrency) {
+                    draining = false;
+                    return;
+                }
+                writes = pollCommand();
+                depth = queue.size();
+                inFlight.incrementAndGet();
+            }
+            //command failing right on subscribe completes here - onSent doesn't drain, this loop sends the following ones
+            long startNanos = System.nanoTime();
+            Mono.defer(() -> writes.size() == 1 ? command(writes.get(0)) : batch(writes))
+                    .doFinally(signal -> onSent(startNanos, writes))
+                    .subscribe(null, e -> log.warn("Unable to write cache", e));
+        }
+    }
+
+    //runs on the thread completing the command, usually Redis client event loop
+    private void onSent(long startNanos, List<CacheWrite> writes) {
+        writeTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        inFlight.decrementAndGet();
+        for (CacheWrite write : writes) {
+            write.written();
+        }
+        if (depth > 0 && (!batchEnabled || !flushScheduled))
+            drain();
+    }
+
+    //guarded by this - writes of the next command: single write, with batching up to batchSize writes, tagged write alone
+    private List<CacheWrite> pollCommand() {
+        if (!batchEnabled || queue.peek().isTagged())
+            return Collections.singletonList(queue.poll());
+        List<CacheWrite> writes = new ArrayList<>(Math.min(batchSize, queue.size()));
+        CacheWrite write;
+        //tagged operations are scripts of their own, sent alone in their queue position
+        while (writes.size() < batchSize && (write = queue.peek()) != null && !write.isTagged()) {
+            writes.add(queue.poll());
+        }
+        return writes;
+    }
+
+    private Mono<?> command(CacheWrite write) {
+        if (write.values != null) {
+            if (write.isVersioned())
+                return scriptAll(write);
+            if (!write.ttl.isExpiring())
+                return keyRouter.multiSet(write.values);
+            return Flux.fromIterable(write.values.entrySet())
+                    .flatMap(value -> keyRouter.forWrite(value.getKey()).opsForValue()
+                            .set(value.getKey(), value.getValue(), write.ttl.next()))
+                    .then();
+        }
+        if (write.ttlMillis == INVALIDATE_TAGS_TTL)
+            return keyRouter.isDistributed() ? popTags(write) : invalidateTags(write);
+        ReactiveRedisTemplate<String, byte[]> template = keyRouter.forWrite(write.key);
+        if (write.isDelete() && !write.isVersioned())
+            return template.opsForValue().delete(write.key);
+        if (write.isTagged()) {
+            byte[] ttlMillis = Long.toString(write.ttlMillis).getBytes(StandardCharsets.US_ASCII);
+            if (!keyRouter.isColocated(write.key, write.tagKeys))
+                //sent right away, both ahead of commands drained after this one on the same connections
+                return Mono.when(registerTags(write, ttlMillis), set(template, write));
+            List<String> keys = new ArrayList<>(write.tagKeys.size() + 2);
+            keys.add(write.key);
+            keys.add(versionKey(write.key));
+            keys.addAll(write.tagKeys);
+            return template.execute(TAGGED_SET_SCRIPT, keys, List.of(write.value, ttlMillis,
+                    Long.toString(write.version).getBytes(StandardCharsets.US_ASCII), write.invalidateOnDrop ? CHANGED : FILLED,
+                    tombstoneTtlMillis)).then();
+        }
+        return set(template, write);
+    }
+
+    /*
+    Companion key holding version of the last change, in the same slot as the key
+     */
+    public static String versionKey(String key) {
+        return SlotHash.companionKey(key, VERSION_SUFFIX);
+    }
+
+    private Mono<?> set(ReactiveRedisTemplate<String, byte[]> template, CacheWrite write) {
+        if (write.isVersioned())
+            return script(template, Collections.singletonList(write));
+        if (write.ttlMillis > 0)
+            return template.opsForValue().set(write.key, write.value, Duration.ofMillis(write.ttlMillis));
+        return template.opsForValue().set(write.key, write.value);
+    }
+
+    //tag sets in other slots than the key, registered along with the write of the key
+    private Mono<Void> registerTags(CacheWrite write, byte[] ttlMillis) {
+        List<byte[]> args = List.of(write.key.getBytes(StandardCharsets.UTF_8), ttlMillis);
+        return Flux.fromIterable(keyRouter.group(write.tagKeys))
+                .flatMap(group -> group.getTemplate().execute(REGISTER_TAGS_SCRIPT, group.getKeys(), args))
+                .then();
+    }
+
+    private Mono<?> batch(List<CacheWrite> writes) {
+        Map<String, CacheWrite> batch = new LinkedHashMap<>();
+        for (CacheWrite write : writes) {
+            CacheWrite earlier = batch.get(write.key);
+            if (earlier == null || write.supersedes(earlier)) {
+                batch.remove(write.key);
+                batch.put(write.key, write);
+            }
+        }
+        if (batch.size() == 1)
+            return command(batch.values().iterator().next());
+        //one script per node and slot, sent in parallel
+        return Flux.fromIterable(keyRouter.group(new ArrayList<>(batch.keySet())))
+                .flatMap(group -> {
+                    if (group.getKeys().size() == 1)
+                        return command(batch.get(group.getKeys().get(0)));
+                    List<CacheWrite> writes = new ArrayList<>(group.getKeys().size());
+                    group.getKeys().forEach(key -> writes.add(batch.get(key)));
+                    return script(group.getTemplate(), writes);
+                })
+                .then();
+    }
+
+    private Mono<?> script(ReactiveRedisTemplate<String, byte[]> template, Collection<CacheWrite> batch) {
+        List<String> keys = new ArrayList<>(batch.size() * 2);
+        List<byte[]> args = new ArrayList<>(batch.size() * 4 + 1);
+        for (CacheWrite write : batch) {
+            keys.add(write.key);
+            args.add(write.value);
+            args.add(Long.toString(write.ttlMillis).getBytes(StandardCharsets.US_ASCII));
+            args.add(Long.toString(write.version).getBytes(StandardCharsets.US_ASCII));
+            args.add(write.isChange() ? CHANGED : FILLED);
+        }
+        for (CacheWrite write : batch) {
+            keys.add(versionKey(write.key));
+        }
+        args.add(tombstoneTtlMillis);
+        return template.execute(WRITE_SCRIPT, keys, args).then();
+    }
+
+    //versioned setAll - every key becomes a fill of its own, each with its own jitter
+    private Mono<?> scriptAll(CacheWrite write) {
+        return Flux.fromIterable(keyRouter.group(new ArrayList<>(write.values.keySet())))
+                .flatMap(group -> {
+                    List<CacheWrite> writes = new ArrayList<>(group.getKeys().size());
+                    for (String key : group.getKeys()) {
+                        Duration ttl = write.ttl.next();
+                        writes.add(new CacheWrite(key, write.values.get(key), ttl != null ? Math.max(1, ttl.toMillis()) : 0,
+                                false, Collections.emptyList(), write.version, null));
+                    }
+                    return script(group.getTemplate(), writes);
+                })
+                .then();
+    }
+
+    private Mono<?> invalidateTags(CacheWrite write) {
+        return keyRouter.forWrite(write.tagKeys.get(0)).execute(INVALIDATE_TAGS_SCRIPT, write.tagKeys, Collections.emptyList())
+                .collectList()
+                .doOnNext(deleted -> {
+                    List<String> deletedKeys = toKeys(deleted, new ArrayList<>());
+                    keyRouter.written(deletedKeys);
+                    if (write.onInvalidated != null)
+                        write.onInvalidated.accept(deletedKeys);
+                });
+    }
+
+    //distributed variant of invalidateTags - members may live in any slot or node
+    private Mono<?> popTags(CacheWrite write) {
+        return Flux.fromIterable(keyRouter.group(write.tagKeys))
+                .flatMap(group -> group.getTemplate().execute(POP_TAGS_SCRIPT, group.getKeys(), Collections.emptyList()))
+                .collectList()
+                .flatMap(members -> {
+                    List<String> deleted = toKeys(members, new ArrayList<>());
+                    return Flux.fromIterable(deleted)
+                            .buffer(INVALIDATE_CHUNK_SIZE)
+                            .concatMap(keyRouter::delete)
+                            .then(Mono.just(deleted));
+                })
+                .doOnNext(deleted -> {
+                    if (write.onInvalidated != null)
+                        write.onInvalidated.accept(deleted);
+                });
+    }
+
+    //script reply is read with byte[] value reader, possibly nested in a list
+    private static List<String> toKeys(Collection<?> reply, List<String> keys) {
+        for (Object element : reply) {
+            if (element instanceof Collection)
+                toKeys((Collection<?>) element, keys);
+            else if (element instanceof byte[])
+                keys.add(new String((byte[]) element, StandardCharsets.UTF_8));
+            else if (element != null)
+                keys.add(element.toString());
+        }
+        return keys;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public long getDroppedCount() {
+        return droppedCount.sum();
+    }
+
+    public long getSkippedCount() {
+        return skippedCount.sum();
+    }
+
+    @Override
+    public void destroy() {
+        if (batchEnabled) {
+            flushScheduler.dispose();
+            //send what's left after the scheduler is stopped
+            flush();
+        }
+    }
+
+    private static class CacheWrite {
+
+        private final String key;
+        private final byte[] value;
+        private final long ttlMillis;
+        private final Map<String, byte[]> values;
+        private final CacheTtl ttl;
+        private final boolean invalidateOnDrop;
+        private final List<String> tagKeys;
+        private final Consumer<List<String>> onInvalidated;
+        //0 - unversioned
+        private final long version;
+        //nullable
+        private final Runnable onWritten;
+
+        CacheWrite(String key, byte[] value, long ttlMillis, boolean invalidateOnDrop, List<String> tagKeys, long version,
+                   Runnable onWritten) {
+            this.key = key;
+            this.value = value;
+            this.ttlMillis = ttlMillis;
+            this.values = null;
+            this.ttl = null;
+            this.invalidateOnDrop = invalidateOnDrop;
+            this.tagKeys = tagKeys;
+            this.onInvalidated = null;
+            this.version = version;
+            this.onWritten = onWritten;
+        }
+
+        CacheWrite(Map<String, byte[]> values, CacheTtl ttl, long version) {
+            this.key = null;
+            this.value = null;
+            this.ttlMillis = 0;
+            this.values = values;
+            this.ttl = ttl;
+            this.invalidateOnDrop = false;
+            this.tagKeys = Collections.emptyList();
+            this.onInvalidated = null;
+            this.version = version;
+            this.onWritten = null;
+        }
+
+        CacheWrite(List<String> tagKeys, Consumer<List<String>> onInvalidated) {
+            this.key = null;
+            this.value = DELETE;
+            this.ttlMillis = INVALIDATE_TAGS_TTL;
+            this.values = null;
+            this.ttl = null;
+            this.invalidateOnDrop = false;
+            this.tagKeys = tagKeys;
+            this.onInvalidated = onInvalidated;
+            this.version = 0;
+            this.onWritten = null;
+        }
+
+        void written() {
+            if (onWritten == null)
+                return;
+            try {
+                onWritten.run();
+            } catch (RuntimeException e) {
+                log.warn("Cache write callback failed for cacheKey: " + key, e);
+            }
+        }
+
+        //delete of a key or of tag groups
+        boolean isDelete() {
+            return ttlMillis < 0;
+        }
+
+        boolean isTagged() {
+            return !tagKeys.isEmpty();
+        }
+
+        boolean isVersioned() {
+            return version > 0;
+        }
+
+        //write of changed value or delete - stale cache must not be written over it
+        boolean isChange() {
+            return invalidateOnDrop || isDelete();
+        }
+
+        /*
+        Which of two operations of the same key is sent in a batch: change wins over plain fill (a fill queued later
+        may have loaded the record before the change), otherwise newer version, or the later one when unversioned
+         */
+        boolean supersedes(CacheWrite earlier) {
+            if (isChange() != earlier.isChange())
+                return isChange();
+            return version >= earlier.version;
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.vsware.libraries.redisreactivecache.write;
+
+/*
+What CacheWriteQueue does with a cache write when it's full. Deletes are never dropped
+ */
+public enum OverflowPolicy {
+    //incoming write is dropped
+    DROP_NEWEST,
+    //oldest pending write is dropped to make room for incoming one
+    DROP_OLDEST,
+    //response is not cached at all - checked before it's encoded, so no CPU or memory is spent on it
+    SKIP
+}
@@ -0,0 +1,33 @@
+package com.vsware.libraries.redisreactivecache.write;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+Versions of cache writes - epoch microseconds, strictly increasing within the instance.
+Cache fill is versioned with the time its load started, changed value (Add/Update/Evict) with the time the change
+completed, so fill which may have read the record before the change can't overwrite it.
+Versions of different instances are compared as well, their clocks are expected to be synchronized (NTP).
+Disabled clock returns 0 - unversioned write
+ */
+public class VersionClock {
+
+    private final boolean enabled;
+    private final AtomicLong last = new AtomicLong();
+
+    public VersionClock(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public long next() {
+        if (!enabled)
+            return 0;
+        Instant now = Instant.now();
+        long micros = now.getEpochSecond() * 1_000_000 + now.getNano() / 1000;
+        return last.accumulateAndGet(micros, (previous, current) -> Math.max(previous + 1, current));
+    }
+}
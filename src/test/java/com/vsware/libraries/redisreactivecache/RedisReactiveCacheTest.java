@@ -3,24 +3,54 @@ package com.vsware.libraries.redisreactivecache;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.github.javafaker.Faker;
+import com.vsware.libraries.redisreactivecache.cache.CacheSpec;
+import com.vsware.libraries.redisreactivecache.cache.ReactiveCache;
+import com.vsware.libraries.redisreactivecache.cluster.CacheKeyRouter;
+import com.vsware.libraries.redisreactivecache.cluster.RedisShards;
+import com.vsware.libraries.redisreactivecache.cluster.SlotHash;
 import com.vsware.libraries.redisreactivecache.config.RedisTestContainerConfig;
+import com.vsware.libraries.redisreactivecache.hotkey.HotKey;
+import com.vsware.libraries.redisreactivecache.hotkey.HotKeyTracker;
 import com.vsware.libraries.redisreactivecache.model.TestTable;
+import com.vsware.libraries.redisreactivecache.nearcache.NearCache;
+import com.vsware.libraries.redisreactivecache.replica.RecentWrites;
+import com.vsware.libraries.redisreactivecache.replica.ReplicaReadConnection;
 import com.vsware.libraries.redisreactivecache.service.TestService;
+import com.vsware.libraries.redisreactivecache.stream.RedisListStream;
+import com.vsware.libraries.redisreactivecache.sync.RedisLoadLease;
+import com.vsware.libraries.redisreactivecache.util.AspectUtils;
+import com.vsware.libraries.redisreactivecache.write.CacheWriteQueue;
+import com.vsware.libraries.redisreactivecache.write.OverflowPolicy;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
 import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
 import reactor.test.StepVerifier;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.ConcurrentModificationException;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
-@SpringBootTest
+@SpringBootTest(properties = {"spring.redis.hot_keys_sample_rate=1", "spring.redis.hot_keys_window_ms=200"})
 class RedisReactiveCacheTest {
 
     @Autowired
@@ -31,11 +61,29 @@ class RedisReactiveCacheTest {
     private ObjectMapper objectMapper;
     @Autowired
     private Faker faker;
+    @Autowired
+    private AspectUtils aspectUtils;
+    @Autowired
+    private HotKeyTracker hotKeyTracker;
+    @Autowired
+    private ReactiveCache reactiveCache;
+    @Autowired
+    private CacheKeyRouter cacheKeyRouter;
+    @Autowired
+    private ReactiveRedisTemplate<String, byte[]> redisReactiveCacheTemplate;
+
+    private static final CacheSpec<TestTable> TEST_TABLES = CacheSpec.of("testTables", TestTable.class)
+            .ttl(Duration.ofMinutes(1))
+            .build();
+    private static final CacheSpec<TestTable> TEST_TABLES_BY_ID = CacheSpec.of("testTablesById", TestTable.class)
+            .ttl(Duration.ofMinutes(1))
+            .resultId(TestTable::getId)
+            .build();
 
     private final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm:ss");
 
     private String calculateCacheKey(String key, Object anyArg) {
-        return key + "_" + Arrays.hashCode(new Object[]{anyArg});
+        return key + "_" + aspectUtils.getArgsHash(new Object[]{anyArg});
     }
 
     @BeforeEach
@@ -56,6 +104,17 @@ class RedisReactiveCacheTest {
         RedisTestContainerConfig.redisContainer.stop();
     }
 
+    //single command in flight, batches are sent when full or on destroy()
+    private CacheWriteQueue writeQueue(int capacity, OverflowPolicy overflowPolicy, boolean batchEnabled) {
+        return new CacheWriteQueue(cacheKeyRouter, capacity, 1, overflowPolicy, batchEnabled, 100,
+                Duration.ofMinutes(1).toNanos() / 1000, Duration.ofMinutes(1), Timer.builder("test.write").register(new SimpleMeterRegistry()));
+    }
+
+    private Mono<byte[]> awaitValue(String key) {
+        return redisReactiveCacheTemplate.opsForValue().get(key)
+                .repeatWhenEmpty(repeat -> repeat.take(50).delayElements(Duration.ofMillis(20)));
+    }
+
 
     @Test
     void test_storeInDb() throws InterruptedException {
@@ -78,6 +137,21 @@ class RedisReactiveCacheTest {
         assert testService.methodCall.get() == 1;
     }
 
+    @Test
+    void test_storeInDbWithTtl() throws InterruptedException {
+        String name = faker.name().firstName();
+        testService.storeInDbWithTtl(name).block();
+
+        //Verify cache expires within ttl + jitter
+        StepVerifier.create(reactiveRedisTemplate.getExpire(name).log())
+                .expectNextMatches(expire -> {
+                    Duration ttl = (Duration) expire;
+                    return ttl.getSeconds() > 50 && ttl.getSeconds() <= 90;
+                })
+                .verifyComplete();
+        assert testService.methodCall.get() == 1;
+    }
+
     @Test
     void test_storeMultipleInDb() throws InterruptedException {
 
@@ -147,6 +221,643 @@ class RedisReactiveCacheTest {
         assert testService.methodCall.get() == 0;
     }
 
+    @Test
+    void test_getFromDb_undecodableValueIsMiss() throws InterruptedException {
+        String name = faker.name().firstName();
+        byte[] undecodable = "{not json".getBytes(StandardCharsets.UTF_8);
+        redisReactiveCacheTemplate.opsForValue().set(name, undecodable).block();
+
+        StepVerifier.create(testService.getFromDb(name).map(TestTable::getName))
+                .expectNext(name)
+                .verifyComplete();
+        assert testService.methodCall.get() == 1;
+        //undecodable value is replaced by the loaded one
+        StepVerifier.create(redisReactiveCacheTemplate.opsForValue().get(name)
+                        .filter(cached -> !Arrays.equals(cached, undecodable))
+                        .repeatWhenEmpty(repeat -> repeat.take(50).delayElements(Duration.ofMillis(20)))
+                        .then(testService.getFromDb(name)))
+                .expectNextCount(1)
+                .verifyComplete();
+        assert testService.methodCall.get() == 1;
+    }
+
+    @Test
+    void test_getAllFromDb_undecodableValueIsLoaded() throws InterruptedException {
+        List<String> names = IntStream.range(0, 3).mapToObj(index -> faker.name().firstName() + index).collect(Collectors.toList());
+        reactiveRedisTemplate.opsForValue().set("person_" + names.get(0), new TestTable(99, names.get(0), LocalDateTime.now())).block();
+        redisReactiveCacheTemplate.opsForValue().set("person_" + names.get(1), "{not json".getBytes(StandardCharsets.UTF_8)).block();
+
+        StepVerifier.create(testService.getAllFromDb(names).map(TestTable::getName))
+                .expectNextSequence(names)
+                .verifyComplete();
+        assert testService.methodCall.get() == 1;
+    }
+
+    @Test
+    void test_getMultipleFromDbStreaming_undecodableValueIsMiss() throws InterruptedException {
+        List<String> names = IntStream.range(0, 3).mapToObj(index -> faker.name().firstName() + index).collect(Collectors.toList());
+        String cacheKey = calculateCacheKey("streamed", names);
+        testService.getMultipleFromDbStreaming(names).blockLast();
+        StepVerifier.create(awaitKey(cacheKey, true)).expectNext(true).verifyComplete();
+        //first element, after generation header
+        redisReactiveCacheTemplate.opsForList().set(cacheKey, 1, "{not json".getBytes(StandardCharsets.UTF_8)).block();
+
+        StepVerifier.create(testService.getMultipleFromDbStreaming(names).map(TestTable::getName))
+                .expectNextSequence(names)
+                .verifyComplete();
+        assert testService.methodCall.get() == 2;
+    }
+
+    @Test
+    void test_findMissingInDb_cachesEmptyResult() throws InterruptedException {
+        String name = faker.name().firstName();
+        StepVerifier.create(testService.findMissingInDb(name)).verifyComplete();
+        //Empty result is cached in background
+        StepVerifier.create(reactiveRedisTemplate.hasKey(name)
+                        .filter(exists -> exists)
+                        .repeatWhenEmpty(repeat -> repeat.take(50).delayElements(Duration.ofMillis(20))))
+                .expectNext(true)
+                .verifyComplete();
+
+        StepVerifier.create(testService.findMissingInDb(name)).verifyComplete();
+        //make sure repeated lookup of missing record was not executed
+        assert testService.methodCall.get() == 1;
+    }
+
+    @Test
+    void test_getTeamMemberFromDb_hashTagSharesSlot() throws InterruptedException {
+        String team = faker.name().lastName();
+        String name = faker.name().firstName();
+        testService.getTeamMemberFromDb(team, name).block();
+
+        //Key and its tag set are written under the same hash tag, so they share a Cluster slot
+        String key = "{" + team + "}" + name;
+        String tagKey = "{" + team + "}" + team + ":tag";
+        assert SlotHash.slot(key) == SlotHash.slot(tagKey);
+        StepVerifier.create(reactiveRedisTemplate.opsForSet().isMember(tagKey, key)
+                        .filter(member -> (Boolean) member)
+                        .repeatWhenEmpty(repeat -> repeat.take(50).delayElements(Duration.ofMillis(20))))
+                .expectNext(true)
+                .verifyComplete();
+        StepVerifier.create(reactiveRedisTemplate.hasKey(key))
+                .expectNext(true)
+                .verifyComplete();
+        assert testService.methodCall.get() == 1;
+    }
+
+    @Test
+    void test_getFromDb_detectsHotKey() throws InterruptedException {
+        String hotName = faker.name().firstName() + "_hot";
+        for (int i = 0; i < 200; i++) {
+            testService.getFromDb(hotName).block();
+        }
+        for (int i = 0; i < 5; i++) {
+            testService.getFromDb(faker.name().firstName() + "_cold" + i).block();
+        }
+
+        //Published with next window, ranked first
+        StepVerifier.create(Mono.fromSupplier(() -> hotKeyTracker.getTopKeys())
+                        .filter(topKeys -> !topKeys.isEmpty() && topKeys.get(0).getKey().equals(hotName))
+                        .repeatWhenEmpty(repeat -> repeat.take(50).delayElements(Duration.ofMillis(20))))
+                .expectNextMatches(topKeys -> {
+                    HotKey hotKey = topKeys.get(0);
+                    return hotKey.getMethod().equals("TestService.getFromDb") && hotKey.getRate() > 0;
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void test_reactiveCache_getOrLoad_withoutAspect() {
+        String name = faker.name().firstName();
+        AtomicInteger loads = new AtomicInteger();
+        Mono<TestTable> fromDb = Mono.fromSupplier(() -> new TestTable(loads.incrementAndGet(), name, LocalDateTime.now()));
+
+        StepVerifier.create(reactiveCache.getOrLoad(name, TEST_TABLES, () -> fromDb))
+                .expectNextMatches(testTable -> testTable.getId() == 1)
+                .verifyComplete();
+        //Loaded value is cached in background
+        StepVerifier.create(reactiveRedisTemplate.hasKey(name)
+                        .filter(exists -> (Boolean) exists)
+                        .repeatWhenEmpty(repeat -> repeat.take(50).delayElements(Duration.ofMillis(20))))
+                .expectNext(true)
+                .verifyComplete();
+
+        //Same key through transform operator is served from cache, source is not subscribed
+        StepVerifier.create(fromDb.transform(reactiveCache.cached(name, TEST_TABLES)))
+                .expectNextMatches(testTable -> testTable.getId() == 1 && testTable.getName().equals(name))
+                .verifyComplete();
+        assert loads.get() == 1;
+    }
+
+    private Mono<Boolean> awaitKey(String key, boolean exists) {
+        return reactiveRedisTemplate.hasKey(key)
+                .filter(found -> (Boolean) found == exists)
+                .repeatWhenEmpty(repeat -> repeat.take(50).delayElements(Duration.ofMillis(20)));
+    }
+
+    @Test
+    void test_reactiveCache_put_servedWithoutLoad() {
+        String name = faker.name().firstName();
+        reactiveCache.put(name, new TestTable(7, name, LocalDateTime.now()), TEST_TABLES);
+
+        StepVerifier.create(awaitKey(name, true)).expectNext(true).verifyComplete();
+        StepVerifier.create(reactiveCache.getOrLoad(name, TEST_TABLES, () -> Mono.error(new IllegalStateException("loaded"))))
+                .expectNextMatches(testTable -> testTable.getId() == 7 && testTable.getName().equals(name))
+                .verifyComplete();
+    }
+
+    @Test
+    void test_reactiveCache_evict_nextGetLoads() {
+        String name = faker.name().firstName();
+        AtomicInteger loads = new AtomicInteger();
+        Mono<TestTable> fromDb = Mono.fromSupplier(() -> new TestTable(loads.incrementAndGet(), name, LocalDateTime.now()));
+        reactiveCache.put(name, new TestTable(0, name, LocalDateTime.now()), TEST_TABLES);
+        StepVerifier.create(awaitKey(name, true)).expectNext(true).verifyComplete();
+
+        reactiveCache.evict(name);
+        StepVerifier.create(awaitKey(name, false)).expectNext(false).verifyComplete();
+
+        StepVerifier.create(reactiveCache.getOrLoad(name, TEST_TABLES, () -> fromDb))
+                .expectNextMatches(testTable -> testTable.getId() == 1)
+                .verifyComplete();
+        assert loads.get() == 1;
+    }
+
+    @Test
+    void test_reactiveCache_getOrLoadMany_loadsMissingIdsOnly() {
+        String key = "many_" + faker.name().firstName();
+        List<List<Integer>> loadedIds = new CopyOnWriteArrayList<>();
+        Function<List<Integer>, Flux<TestTable>> fromDb = ids -> {
+            loadedIds.add(ids);
+            return Flux.fromIterable(ids).map(id -> new TestTable(id, "name" + id, LocalDateTime.now()));
+        };
+
+        StepVerifier.create(reactiveCache.getOrLoadMany(key, List.of(1, 2, 3), TEST_TABLES_BY_ID, fromDb))
+                .expectNextMatches(testTable -> testTable.getId() == 1)
+                .expectNextMatches(testTable -> testTable.getId() == 2)
+                .expectNextMatches(testTable -> testTable.getId() == 3)
+                .verifyComplete();
+        //Every loaded value is cached under its own key
+        StepVerifier.create(awaitKey(key + "_3", true)).expectNext(true).verifyComplete();
+
+        StepVerifier.create(reactiveCache.getOrLoadMany(key, List.of(3, 4, 1), TEST_TABLES_BY_ID, fromDb)
+                        .map(TestTable::getId)
+                        .collectList())
+                .expectNext(List.of(3, 4, 1))
+                .verifyComplete();
+        assert loadedIds.equals(List.of(List.of(1, 2, 3), List.of(4)));
+
+        StepVerifier.create(reactiveCache.getOrLoadMany(key, Collections.emptyList(), TEST_TABLES_BY_ID, fromDb))
+                .verifyComplete();
+        assert loadedIds.size() == 2;
+    }
+
+    @Test
+    void test_reactiveCache_updating_overwritesCachedValue() {
+        String name = faker.name().firstName();
+        reactiveCache.put(name, new TestTable(1, name, LocalDateTime.now()), TEST_TABLES);
+        StepVerifier.create(awaitKey(name, true)).expectNext(true).verifyComplete();
+
+        //Stored value is returned, and written to cache in background
+        StepVerifier.create(Mono.just(new TestTable(2, name, LocalDateTime.now()))
+                        .transform(reactiveCache.updating(name, TEST_TABLES)))
+                .expectNextMatches(testTable -> testTable.getId() == 2)
+                .verifyComplete();
+        StepVerifier.create(Mono.defer(() -> reactiveCache.getOrLoad(name, TEST_TABLES, Mono::empty))
+                        .filter(testTable -> testTable.getId() == 2)
+                        .repeatWhenEmpty(repeat -> repeat.take(50).delayElements(Duration.ofMillis(20))))
+                .expectNextCount(1)
+                .verifyComplete();
+    }
+
+    @Test
+    void test_reactiveCache_refreshAfterRequiresLongerTtl() {
+        //no hard expiry - refreshed value would never expire
+        CacheSpec<TestTable> withoutTtl = CacheSpec.of("refreshedWithoutTtl", TestTable.class)
+                .refreshAfter(Duration.ofSeconds(10))
+                .build();
+        Assertions.assertThrows(IllegalStateException.class,
+                () -> reactiveCache.getOrLoad("key", withoutTtl, () -> Mono.empty()));
+        CacheSpec<TestTable> ttlNotAfterRefresh = CacheSpec.of("refreshedAtTtl", TestTable.class)
+                .ttl(Duration.ofSeconds(10))
+                .refreshAfter(Duration.ofSeconds(10))
+                .build();
+        Assertions.assertThrows(IllegalStateException.class,
+                () -> reactiveCache.getOrLoad("key", ttlNotAfterRefresh, () -> Mono.empty()));
+    }
+
+    @Test
+    void test_reactiveCache_cachedFlux_sourceSubscribedOnMissOnly() {
+        String key = "flux_" + faker.name().firstName();
+        AtomicInteger subscriptions = new AtomicInteger();
+        Flux<TestTable> fromDb = Flux.defer(() -> {
+            subscriptions.incrementAndGet();
+            return Flux.just(new TestTable(1, "first", LocalDateTime.now()), new TestTable(2, "second", LocalDateTime.now()));
+        });
+
+        StepVerifier.create(fromDb.transform(reactiveCache.cachedFlux(key, TEST_TABLES)))
+                .expectNextCount(2)
+                .verifyComplete();
+        StepVerifier.create(awaitKey(key, true)).expectNext(true).verifyComplete();
+
+        StepVerifier.create(fromDb.transform(reactiveCache.cachedFlux(key, TEST_TABLES)).map(TestTable::getName))
+                .expectNext("first", "second")
+                .verifyComplete();
+        assert subscriptions.get() == 1;
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void test_loadLease_secondCallerGetsOwnersValue() {
+        //two application instances
+        ReactiveRedisTemplate<String, Object> template = reactiveRedisTemplate;
+        RedisLoadLease owner = new RedisLoadLease(template, Duration.ofSeconds(5), Duration.ofMillis(20));
+        RedisLoadLease other = new RedisLoadLease(template, Duration.ofSeconds(5), Duration.ofMillis(20));
+        String key = faker.name().firstName();
+        String lockKey = key + RedisLoadLease.LOCK_SUFFIX;
+        Sinks.One<Object> ownerLoad = Sinks.one();
+        AtomicInteger otherLoads = new AtomicInteger();
+        Mono<Object> cacheReader = Mono.defer(() -> template.opsForValue().get(key));
+
+        Mono<Object> ownerResult = owner.load(key, () -> ownerLoad.asMono()
+                .flatMap(loaded -> template.opsForValue().set(key, loaded).thenReturn(loaded)), () -> cacheReader).cache();
+        ownerResult.subscribe();
+        StepVerifier.create(awaitKey(lockKey, true)).expectNext(true).verifyComplete();
+
+        //lease is taken - the other caller polls the cache instead of loading
+        Mono<Object> otherResult = other.load(key, () -> Mono.fromSupplier(() -> "other" + otherLoads.incrementAndGet()),
+                () -> cacheReader);
+        StepVerifier.create(otherResult)
+                .then(() -> ownerLoad.tryEmitValue("loaded"))
+                .expectNext("loaded")
+                .verifyComplete();
+        assert otherLoads.get() == 0;
+        StepVerifier.create(ownerResult).expectNext("loaded").verifyComplete();
+        //released once the owner's loader terminated
+        StepVerifier.create(awaitKey(lockKey, false)).expectNext(false).verifyComplete();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void test_loadLease_loadsAfterLeaseExpires() {
+        ReactiveRedisTemplate<String, Object> template = reactiveRedisTemplate;
+        RedisLoadLease owner = new RedisLoadLease(template, Duration.ofMillis(300), Duration.ofMillis(20));
+        RedisLoadLease other = new RedisLoadLease(template, Duration.ofMillis(300), Duration.ofMillis(20));
+        String key = faker.name().firstName();
+        Mono<Object> cacheReader = Mono.defer(() -> template.opsForValue().get(key));
+        //owner never finishes its load, e.g. the node died
+        Disposable stuckLoad = owner.load(key, Mono::never, () -> cacheReader).subscribe();
+        try {
+            StepVerifier.create(awaitKey(key + RedisLoadLease.LOCK_SUFFIX, true)).expectNext(true).verifyComplete();
+            AtomicInteger otherLoads = new AtomicInteger();
+
+            StepVerifier.create(other.load(key, () -> Mono.fromSupplier(() -> "other" + otherLoads.incrementAndGet()),
+                            () -> cacheReader))
+                    .expectNext("other1")
+                    .verifyComplete();
+            assert otherLoads.get() == 1;
+        } finally {
+            stuckLoad.dispose();
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void test_loadLease_releasedByOwnerOnly() {
+        ReactiveRedisTemplate<String, Object> template = reactiveRedisTemplate;
+        RedisLoadLease owner = new RedisLoadLease(template, Duration.ofSeconds(5), Duration.ofMillis(20));
+        String key = faker.name().firstName();
+        String lockKey = key + RedisLoadLease.LOCK_SUFFIX;
+        Sinks.One<Object> ownerLoad = Sinks.one();
+        Mono<Object> ownerResult = owner.load(key, ownerLoad::asMono,
+                () -> Mono.defer(() -> template.opsForValue().get(key))).cache();
+        ownerResult.subscribe();
+        StepVerifier.create(awaitKey(lockKey, true)).expectNext(true).verifyComplete();
+
+        //lease expired meanwhile and other instance took it
+        template.opsForValue().set(lockKey, "otherToken").block();
+        ownerLoad.tryEmitValue("loaded");
+        StepVerifier.create(ownerResult).expectNext("loaded").verifyComplete();
+
+        //release of the owner (sent after its load) must not delete the lease of the other instance
+        StepVerifier.create(Mono.delay(Duration.ofMillis(200)).then(template.opsForValue().get(lockKey)))
+                .expectNext("otherToken")
+                .verifyComplete();
+    }
+
+    @Test
+    void test_nearCache_invalidatedByOtherInstance() {
+        String channel = "test:invalidation:" + faker.name().firstName();
+        //two application instances listening to the same channel
+        NearCache publisher = new NearCache(reactiveRedisTemplate, cacheKeyRouter, true, channel, 100, Duration.ofMinutes(1));
+        NearCache listener = new NearCache(reactiveRedisTemplate, cacheKeyRouter, true, channel, 100, Duration.ofMinutes(1));
+        listener.afterPropertiesSet();
+        try {
+            listener.awaitConnected().block(Duration.ofSeconds(5));
+            String name = faker.name().firstName();
+            StepVerifier.create(listener.cached(name, Mono.just(new TestTable(1, name, LocalDateTime.now()))))
+                    .expectNextCount(1)
+                    .verifyComplete();
+            assert listener.get(name) != null;
+
+            //published until the listener's subscription is active and the key is dropped
+            StepVerifier.create(Mono.fromRunnable(() -> publisher.invalidate(name))
+                            .then(Mono.fromSupplier(() -> listener.get(name) == null))
+                            .filter(dropped -> dropped)
+                            .repeatWhenEmpty(repeat -> repeat.take(50).delayElements(Duration.ofMillis(20))))
+                    .expectNext(true)
+                    .verifyComplete();
+        } finally {
+            listener.destroy();
+        }
+    }
+
+    @Test
+    void test_nearCache_loadRacingInvalidationNotStored() {
+        NearCache nearCache = new NearCache(reactiveRedisTemplate, cacheKeyRouter, true, "test:invalidation:race", 100,
+                Duration.ofMinutes(1));
+        nearCache.afterPropertiesSet();
+        try {
+            nearCache.awaitConnected().block(Duration.ofSeconds(5));
+            String name = faker.name().firstName();
+            //key is invalidated while its value is being loaded - the loaded value may be stale already
+            Mono<TestTable> racingLoad = Mono.defer(() -> {
+                nearCache.invalidate(name);
+                return Mono.just(new TestTable(1, name, LocalDateTime.now()));
+            });
+
+            StepVerifier.create(nearCache.cached(name, racingLoad))
+                    .expectNextCount(1)
+                    .verifyComplete();
+            assert nearCache.get(name) == null;
+
+            StepVerifier.create(nearCache.cached(name, Mono.just(new TestTable(2, name, LocalDateTime.now()))))
+                    .expectNextCount(1)
+                    .verifyComplete();
+            assert ((TestTable) nearCache.get(name)).getId() == 2;
+
+            //invalidation of other key doesn't hold back the load
+            String other = name + "_other";
+            Mono<TestTable> loadRacingOtherKey = Mono.defer(() -> {
+                nearCache.invalidate(name);
+                return Mono.just(new TestTable(3, other, LocalDateTime.now()));
+            });
+            StepVerifier.create(nearCache.cached(other, loadRacingOtherKey))
+                    .expectNextCount(1)
+                    .verifyComplete();
+            assert ((TestTable) nearCache.get(other)).getId() == 3;
+        } finally {
+            nearCache.destroy();
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void test_nearCache_bypassedWithoutSubscription() {
+        //nothing listens on the port - subscription fails and is retried
+        LettuceConnectionFactory unreachable = new LettuceConnectionFactory(new RedisStandaloneConfiguration("localhost", 1));
+        unreachable.afterPropertiesSet();
+        NearCache nearCache = new NearCache(new ReactiveRedisTemplate<String, Object>(unreachable,
+                reactiveRedisTemplate.getSerializationContext()), cacheKeyRouter, true, "test:invalidation:lost", 100, Duration.ofMinutes(1));
+        nearCache.afterPropertiesSet();
+        try {
+            String name = faker.name().firstName();
+            AtomicInteger loads = new AtomicInteger();
+            Mono<TestTable> source = Mono.fromSupplier(() -> new TestTable(loads.incrementAndGet(), name, LocalDateTime.now()));
+
+            //invalidation messages would be missed - values are not kept
+            StepVerifier.create(nearCache.cached(name, source).then(nearCache.cached(name, source)))
+                    .expectNextMatches(table -> table.getId() == 2)
+                    .verifyComplete();
+            assert !nearCache.isConnected();
+            assert nearCache.size() == 0;
+        } finally {
+            nearCache.destroy();
+            unreachable.destroy();
+        }
+    }
+
+    //replica read connection with the test container listed as its replica node
+    private ReplicaReadConnection replicaReadConnection() {
+        return new ReplicaReadConnection(reactiveRedisTemplate.getConnectionFactory(), "replicaPreferred",
+                new String[]{RedisTestContainerConfig.redisContainer.getHost() + ":" +
+                        RedisTestContainerConfig.redisContainer.getMappedPort(6379)});
+    }
+
+    @Test
+    void test_replicaReadConnection_readsFromListedNodes() {
+        ReplicaReadConnection replicaReadConnection = replicaReadConnection();
+        try {
+            assert replicaReadConnection.isEnabled();
+            ReactiveRedisTemplate<String, byte[]> replicaTemplate = CacheKeyRouter.cacheTemplate(replicaReadConnection.getConnectionFactory());
+            String key = faker.name().firstName();
+            StepVerifier.create(redisReactiveCacheTemplate.opsForValue().set(key, "value".getBytes(StandardCharsets.UTF_8))
+                            .then(replicaTemplate.opsForValue().get(key))
+                            .map(value -> new String(value, StandardCharsets.UTF_8)))
+                    .expectNext("value")
+                    .verifyComplete();
+        } finally {
+            replicaReadConnection.destroy();
+        }
+    }
+
+    @Test
+    void test_replicaReadConnection_disabledWithoutReplicaNodes() {
+        ReplicaReadConnection withoutReadFrom = new ReplicaReadConnection(reactiveRedisTemplate.getConnectionFactory(), "",
+                new String[]{"localhost:6380"});
+        assert !withoutReadFrom.isEnabled();
+        //standalone primary - replicas are not discovered
+        ReplicaReadConnection withoutNodes = new ReplicaReadConnection(reactiveRedisTemplate.getConnectionFactory(),
+                "replicaPreferred", new String[0]);
+        assert !withoutNodes.isEnabled();
+        assert withoutNodes.getConnectionFactory() == null;
+    }
+
+    @Test
+    void test_nearCache_keyInvalidatedByOtherInstanceReadFromPrimary() {
+        ReplicaReadConnection replicaReadConnection = replicaReadConnection();
+        ReactiveRedisTemplate<String, byte[]> replicaTemplate = CacheKeyRouter.cacheTemplate(replicaReadConnection.getConnectionFactory());
+        RedisShards noShards = new RedisShards(new String[0], null);
+        CacheKeyRouter keyRouter = new CacheKeyRouter(redisReactiveCacheTemplate, replicaTemplate, noShards, 160, false,
+                new RecentWrites(Duration.ofMinutes(1), 100));
+        String channel = "test:invalidation:replica:" + faker.name().firstName();
+        NearCache publisher = new NearCache(reactiveRedisTemplate, cacheKeyRouter, true, channel, 100, Duration.ofMinutes(1));
+        NearCache listener = new NearCache(reactiveRedisTemplate, keyRouter, true, channel, 100, Duration.ofMinutes(1));
+        listener.afterPropertiesSet();
+        try {
+            listener.awaitConnected().block(Duration.ofSeconds(5));
+            String key = faker.name().firstName();
+            assert keyRouter.forRead(key) == replicaTemplate;
+
+            //other instance changed the key - replica may not have received the change yet
+            publisher.invalidate(key);
+            StepVerifier.create(Mono.fromSupplier(() -> keyRouter.forRead(key) == redisReactiveCacheTemplate)
+                            .filter(primary -> primary)
+                            .repeatWhenEmpty(repeat -> repeat.take(50).delayElements(Duration.ofMillis(20))))
+                    .expectNext(true)
+                    .verifyComplete();
+            assert keyRouter.forRead(key + "_other") == replicaTemplate;
+        } finally {
+            listener.destroy();
+            replicaReadConnection.destroy();
+        }
+    }
+
+    @Test
+    void test_writeQueue_batch_changeSupersedesLaterFill() {
+        CacheWriteQueue writeQueue = writeQueue(100, OverflowPolicy.DROP_NEWEST, true);
+        String updatedKey = faker.name().firstName() + "_updated";
+        String evictedKey = faker.name().firstName() + "_evicted";
+        byte[] updated = "updated".getBytes(StandardCharsets.UTF_8);
+        byte[] stale = "stale".getBytes(StandardCharsets.UTF_8);
+
+        //fills of records loaded before Update/Evict, queued after them within the same batch
+        writeQueue.set(updatedKey, updated, null, true, Collections.emptyList(), 2000);
+        writeQueue.set(updatedKey, stale, null, false, Collections.emptyList(), 1000);
+        writeQueue.delete(evictedKey, 2000);
+        writeQueue.set(evictedKey, stale, null, false, Collections.emptyList(), 1000);
+        //sends the batch
+        writeQueue.destroy();
+
+        StepVerifier.create(awaitValue(updatedKey))
+                .expectNextMatches(value -> Arrays.equals(value, updated))
+                .verifyComplete();
+        StepVerifier.create(awaitValue(CacheWriteQueue.versionKey(evictedKey)))
+                .expectNextMatches(version -> new String(version, StandardCharsets.US_ASCII).equals("2000"))
+                .verifyComplete();
+        StepVerifier.create(redisReactiveCacheTemplate.hasKey(evictedKey))
+                .expectNext(false)
+                .verifyComplete();
+        //version of changed value without ttl doesn't live forever
+        StepVerifier.create(redisReactiveCacheTemplate.getExpire(CacheWriteQueue.versionKey(updatedKey)))
+                .expectNextMatches(ttl -> ttl.compareTo(Duration.ZERO) > 0)
+                .verifyComplete();
+    }
+
+    @Test
+    void test_writeQueue_batch_newerVersionWins() {
+        CacheWriteQueue writeQueue = writeQueue(100, OverflowPolicy.DROP_NEWEST, true);
+        String key = faker.name().firstName();
+        byte[] newer = "newer".getBytes(StandardCharsets.UTF_8);
+
+        //changes of the same key queued out of version order
+        writeQueue.set(key, newer, Duration.ofMinutes(1), true, Collections.emptyList(), 3000);
+        writeQueue.set(key, "older".getBytes(StandardCharsets.UTF_8), Duration.ofMinutes(1), true, Collections.emptyList(), 2000);
+        writeQueue.destroy();
+
+        StepVerifier.create(awaitValue(key))
+                .expectNextMatches(value -> Arrays.equals(value, newer))
+                .verifyComplete();
+    }
+
+    @Test
+    void test_writeQueue_dropNewest() {
+        //capacity 2, nothing is sent before destroy()
+        CacheWriteQueue writeQueue = writeQueue(2, OverflowPolicy.DROP_NEWEST, true);
+        String name = faker.name().firstName();
+        writeQueue.set(name + "_1", "1".getBytes(StandardCharsets.UTF_8), null, false);
+        writeQueue.set(name + "_2", "2".getBytes(StandardCharsets.UTF_8), null, false);
+        writeQueue.set(name + "_3", "3".getBytes(StandardCharsets.UTF_8), null, false);
+        assert writeQueue.getDepth() == 2;
+        assert writeQueue.getDroppedCount() == 1;
+        writeQueue.destroy();
+
+        StepVerifier.create(awaitValue(name + "_2")).expectNextCount(1).verifyComplete();
+        StepVerifier.create(redisReactiveCacheTemplate.hasKey(name + "_1")).expectNext(true).verifyComplete();
+        StepVerifier.create(redisReactiveCacheTemplate.hasKey(name + "_3")).expectNext(false).verifyComplete();
+    }
+
+    @Test
+    void test_writeQueue_dropOldest() {
+        CacheWriteQueue writeQueue = writeQueue(2, OverflowPolicy.DROP_OLDEST, true);
+        String name = faker.name().firstName();
+        writeQueue.set(name + "_1", "1".getBytes(StandardCharsets.UTF_8), null, false);
+        writeQueue.set(name + "_2", "2".getBytes(StandardCharsets.UTF_8), null, false);
+        writeQueue.set(name + "_3", "3".getBytes(StandardCharsets.UTF_8), null, false);
+        assert writeQueue.getDepth() == 2;
+        assert writeQueue.getDroppedCount() == 1;
+        writeQueue.destroy();
+
+        StepVerifier.create(awaitValue(name + "_3")).expectNextCount(1).verifyComplete();
+        StepVerifier.create(redisReactiveCacheTemplate.hasKey(name + "_2")).expectNext(true).verifyComplete();
+        StepVerifier.create(redisReactiveCacheTemplate.hasKey(name + "_1")).expectNext(false).verifyComplete();
+    }
+
+    @Test
+    void test_writeQueue_skip() {
+        CacheWriteQueue writeQueue = writeQueue(2, OverflowPolicy.SKIP, true);
+        String name = faker.name().firstName();
+        assert writeQueue.acceptsWrites();
+        writeQueue.set(name + "_1", "1".getBytes(StandardCharsets.UTF_8), null, false);
+        writeQueue.set(name + "_2", "2".getBytes(StandardCharsets.UTF_8), null, false);
+
+        //full queue - response is not even encoded
+        assert !writeQueue.acceptsWrites();
+        assert writeQueue.getSkippedCount() == 1;
+        writeQueue.destroy();
+
+        StepVerifier.create(awaitValue(name + "_2")).expectNextCount(1).verifyComplete();
+        StepVerifier.create(Mono.fromSupplier(writeQueue::acceptsWrites)
+                        .filter(accepts -> accepts)
+                        .repeatWhenEmpty(repeat -> repeat.take(50).delayElements(Duration.ofMillis(20))))
+                .expectNext(true)
+                .verifyComplete();
+    }
+
+    @Test
+    void test_writeQueue_changedWriteOverCapacityDeletesKey() {
+        String name = faker.name().firstName();
+        String changedKey = name + "_changed";
+        redisReactiveCacheTemplate.opsForValue().set(changedKey, "previous".getBytes(StandardCharsets.UTF_8)).block();
+        //pending writes are changes as well - DROP_OLDEST has no fill to drop
+        CacheWriteQueue writeQueue = writeQueue(2, OverflowPolicy.DROP_OLDEST, true);
+        writeQueue.set(name + "_1", "1".getBytes(StandardCharsets.UTF_8), null, true);
+        writeQueue.set(name + "_2", "2".getBytes(StandardCharsets.UTF_8), null, true);
+        AtomicInteger written = new AtomicInteger();
+        writeQueue.set(changedKey, "changed".getBytes(StandardCharsets.UTF_8), null, true, Collections.emptyList(), 0,
+                written::incrementAndGet);
+
+        //previous value must not stay cached - write is replaced with delete, queued over capacity
+        assert writeQueue.getDroppedCount() == 1;
+        assert writeQueue.getDepth() == 3;
+        writeQueue.destroy();
+
+        StepVerifier.create(Mono.fromSupplier(written::get)
+                        .filter(count -> count > 0)
+                        .repeatWhenEmpty(repeat -> repeat.take(50).delayElements(Duration.ofMillis(20))))
+                .expectNext(1)
+                .verifyComplete();
+        StepVerifier.create(redisReactiveCacheTemplate.hasKey(changedKey)).expectNext(false).verifyComplete();
+        StepVerifier.create(redisReactiveCacheTemplate.hasKey(name + "_1")).expectNext(true).verifyComplete();
+    }
+
+    @Test
+    void test_writeQueue_onWrittenRunsAfterWrite() {
+        CacheWriteQueue writeQueue = writeQueue(100, OverflowPolicy.DROP_NEWEST, false);
+        String key = faker.name().firstName();
+        byte[] value = "changed".getBytes(StandardCharsets.UTF_8);
+        //the value is already in Redis when the callback runs
+        Mono<byte[]> writtenValue = Mono.create(sink -> writeQueue.set(key, value, null, true, Collections.emptyList(), 0,
+                () -> redisReactiveCacheTemplate.opsForValue().get(key).subscribe(sink::success, sink::error)));
+
+        StepVerifier.create(writtenValue)
+                .expectNextMatches(read -> Arrays.equals(read, value))
+                .verifyComplete();
+        assert writeQueue.getInFlight() == 0;
+        assert writeQueue.getDepth() == 0;
+    }
+
+    @Test
+    void test_getFromSlowDb_concurrentCacheMisses() {
+        String name = faker.name().firstName();
+
+        StepVerifier.create(Flux.range(0, 20).flatMap(index -> testService.getFromSlowDb(name)))
+                .expectNextCount(20)
+                .verifyComplete();
+        //concurrent misses of the same key share single DB call
+        assert testService.methodCall.get() == 1;
+    }
+
     @Test
     void test_getMultipleFromDb_whenCacheExists() throws InterruptedException {
 
@@ -196,6 +907,184 @@ class RedisReactiveCacheTest {
         assert testService.methodCall.get() == 1;
     }
 
+    @Test
+    void test_getAllFromDb_whenSomeCacheExists() throws InterruptedException {
+
+        List<String> names = IntStream.range(0, 10).mapToObj(index -> faker.name().firstName() + index).collect(Collectors.toList());
+        //Create cache of the first record to exist
+        reactiveRedisTemplate.opsForValue().set("person_" + names.get(0), new TestTable(99, names.get(0), LocalDateTime.now())).block();
+
+        StepVerifier.create(testService.getAllFromDb(names))
+                .expectNextMatches(testTable -> testTable.getId() == 99 && testTable.getName().equals(names.get(0)))
+                .expectNextCount(names.size() - 1)
+                .verifyComplete();
+        //only missing records are loaded, and cached in background
+        Mono<Long> cachedCount = Flux.fromIterable(names)
+                .flatMap(name -> reactiveRedisTemplate.opsForValue().size("person_" + name))
+                .filter(size -> (Long) size > 0).count();
+        StepVerifier.create(cachedCount
+                        .filter(count -> count == names.size())
+                        .repeatWhenEmpty(repeat -> repeat.take(50).delayElements(Duration.ofMillis(20))))
+                .expectNext((long) names.size())
+                .verifyComplete();
+
+        StepVerifier.create(testService.getAllFromDb(names).map(TestTable::getName))
+                .expectNextSequence(names)
+                .verifyComplete();
+        assert testService.methodCall.get() == 1;
+    }
+
+    @Test
+    void test_getPeopleFromDb_normalizedEntities() throws InterruptedException {
+
+        List<String> names = IntStream.range(0, 10).mapToObj(index -> faker.name().firstName() + index).collect(Collectors.toList());
+        testService.getPeopleFromDb(names).collectList().block();
+        //every record is cached once under its entity key, list key holds ids only
+        Mono<Long> cachedCount = Flux.fromIterable(names)
+                .flatMap(name -> reactiveRedisTemplate.opsForValue().size("person_" + name))
+                .filter(size -> (Long) size > 0).count();
+        StepVerifier.create(cachedCount
+                        .filter(count -> count == names.size())
+                        .repeatWhenEmpty(repeat -> repeat.take(50).delayElements(Duration.ofMillis(20))))
+                .expectNext((long) names.size())
+                .verifyComplete();
+        StepVerifier.create(reactiveRedisTemplate.opsForValue().get(calculateCacheKey("people", names))
+                        .repeatWhenEmpty(repeat -> repeat.take(50).delayElements(Duration.ofMillis(20))))
+                .expectNext(names)
+                .verifyComplete();
+
+        //single entity change is visible in the cached list
+        reactiveRedisTemplate.opsForValue().set("person_" + names.get(0), new TestTable(99, names.get(0), LocalDateTime.now())).block();
+
+        StepVerifier.create(testService.getPeopleFromDb(names))
+                .expectNextMatches(testTable -> testTable.getId() == 99 && testTable.getName().equals(names.get(0)))
+                .expectNextCount(names.size() - 1)
+                .verifyComplete();
+        assert testService.methodCall.get() == 1;
+    }
+
+    @Test
+    void test_updatePerson_duringEntitiesCacheMissLoad() throws InterruptedException {
+
+        List<String> names = IntStream.range(0, 10).mapToObj(index -> faker.name().firstName() + index).collect(Collectors.toList());
+        //Cache miss loading the entities before one of them is updated
+        Mono<List<TestTable>> slowLoad = testService.getPeopleFromSlowDb(names).collectList().cache();
+        slowLoad.subscribe();
+        Thread.sleep(50);
+
+        //Updating single entity
+        testService.updatePerson(new TestTable(99, names.get(0), LocalDateTime.now())).block();
+        slowLoad.block();
+
+        //fill of the other entities lands, the updated one keeps the newer value
+        StepVerifier.create(awaitKey("person_" + names.get(names.size() - 1), true))
+                .expectNext(true)
+                .verifyComplete();
+        StepVerifier.create(reactiveRedisTemplate.hasKey(CacheWriteQueue.versionKey("person_" + names.get(0))))
+                .expectNext(true)
+                .verifyComplete();
+        StepVerifier.create(reactiveRedisTemplate.opsForValue().get("person_" + names.get(0)))
+                .expectNextMatches(testTable -> ((TestTable) testTable).getId() == 99)
+                .verifyComplete();
+
+        StepVerifier.create(testService.getPeopleFromSlowDb(names))
+                .expectNextMatches(testTable -> testTable.getId() == 99 && testTable.getName().equals(names.get(0)))
+                .expectNextCount(names.size() - 1)
+                .verifyComplete();
+        assert testService.methodCall.get() == 2;
+    }
+
+    @Test
+    void test_getMultipleFromDbStreaming() throws InterruptedException {
+
+        List<String> names = IntStream.range(0, 10).mapToObj(index -> faker.name().firstName()).collect(Collectors.toList());
+        String cacheKey = calculateCacheKey("streamed", names);
+
+        List<TestTable> testTables = testService.getMultipleFromDbStreaming(names).collectList().block();
+
+        //list is committed in background after the stream completes, generation header and the elements
+        Mono<Long> cachedListSize = reactiveRedisTemplate.opsForList().size(cacheKey);
+        StepVerifier.create(cachedListSize
+                        .filter(size -> size == testTables.size() + 1)
+                        .repeatWhenEmpty(repeat -> repeat.take(50).delayElements(Duration.ofMillis(20))))
+                .expectNext((long) testTables.size() + 1)
+                .verifyComplete();
+
+        StepVerifier.create(testService.getMultipleFromDbStreaming(names).map(TestTable::getName))
+                .expectNextSequence(names)
+                .verifyComplete();
+        assert testService.methodCall.get() == 1;
+    }
+
+    //list of prefix1..prefixN, returns once committed
+    private void writeList(RedisListStream listStream, String key, String prefix, int size) {
+        AtomicInteger commits = new AtomicInteger();
+        StepVerifier.create(listStream.write(key, Flux.range(1, size).map(index -> prefix + index),
+                        value -> String.valueOf(value).getBytes(StandardCharsets.UTF_8), null, commits::incrementAndGet))
+                .expectNextCount(size)
+                .verifyComplete();
+        StepVerifier.create(Mono.fromSupplier(commits::get)
+                        .filter(count -> count == 1)
+                        .repeatWhenEmpty(repeat -> repeat.take(50).delayElements(Duration.ofMillis(20))))
+                .expectNext(1)
+                .verifyComplete();
+    }
+
+    @Test
+    void test_redisListStream_listReplacedWhileReadFails() {
+        RedisListStream listStream = new RedisListStream(cacheKeyRouter, 2, Duration.ofMinutes(1));
+        String key = faker.name().firstName() + "_stream";
+        writeList(listStream, key, "first", 7);
+
+        //pages read before the replacement are returned, no element of the new list
+        StepVerifier.create(listStream.read(key).map(element -> new String(element, StandardCharsets.UTF_8)), 1)
+                .expectNext("first1")
+                .then(() -> writeList(listStream, key, "second", 7))
+                .thenRequest(Long.MAX_VALUE)
+                .thenConsumeWhile(element -> element.startsWith("first"))
+                .expectError(ConcurrentModificationException.class)
+                .verify(Duration.ofSeconds(5));
+
+        StepVerifier.create(listStream.read(key).map(element -> new String(element, StandardCharsets.UTF_8)))
+                .expectNext("second1", "second2", "second3", "second4", "second5", "second6", "second7")
+                .verifyComplete();
+    }
+
+    @Test
+    void test_redisListStream_listDeletedWhileReadFails() {
+        RedisListStream listStream = new RedisListStream(cacheKeyRouter, 2, Duration.ofMinutes(1));
+        String key = faker.name().firstName() + "_stream";
+        writeList(listStream, key, "first", 7);
+
+        //not completed as truncated list
+        StepVerifier.create(listStream.read(key).map(element -> new String(element, StandardCharsets.UTF_8)), 1)
+                .expectNext("first1")
+                .then(() -> redisReactiveCacheTemplate.delete(key).block())
+                .thenRequest(Long.MAX_VALUE)
+                .thenConsumeWhile(element -> element.startsWith("first"))
+                .expectError(ConcurrentModificationException.class)
+                .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    void test_redisListStream_writeGivesUpWhenRedisFallsBehind() {
+        RedisListStream listStream = new RedisListStream(cacheKeyRouter, 1, Duration.ofMinutes(1));
+        String key = faker.name().firstName() + "_stream";
+        AtomicInteger commits = new AtomicInteger();
+
+        //source is not slowed down by Redis, caching is abandoned once the buffer is full
+        StepVerifier.create(listStream.write(key, Flux.range(1, 10000).map(String::valueOf),
+                        value -> String.valueOf(value).getBytes(StandardCharsets.UTF_8), null, commits::incrementAndGet))
+                .expectNextCount(10000)
+                .verifyComplete();
+        //neither the list nor its temporary list are left
+        StepVerifier.create(Mono.delay(Duration.ofMillis(500))
+                        .then(reactiveRedisTemplate.getConnectionFactory().getReactiveConnection().serverCommands().dbSize()))
+                .expectNext(0L)
+                .verifyComplete();
+        assert commits.get() == 0;
+    }
+
     @Test
     void test_updateDbRecord_whenCacheExists() throws InterruptedException {
         TestTable oldCache = new TestTable(1, faker.name().firstName(), LocalDateTime.now());
@@ -316,6 +1205,28 @@ class RedisReactiveCacheTest {
         assert testService.methodCall.get() == 1;
     }
 
+    @Test
+    void test_deleteDbRec_duringCacheMissLoad() throws InterruptedException {
+        String name = faker.name().firstName();
+        //Cache miss loading the record before it's deleted
+        Mono<TestTable> slowLoad = testService.getFromSlowDb(name).cache();
+        slowLoad.subscribe();
+        Thread.sleep(50);
+
+        //Deleting
+        testService.deleteDbRec(new TestTable(1, name, LocalDateTime.now())).block();
+        slowLoad.block();
+
+        //Tombstone keeps the older load out of cache
+        StepVerifier.create(reactiveRedisTemplate.hasKey("{" + name + "}:v"))
+                .expectNext(true)
+                .verifyComplete();
+        StepVerifier.create(reactiveRedisTemplate.opsForValue().get(name).log())
+                .expectNextCount(0)
+                .verifyComplete();
+        assert testService.methodCall.get() == 2;
+    }
+
     @Test
     void test_deleteDbRec_whenCacheDoesntExists() throws InterruptedException {
         String name = faker.name().firstName();
@@ -348,6 +1259,30 @@ class RedisReactiveCacheTest {
         assert testService.methodCall.get() == 1;
     }
 
+    @Test
+    void test_deleteMultipleDbRecs_invalidatesTaggedGroup() throws InterruptedException {
+
+        List<String> names = IntStream.range(0, 10).mapToObj(index -> faker.name().firstName()).collect(Collectors.toList());
+        List<String> otherNames = names.subList(0, 5);
+        testService.getTaggedMultipleFromDb(names).collectList().block();
+        testService.getTaggedMultipleFromDb(otherNames).collectList().block();
+        //Both results are cached under different args hash, registered in "taggedNames" group
+        StepVerifier.create(reactiveRedisTemplate.opsForSet().size("taggedNames:tag")
+                        .filter(size -> (Long) size == 2)
+                        .repeatWhenEmpty(repeat -> repeat.take(50).delayElements(Duration.ofMillis(20))))
+                .expectNext(2L)
+                .verifyComplete();
+
+        //Deleting with args which hash matches none of them
+        testService.deleteTaggedMultipleDbRecs(List.of(new TestTable(0, names.get(0), LocalDateTime.now()))).block();
+
+        StepVerifier.create(reactiveRedisTemplate.countExistingKeys(List.of(calculateCacheKey("taggedNames", names),
+                        calculateCacheKey("taggedNames", otherNames), "taggedNames:tag")))
+                .expectNext(0L)
+                .verifyComplete();
+        assert testService.methodCall.get() == 3;
+    }
+
     @Test
     void test_deleteMultipleDbRecs_whenCacheDoesntExists() throws InterruptedException {
 
@@ -0,0 +1,121 @@
+package com.vsware.libraries.redisreactivecache;
+
+import com.vsware.libraries.redisreactivecache.codec.CacheCodecs;
+import com.vsware.libraries.redisreactivecache.config.RedisTestContainerConfig;
+import com.vsware.libraries.redisreactivecache.metadata.CacheMethodMetadataRegistry;
+import com.vsware.libraries.redisreactivecache.metadata.CacheOperation;
+import com.vsware.libraries.redisreactivecache.model.TestTable;
+import com.vsware.libraries.redisreactivecache.nearcache.NearCache;
+import com.vsware.libraries.redisreactivecache.service.TestService;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import reactor.test.StepVerifier;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+Startup warm-up of the application context: annotated methods resolved, hot keys file preloaded into near cache
+ */
+@SpringBootTest(properties = "spring.redis.near_cache_enabled=true")
+class RedisReactiveCacheWarmUpTest {
+
+    private static final List<String> HOT_KEYS = List.of("warm_1", "warm_2", "warm_3");
+
+    @DynamicPropertySource
+    static void hotKeysFile(DynamicPropertyRegistry registry) throws IOException {
+        List<String> lines = new ArrayList<>();
+        lines.add("# exported hot keys");
+        HOT_KEYS.forEach(key -> lines.add("TestService.getNearCachedFromDb " + key));
+        //not cached - not loaded
+        lines.add("TestService.getNearCachedFromDb warm_missing");
+        //method without near cache - skipped
+        lines.add("TestService.getFromDb warm_1");
+        Path file = Files.createTempFile("hot-keys", ".txt");
+        file.toFile().deleteOnExit();
+        Files.write(file, lines, StandardCharsets.UTF_8);
+        registry.add("spring.redis.warmup_hot_keys_file", file::toString);
+    }
+
+    /*
+    Cached values of the hot keys, written while the singletons are created - before the warm-up runs
+     */
+    @TestConfiguration
+    static class HotKeysConfig {
+
+        @Bean
+        public HotKeys hotKeys(ReactiveRedisTemplate<String, byte[]> redisReactiveCacheTemplate, CacheCodecs cacheCodecs) {
+            for (String key : HOT_KEYS) {
+                redisReactiveCacheTemplate.opsForValue()
+                        .set(key, cacheCodecs.getDefault().encode(new TestTable(1, key, LocalDateTime.now())))
+                        .block();
+            }
+            return new HotKeys();
+        }
+    }
+
+    static class HotKeys {
+    }
+
+    @Autowired
+    private TestService testService;
+    @Autowired
+    private CacheMethodMetadataRegistry cacheMethodMetadataRegistry;
+    @Autowired
+    private NearCache nearCache;
+    @Autowired
+    private ReactiveRedisTemplate<String, byte[]> redisReactiveCacheTemplate;
+
+    @AfterEach
+    void cleanRedis() {
+        redisReactiveCacheTemplate.getConnectionFactory().getReactiveConnection().serverCommands().flushAll().block();
+        testService.methodCall.set(0);
+    }
+
+    @AfterAll
+    static void stopTestContainer() {
+        RedisTestContainerConfig.redisContainer.stop();
+    }
+
+    @Test
+    void test_warmUp_resolvesAnnotatedMethods() {
+        int annotated = 0;
+        for (Method method : TestService.class.getMethods()) {
+            for (CacheOperation operation : CacheOperation.values()) {
+                if (!method.isAnnotationPresent(operation.getAnnotationType()))
+                    continue;
+                annotated++;
+                assert cacheMethodMetadataRegistry.isResolved(operation, method) : method;
+            }
+        }
+        assert annotated > 0;
+    }
+
+    @Test
+    void test_warmUp_preloadsHotKeysIntoNearCache() throws InterruptedException {
+        //only cached keys of near cache method
+        assert nearCache.size() == HOT_KEYS.size() : nearCache.size();
+        for (String key : HOT_KEYS) {
+            assert nearCache.get(key) != null : key;
+            StepVerifier.create(testService.getNearCachedFromDb(key).map(TestTable::getName))
+                    .expectNext(key)
+                    .verifyComplete();
+        }
+        assert nearCache.get("warm_missing") == null;
+        assert testService.methodCall.get() == 0;
+    }
+}
@@ -0,0 +1,246 @@
+package com.vsware.libraries.redisreactivecache;
+
+import com.github.javafaker.Faker;
+import com.vsware.libraries.redisreactivecache.cluster.CacheKeyRouter;
+import com.vsware.libraries.redisreactivecache.cluster.RedisShards;
+import com.vsware.libraries.redisreactivecache.config.RedisTestContainerConfig;
+import com.vsware.libraries.redisreactivecache.model.TestTable;
+import com.vsware.libraries.redisreactivecache.service.TestService;
+import com.vsware.libraries.redisreactivecache.write.CacheWriteQueue;
+import com.vsware.libraries.redisreactivecache.write.OverflowPolicy;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/*
+Cache keys sharded across two standalone Redis nodes (spring.redis.shards)
+ */
+@SpringBootTest
+@Testcontainers
+class RedisShardsTest {
+
+    @Container
+    static GenericContainer shard1 = new GenericContainer(DockerImageName.parse("redis:6.2.6-alpine"))
+            .withExposedPorts(6379);
+    @Container
+    static GenericContainer shard2 = new GenericContainer(DockerImageName.parse("redis:6.2.6-alpine"))
+            .withExposedPorts(6379);
+
+    @DynamicPropertySource
+    static void shards(DynamicPropertyRegistry registry) {
+        registry.add("spring.redis.shards", () -> shard1.getHost() + ":" + shard1.getMappedPort(6379) + ","
+                + shard2.getHost() + ":" + shard2.getMappedPort(6379));
+    }
+
+    @Autowired
+    private TestService testService;
+    @Autowired
+    private Faker faker;
+    @Autowired
+    private CacheKeyRouter cacheKeyRouter;
+    @Autowired
+    private RedisShards redisShards;
+
+    @AfterEach
+    void cleanRedis() {
+        Flux.fromIterable(shardTemplates())
+                .flatMap(template -> template.getConnectionFactory().getReactiveConnection().serverCommands().flushAll())
+                .blockLast();
+        testService.methodCall.set(0);
+    }
+
+    @AfterAll
+    static void stopTestContainer() {
+        RedisTestContainerConfig.redisContainer.stop();
+    }
+
+    private List<ReactiveRedisTemplate<String, byte[]>> shardTemplates() {
+        return new ArrayList<>(redisShards.getTemplates().values());
+    }
+
+    private List<String> keys(int count) {
+        String prefix = faker.name().firstName();
+        return IntStream.range(0, count).mapToObj(index -> prefix + "_" + index).collect(Collectors.toList());
+    }
+
+    //shards holding the key
+    private Mono<List<ReactiveRedisTemplate<String, byte[]>>> holders(String key) {
+        return Flux.fromIterable(shardTemplates())
+                .filterWhen(template -> template.hasKey(key))
+                .collectList();
+    }
+
+    private Mono<Boolean> awaitKey(String key, boolean exists) {
+        return holders(key)
+                .map(holders -> !holders.isEmpty())
+                .filter(found -> found == exists)
+                .repeatWhenEmpty(repeat -> repeat.take(50).delayElements(Duration.ofMillis(20)));
+    }
+
+    private CacheWriteQueue writeQueue() {
+        return new CacheWriteQueue(cacheKeyRouter, 100, 4, OverflowPolicy.DROP_NEWEST, false, 100,
+                Duration.ofMinutes(1).toNanos() / 1000, Duration.ofMinutes(1), Timer.builder("test.write").register(new SimpleMeterRegistry()));
+    }
+
+    @Test
+    void test_getFromDb_keysWrittenToTheirShard() throws InterruptedException {
+        List<String> names = keys(20);
+        for (String name : names) {
+            testService.getFromDb(name).block();
+        }
+        for (String name : names) {
+            StepVerifier.create(awaitKey(name, true)).expectNext(true).verifyComplete();
+            StepVerifier.create(holders(name))
+                    .expectNextMatches(holders -> holders.size() == 1 && holders.get(0) == cacheKeyRouter.forWrite(name))
+                    .verifyComplete();
+        }
+        //both nodes got their share
+        for (ReactiveRedisTemplate<String, byte[]> template : shardTemplates()) {
+            StepVerifier.create(template.getConnectionFactory().getReactiveConnection().serverCommands().dbSize())
+                    .expectNextMatches(size -> size > 0)
+                    .verifyComplete();
+        }
+
+        //served from the shards
+        for (String name : names) {
+            StepVerifier.create(testService.getFromDb(name).map(TestTable::getName))
+                    .expectNext(name)
+                    .verifyComplete();
+        }
+        assert testService.methodCall.get() == names.size();
+    }
+
+    @Test
+    void test_multiSet_splitPerShard() {
+        List<String> keys = keys(20);
+        Map<String, byte[]> values = new LinkedHashMap<>();
+        keys.forEach(key -> values.put(key, key.getBytes(StandardCharsets.UTF_8)));
+        cacheKeyRouter.multiSet(values).block();
+
+        for (String key : keys) {
+            StepVerifier.create(holders(key))
+                    .expectNextMatches(holders -> holders.size() == 1 && holders.get(0) == cacheKeyRouter.forWrite(key))
+                    .verifyComplete();
+        }
+        for (ReactiveRedisTemplate<String, byte[]> template : shardTemplates()) {
+            StepVerifier.create(template.getConnectionFactory().getReactiveConnection().serverCommands().dbSize())
+                    .expectNextMatches(size -> size > 0)
+                    .verifyComplete();
+        }
+    }
+
+    @Test
+    void test_multiGet_restoresKeyOrderAcrossShards() {
+        List<String> keys = keys(20);
+        Map<String, byte[]> values = new LinkedHashMap<>();
+        keys.forEach(key -> values.put(key, key.getBytes(StandardCharsets.UTF_8)));
+        cacheKeyRouter.multiSet(values).block();
+
+        //missing key keeps its position as null
+        List<String> requested = new ArrayList<>(keys);
+        requested.add(5, keys.get(0) + "_missing");
+        StepVerifier.create(cacheKeyRouter.multiGet(requested))
+                .expectNextMatches(found -> {
+                    for (int i = 0; i < requested.size(); i++) {
+                        String value = found.get(i) != null ? new String(found.get(i), StandardCharsets.UTF_8) : null;
+                        if (i == 5 ? value != null : !requested.get(i).equals(value))
+                            return false;
+                    }
+                    return found.size() == requested.size();
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void test_getAllFromDb_orderRestoredAcrossShards() throws InterruptedException {
+        List<String> names = keys(20);
+        testService.getAllFromDb(names).collectList().block();
+        List<String> personKeys = names.stream().map(name -> "person_" + name).collect(Collectors.toList());
+        StepVerifier.create(cacheKeyRouter.multiGet(personKeys)
+                        .filter(found -> found.stream().allMatch(Objects::nonNull))
+                        .repeatWhenEmpty(repeat -> repeat.take(50).delayElements(Duration.ofMillis(20))))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        StepVerifier.create(testService.getAllFromDb(names).map(TestTable::getName))
+                .expectNextSequence(names)
+                .verifyComplete();
+        assert testService.methodCall.get() == 1;
+    }
+
+    @Test
+    void test_invalidateTags_deletesMembersOnEveryShard() {
+        CacheWriteQueue writeQueue = writeQueue();
+        List<String> keys = keys(20);
+        String tagKey = keys.get(0) + ":tag";
+        for (String key : keys) {
+            writeQueue.set(key, key.getBytes(StandardCharsets.UTF_8), Duration.ofMinutes(1), false, List.of(tagKey));
+        }
+        for (String key : keys) {
+            StepVerifier.create(awaitKey(key, true)).expectNext(true).verifyComplete();
+        }
+
+        //tag set is popped from its node, members deleted on theirs
+        List<String> invalidated = new CopyOnWriteArrayList<>();
+        writeQueue.invalidateTags(List.of(tagKey), invalidated::addAll);
+        for (String key : keys) {
+            StepVerifier.create(awaitKey(key, false)).expectNext(false).verifyComplete();
+        }
+        StepVerifier.create(awaitKey(tagKey, false)).expectNext(false).verifyComplete();
+        StepVerifier.create(Mono.fromSupplier(invalidated::size)
+                        .filter(size -> size == keys.size())
+                        .repeatWhenEmpty(repeat -> repeat.take(50).delayElements(Duration.ofMillis(20))))
+                .expectNext(keys.size())
+                .verifyComplete();
+        assert invalidated.containsAll(keys);
+    }
+
+    @Test
+    void test_taggedWriteNotOvertakenByLaterDelete() {
+        CacheWriteQueue writeQueue = writeQueue();
+        String tagKey = faker.name().firstName() + ":tag";
+        //keys on the other node than their tag set - registered by a script of its own
+        List<String> keys = keys(200).stream()
+                .filter(key -> cacheKeyRouter.forWrite(key) != cacheKeyRouter.forWrite(tagKey))
+                .collect(Collectors.toList());
+        for (String key : keys) {
+            writeQueue.set(key, key.getBytes(StandardCharsets.UTF_8), Duration.ofMinutes(1), false, List.of(tagKey));
+            writeQueue.delete(key);
+        }
+        StepVerifier.create(Mono.fromSupplier(() -> writeQueue.getDepth() + writeQueue.getInFlight())
+                        .filter(pending -> pending == 0)
+                        .repeatWhenEmpty(repeat -> repeat.take(50).delayElements(Duration.ofMillis(20))))
+                .expectNext(0)
+                .verifyComplete();
+        for (String key : keys) {
+            StepVerifier.create(holders(key))
+                    .expectNextMatches(List::isEmpty)
+                    .verifyComplete();
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.vsware.libraries.redisreactivecache.cache;
+
+import com.vsware.libraries.redisreactivecache.model.TestTable;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+class CacheSpecTest {
+
+    //built on every call, resultId captures the argument
+    private static CacheSpec<TestTable> perCallSpec(String prefix) {
+        return CacheSpec.of("testTables", TestTable.class)
+                .ttl(Duration.ofMinutes(1))
+                .resultId(testTable -> prefix + testTable.getId())
+                .build();
+    }
+
+    @Test
+    void test_equals_specsBuiltPerCallAreEqual() {
+        CacheSpec<TestTable> first = perCallSpec("a");
+        CacheSpec<TestTable> second = perCallSpec("b");
+
+        //resolved once - metadata registry doesn't grow with every call
+        assert first.equals(second);
+        assert first.hashCode() == second.hashCode();
+    }
+
+    @Test
+    void test_equals_differentResultIdNotEqual() {
+        CacheSpec<TestTable> byId = CacheSpec.of("testTables", TestTable.class)
+                .ttl(Duration.ofMinutes(1))
+                .resultId(TestTable::getId)
+                .build();
+        CacheSpec<TestTable> byName = CacheSpec.of("testTables", TestTable.class)
+                .ttl(Duration.ofMinutes(1))
+                .resultId(TestTable::getName)
+                .build();
+        CacheSpec<TestTable> withoutResultId = CacheSpec.of("testTables", TestTable.class)
+                .ttl(Duration.ofMinutes(1))
+                .build();
+
+        assert !byId.equals(byName);
+        assert !byId.equals(withoutResultId);
+        assert !perCallSpec("a").equals(byId);
+    }
+
+    @Test
+    void test_equals_differentSettingsNotEqual() {
+        CacheSpec<TestTable> spec = CacheSpec.of("testTables", TestTable.class).ttl(Duration.ofMinutes(1)).build();
+
+        assert spec.equals(CacheSpec.of("testTables", TestTable.class).ttl(Duration.ofMinutes(1)).build());
+        assert !spec.equals(CacheSpec.of("testTables", TestTable.class).ttl(Duration.ofMinutes(2)).build());
+        assert !spec.equals(CacheSpec.of("otherTables", TestTable.class).ttl(Duration.ofMinutes(1)).build());
+        assert !spec.equals(CacheSpec.of("testTables", TestTable.class).ttl(Duration.ofMinutes(1)).nearCache(true).build());
+    }
+}
@@ -0,0 +1,114 @@
+package com.vsware.libraries.redisreactivecache.circuit;
+
+import org.junit.jupiter.api.Test;
+
+class RedisCircuitBreakerTest {
+
+    private static final int FAILURE_THRESHOLD = 3;
+
+    //open duration 0 - trial read is allowed right after opening
+    private final RedisCircuitBreaker circuitBreaker = new RedisCircuitBreaker(true, FAILURE_THRESHOLD, 0);
+
+    private void open() {
+        for (int i = 0; i < FAILURE_THRESHOLD; i++)
+            circuitBreaker.onFailure(circuitBreaker.tryAcquire());
+        assert circuitBreaker.getState() == RedisCircuitBreaker.State.OPEN;
+    }
+
+    @Test
+    void test_thresholdOpens() {
+        for (int i = 0; i < FAILURE_THRESHOLD - 1; i++)
+            circuitBreaker.onFailure(circuitBreaker.tryAcquire());
+        assert circuitBreaker.getState() == RedisCircuitBreaker.State.CLOSED;
+
+        circuitBreaker.onFailure(circuitBreaker.tryAcquire());
+        assert circuitBreaker.getState() == RedisCircuitBreaker.State.OPEN;
+        assert circuitBreaker.getOpenedCount() == 1;
+    }
+
+    @Test
+    void test_successResetsConsecutiveFailures() {
+        for (int i = 0; i < FAILURE_THRESHOLD - 1; i++)
+            circuitBreaker.onFailure(circuitBreaker.tryAcquire());
+        circuitBreaker.onSuccess(circuitBreaker.tryAcquire());
+        circuitBreaker.onFailure(circuitBreaker.tryAcquire());
+
+        assert circuitBreaker.getState() == RedisCircuitBreaker.State.CLOSED;
+    }
+
+    @Test
+    void test_openRejectsUntilOpenDurationIsOver() {
+        RedisCircuitBreaker longOpen = new RedisCircuitBreaker(true, 1, 60_000);
+        longOpen.onFailure(longOpen.tryAcquire());
+
+        assert longOpen.tryAcquire() == RedisCircuitBreaker.REJECTED;
+        assert longOpen.getRejectedCount() == 1;
+    }
+
+    @Test
+    void test_halfOpen_singleTrial_successCloses() {
+        open();
+        long trial = circuitBreaker.tryAcquire();
+        assert trial > RedisCircuitBreaker.CLOSED_PERMIT;
+        assert circuitBreaker.getState() == RedisCircuitBreaker.State.HALF_OPEN;
+        //no other read while trial is in progress
+        assert circuitBreaker.tryAcquire() == RedisCircuitBreaker.REJECTED;
+
+        circuitBreaker.onSuccess(trial);
+        assert circuitBreaker.getState() == RedisCircuitBreaker.State.CLOSED;
+        assert circuitBreaker.tryAcquire() == RedisCircuitBreaker.CLOSED_PERMIT;
+    }
+
+    @Test
+    void test_halfOpen_trialFailureReopens() {
+        open();
+        long trial = circuitBreaker.tryAcquire();
+
+        circuitBreaker.onFailure(trial);
+        assert circuitBreaker.getState() == RedisCircuitBreaker.State.OPEN;
+        assert circuitBreaker.getOpenedCount() == 2;
+    }
+
+    @Test
+    void test_halfOpen_cancelledTrialReturnsToOpen() {
+        open();
+        long trial = circuitBreaker.tryAcquire();
+
+        circuitBreaker.onCancel(trial);
+        assert circuitBreaker.getState() == RedisCircuitBreaker.State.OPEN;
+        //next caller performs a new trial, the cancelled one can't close the breaker anymore
+        long nextTrial = circuitBreaker.tryAcquire();
+        assert nextTrial > trial;
+        circuitBreaker.onSuccess(trial);
+        assert circuitBreaker.getState() == RedisCircuitBreaker.State.HALF_OPEN;
+        circuitBreaker.onSuccess(nextTrial);
+        assert circuitBreaker.getState() == RedisCircuitBreaker.State.CLOSED;
+    }
+
+    @Test
+    void test_readStartedBeforeOpeningDoesNotClose() {
+        long lateRead = circuitBreaker.tryAcquire();
+        open();
+        long trial = circuitBreaker.tryAcquire();
+
+        //late reply of the read started while closed
+        circuitBreaker.onSuccess(lateRead);
+        assert circuitBreaker.getState() == RedisCircuitBreaker.State.HALF_OPEN;
+        circuitBreaker.onFailure(lateRead);
+        assert circuitBreaker.getState() == RedisCircuitBreaker.State.HALF_OPEN;
+        circuitBreaker.onCancel(lateRead);
+        assert circuitBreaker.getState() == RedisCircuitBreaker.State.HALF_OPEN;
+
+        circuitBreaker.onFailure(trial);
+        assert circuitBreaker.getState() == RedisCircuitBreaker.State.OPEN;
+    }
+
+    @Test
+    void test_disabledNeverOpens() {
+        RedisCircuitBreaker disabled = new RedisCircuitBreaker(false, 1, 60_000);
+        for (int i = 0; i < 10; i++)
+            disabled.onFailure(disabled.tryAcquire());
+
+        assert disabled.getState() == RedisCircuitBreaker.State.CLOSED;
+    }
+}
@@ -0,0 +1,84 @@
+package com.vsware.libraries.redisreactivecache.cluster;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+class ConsistentHashRingTest {
+
+    private static final List<String> KEYS = IntStream.range(0, 10_000).mapToObj(index -> "user_" + index)
+            .collect(Collectors.toList());
+
+    private static Map<String, String> nodes(String... names) {
+        Map<String, String> nodes = new LinkedHashMap<>();
+        for (String name : names) {
+            nodes.put(name, name);
+        }
+        return nodes;
+    }
+
+    @Test
+    void test_placementDoesNotDependOnNodeOrder() {
+        ConsistentHashRing<String> ring = new ConsistentHashRing<>(nodes("redis1:6379", "redis2:6379", "redis3:6379"), 160);
+        ConsistentHashRing<String> reordered = new ConsistentHashRing<>(nodes("redis3:6379", "redis1:6379", "redis2:6379"), 160);
+        for (String key : KEYS) {
+            assert ring.get(key).equals(reordered.get(key)) : key;
+        }
+        assert ring.getNodes().size() == 3;
+    }
+
+    @Test
+    void test_keysSpreadOverEveryNode() {
+        ConsistentHashRing<String> ring = new ConsistentHashRing<>(nodes("redis1:6379", "redis2:6379", "redis3:6379"), 160);
+        Map<String, Long> counts = KEYS.stream().collect(Collectors.groupingBy(ring::get, Collectors.counting()));
+        assert counts.size() == 3;
+        //each node holds roughly a third of the keys
+        counts.values().forEach(count -> {
+            assert count > KEYS.size() / 5 : counts;
+        });
+    }
+
+    @Test
+    void test_addedNodeMovesOnlyItsShare() {
+        ConsistentHashRing<String> ring = new ConsistentHashRing<>(nodes("redis1:6379", "redis2:6379", "redis3:6379"), 160);
+        ConsistentHashRing<String> grown = new ConsistentHashRing<>(
+                nodes("redis1:6379", "redis2:6379", "redis3:6379", "redis4:6379"), 160);
+        long moved = 0;
+        for (String key : KEYS) {
+            if (ring.get(key).equals(grown.get(key)))
+                continue;
+            //keys move only to the new node
+            assert grown.get(key).equals("redis4:6379") : key;
+            moved++;
+        }
+        //~1/4 of the keys
+        assert moved > KEYS.size() / 8 && moved < KEYS.size() / 2 : moved;
+    }
+
+    @Test
+    void test_keysSharingHashTagShareNode() {
+        ConsistentHashRing<String> ring = new ConsistentHashRing<>(nodes("redis1:6379", "redis2:6379", "redis3:6379"), 160);
+        Set<String> teamNodes = new HashSet<>();
+        for (int i = 0; i < 100; i++) {
+            teamNodes.add(ring.get("{team1}user_" + i));
+        }
+        assert teamNodes.size() == 1;
+        assert teamNodes.contains(ring.get("team1"));
+    }
+
+    @Test
+    void test_requiresNode() {
+        try {
+            new ConsistentHashRing<>(nodes(), 160);
+            assert false;
+        } catch (IllegalArgumentException e) {
+            assert e.getMessage().contains("at least one node");
+        }
+    }
+}
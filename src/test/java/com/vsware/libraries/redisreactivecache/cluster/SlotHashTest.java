@@ -0,0 +1,56 @@
+package com.vsware.libraries.redisreactivecache.cluster;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+class SlotHashTest {
+
+    @Test
+    void test_slot_matchesRedisCluster() {
+        //values from Redis Cluster specification and CLUSTER KEYSLOT
+        assert SlotHash.crc16("123456789".getBytes()) == 0x31C3;
+        assert SlotHash.slot("foo") == 12182;
+        assert SlotHash.slot("{user1000}.following") == SlotHash.slot("{user1000}.followers");
+    }
+
+    @Test
+    void test_hashedPart() {
+        assert SlotHash.hashedPart("{user1000}.following").equals("user1000");
+        assert SlotHash.hashedPart("foo{{bar}}zap").equals("{bar");
+        //empty tag or no closing brace - whole key is hashed
+        assert SlotHash.hashedPart("foo{}{bar}").equals("foo{}{bar}");
+        assert SlotHash.hashedPart("foo{bar").equals("foo{bar");
+        assert SlotHash.hashedPart("foo}bar").equals("foo}bar");
+    }
+
+    @Test
+    void test_companionKey_sharesSlot() {
+        for (String key : List.of("user_1", "{team}user_1", "foo{bar", "a{b}c", "list_[1, 2]")) {
+            assert SlotHash.slot(SlotHash.companionKey(key, ":v")) == SlotHash.slot(key) : key;
+        }
+        assert SlotHash.companionKey("user_1", ":v").equals("{user_1}:v");
+        assert SlotHash.companionKey("{team}user_1", ":v").equals("{team}user_1:v");
+    }
+
+    @Test
+    void test_companionKey_keyWithClosingBraceWithoutTag_sharesSlot() {
+        //wrapping such key in braces would hash only part of it - companion is padded to the slot instead
+        for (String key : List.of("foo}bar", "map_{}", "a}{b", "}", "{}", "{}x", "x_{}{y}", "", "args_{=1}")) {
+            String companionKey = SlotHash.companionKey(key, ":v");
+            assert companionKey.startsWith(key + ":v") : key;
+            assert companionKey.length() <= key.length() + 2 + 4 : key;
+            assert SlotHash.slot(companionKey) == SlotHash.slot(key) : key;
+            //stable - the same companion is derived every time
+            assert companionKey.equals(SlotHash.companionKey(key, ":v")) : key;
+        }
+    }
+
+    @Test
+    void test_companionKey_manyKeys_sharesSlot() {
+        for (int i = 0; i < 2000; i++) {
+            String key = "key}" + i;
+            assert SlotHash.slot(SlotHash.companionKey(key, ":tmp:" + i)) == SlotHash.slot(key) : key;
+        }
+    }
+}
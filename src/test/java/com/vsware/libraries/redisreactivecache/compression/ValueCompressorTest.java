@@ -0,0 +1,97 @@
+package com.vsware.libraries.redisreactivecache.compression;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+class ValueCompressorTest {
+
+    private static final int THRESHOLD = 256;
+
+    private final DeflateCompressionAlgorithm deflate = new DeflateCompressionAlgorithm(6);
+    private final ValueCompressor valueCompressor = new ValueCompressor(List.of(deflate), DeflateCompressionAlgorithm.NAME, true, THRESHOLD);
+
+    private byte[] compressible(int length) {
+        byte[] payload = new byte[length];
+        byte[] pattern = "{\"name\":\"value\"},".getBytes(StandardCharsets.UTF_8);
+        for (int i = 0; i < length; i++)
+            payload[i] = pattern[i % pattern.length];
+        return payload;
+    }
+
+    @Test
+    void test_compress_aboveThreshold_headerAndRoundTrip() {
+        byte[] payload = compressible(THRESHOLD * 10);
+        byte[] stored = valueCompressor.compress(payload);
+
+        assert stored[0] == (byte) 0xFD;
+        assert stored[1] == DeflateCompressionAlgorithm.ID;
+        assert stored.length < payload.length;
+        assert Arrays.equals(valueCompressor.decompress(stored), payload);
+        assert valueCompressor.getStats().getCompressedCount() == 1;
+        assert valueCompressor.getStats().getDecompressedCount() == 1;
+        assert valueCompressor.getStats().getRatio() < 1;
+    }
+
+    @Test
+    void test_compress_belowThreshold_storedAsIs() {
+        byte[] payload = compressible(THRESHOLD - 1);
+
+        assert valueCompressor.compress(payload) == payload;
+        assert valueCompressor.decompress(payload) == payload;
+        assert valueCompressor.getStats().getCompressedCount() == 0;
+        assert valueCompressor.getStats().getSkippedCount() == 0;
+    }
+
+    @Test
+    void test_compress_atThreshold_compressed() {
+        byte[] stored = valueCompressor.compress(compressible(THRESHOLD));
+
+        assert stored[0] == (byte) 0xFD;
+    }
+
+    @Test
+    void test_compress_incompressible_storedAsIs() {
+        byte[] payload = new byte[THRESHOLD * 4];
+        ThreadLocalRandom.current().nextBytes(payload);
+        payload[0] = '{';
+
+        assert valueCompressor.compress(payload) == payload;
+        assert valueCompressor.getStats().getSkippedCount() == 1;
+    }
+
+    @Test
+    void test_compress_disabled_compressedValuesStillReadable() {
+        byte[] payload = compressible(THRESHOLD * 10);
+        byte[] stored = valueCompressor.compress(payload);
+        ValueCompressor disabled = new ValueCompressor(List.of(deflate), DeflateCompressionAlgorithm.NAME, false, THRESHOLD);
+
+        assert disabled.compress(payload) == payload;
+        assert Arrays.equals(disabled.decompress(stored), payload);
+    }
+
+    @Test
+    void test_decompress_unknownAlgorithm() {
+        byte[] stored = valueCompressor.compress(compressible(THRESHOLD * 10));
+        stored[1] = 42;
+
+        Assertions.assertThrows(SerializationException.class, () -> valueCompressor.decompress(stored));
+    }
+
+    @Test
+    void test_decompress_truncated() {
+        byte[] stored = valueCompressor.compress(compressible(THRESHOLD * 10));
+
+        Assertions.assertThrows(SerializationException.class, () -> valueCompressor.decompress(Arrays.copyOf(stored, stored.length / 2)));
+    }
+
+    @Test
+    void test_constructor_unknownAlgorithm() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new ValueCompressor(List.of(deflate), "lz4", true, THRESHOLD));
+    }
+}
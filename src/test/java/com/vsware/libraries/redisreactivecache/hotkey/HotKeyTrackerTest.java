@@ -0,0 +1,84 @@
+package com.vsware.libraries.redisreactivecache.hotkey;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class HotKeyTrackerTest {
+
+    private static HotKeyTracker tracker(Runnable onRotate) {
+        return new HotKeyTracker(true, 1, 10, Duration.ofMillis(100), 1024, 4, false, 0, Duration.ofSeconds(1)) {
+            @Override
+            void rotate() {
+                onRotate.run();
+                super.rotate();
+            }
+        };
+    }
+
+    @Test
+    void test_rotation_continuesAfterFailure() {
+        AtomicInteger rotations = new AtomicInteger();
+        HotKeyTracker hotKeyTracker = tracker(() -> {
+            if (rotations.incrementAndGet() == 1)
+                throw new IllegalStateException("rotation failure");
+        });
+        hotKeyTracker.afterPropertiesSet();
+        try {
+            StepVerifier.create(Mono.fromSupplier(rotations::get)
+                            .filter(count -> count >= 3)
+                            .repeatWhenEmpty(repeat -> repeat.take(50).delayElements(Duration.ofMillis(20))))
+                    .expectNextMatches(count -> count >= 3)
+                    .verifyComplete();
+        } finally {
+            hotKeyTracker.destroy();
+        }
+    }
+
+    @Test
+    void test_rotation_publishesTopKeysAfterFailure() {
+        AtomicInteger rotations = new AtomicInteger();
+        HotKeyTracker hotKeyTracker = tracker(() -> {
+            if (rotations.incrementAndGet() == 1)
+                throw new IllegalStateException("rotation failure");
+        });
+
+        hotKeyTracker.record("TestService.get", "hot");
+        hotKeyTracker.onWindow();
+        assert hotKeyTracker.getTopKeys().isEmpty();
+
+        hotKeyTracker.onWindow();
+        assert hotKeyTracker.getTopKeys().size() == 1;
+        assert hotKeyTracker.getTopKeys().get(0).getKey().equals("hot");
+    }
+
+    @Test
+    void test_promoted_loadRacingInvalidation() {
+        HotKeyTracker hotKeyTracker = new HotKeyTracker(true, 1, 10, Duration.ofMillis(100), 1024, 4, true, 0,
+                Duration.ofMinutes(1));
+        hotKeyTracker.record("TestService.get", "hot1");
+        hotKeyTracker.record("TestService.get", "hot2");
+        hotKeyTracker.rotate();
+        assert hotKeyTracker.getPromotedCount() == 2;
+        AtomicInteger loads = new AtomicInteger();
+
+        //invalidation of other key doesn't hold back the load
+        Mono<Integer> load = Mono.defer(() -> {
+            hotKeyTracker.invalidate("hot2");
+            return Mono.just(loads.incrementAndGet());
+        });
+        assert hotKeyTracker.promoted("hot1", load).block() == 1;
+        assert hotKeyTracker.promoted("hot1", load).block() == 1;
+
+        //invalidation of the key while it's loaded - the loaded value may be stale already
+        Mono<Integer> racingLoad = Mono.defer(() -> {
+            hotKeyTracker.invalidate("hot2");
+            return Mono.just(loads.incrementAndGet());
+        });
+        assert hotKeyTracker.promoted("hot2", racingLoad).block() == 2;
+        assert hotKeyTracker.promoted("hot2", Mono.fromSupplier(loads::incrementAndGet)).block() == 3;
+    }
+}
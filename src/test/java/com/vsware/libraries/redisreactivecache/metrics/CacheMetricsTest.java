@@ -0,0 +1,54 @@
+package com.vsware.libraries.redisreactivecache.metrics;
+
+import com.vsware.libraries.redisreactivecache.metadata.CacheOperation;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Method;
+
+class CacheMetricsTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final CacheMetrics cacheMetrics = new CacheMetrics(registry, "test.cache");
+
+    @Test
+    void test_forMethod_recordsTaggedMeters() throws NoSuchMethodException {
+        Method method = CacheMetricsTest.class.getDeclaredMethod("test_forMethod_recordsTaggedMeters");
+        CacheMethodMeters meters = cacheMetrics.forMethod(method, CacheOperation.GET, "testKey");
+
+        meters.hit(2);
+        meters.miss(1);
+        meters.bypass(3);
+        meters.error(CacheMethodMeters.ErrorStage.DECODE);
+        meters.load(System.nanoTime());
+        meters.decoded(System.nanoTime(), 100);
+
+        String methodName = "CacheMetricsTest.test_forMethod_recordsTaggedMeters";
+        assert registry.get("test.cache.gets").tags("method", methodName, "cache", "testKey", "operation", "get", "result", "hit")
+                .counter().count() == 2;
+        assert registry.get("test.cache.gets").tags("method", methodName, "result", "miss").counter().count() == 1;
+        assert registry.get("test.cache.bypassed").tags("method", methodName).counter().count() == 3;
+        assert registry.get("test.cache.errors").tags("method", methodName, "stage", "decode").counter().count() == 1;
+        assert registry.get("test.cache.errors").tags("method", methodName, "stage", "load").counter().count() == 0;
+        assert registry.get("test.cache.load").tags("method", methodName).timer().count() == 1;
+        assert registry.get("test.cache.decode").tags("method", methodName).timer().count() == 1;
+        assert registry.get("test.cache.payload").tags("method", methodName, "direction", "read").summary().totalAmount() == 100;
+    }
+
+    @Test
+    void test_forCache_taggedWithSpecName() {
+        cacheMetrics.forCache("users", CacheOperation.GET_ALL).hit(1);
+
+        assert registry.get("test.cache.gets").tags("method", "users", "cache", "users", "operation", "get_all", "result", "hit")
+                .counter().count() == 1;
+    }
+
+    @Test
+    void test_forCache_sameNameSharesMeters() {
+        cacheMetrics.forCache("users", CacheOperation.GET).hit(1);
+        cacheMetrics.forCache("users", CacheOperation.GET).hit(1);
+
+        assert registry.get("test.cache.gets").tags("cache", "users", "result", "hit").counters().size() == 1;
+        assert registry.get("test.cache.gets").tags("cache", "users", "result", "hit").counter().count() == 2;
+    }
+}
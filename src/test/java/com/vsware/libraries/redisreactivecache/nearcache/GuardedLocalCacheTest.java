@@ -0,0 +1,72 @@
+package com.vsware.libraries.redisreactivecache.nearcache;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+
+class GuardedLocalCacheTest {
+
+    @Test
+    void test_loadedValueIsStored() {
+        GuardedLocalCache cache = new GuardedLocalCache(100, Duration.ofMinutes(1));
+        assert "value1".equals(cache.cached("key1", Mono.just("value1")).block());
+        assert "value1".equals(cache.get("key1"));
+        //served from the copy
+        assert "value1".equals(cache.cached("key1", Mono.just("value2")).block());
+    }
+
+    @Test
+    void test_loadRacingInvalidationOfItsKeyNotStored() {
+        GuardedLocalCache cache = new GuardedLocalCache(100, Duration.ofMinutes(1));
+        Mono<String> racingLoad = Mono.defer(() -> {
+            cache.invalidate("key1");
+            return Mono.just("stale");
+        });
+        assert "stale".equals(cache.cached("key1", racingLoad).block());
+        assert cache.get("key1") == null;
+
+        //the next load of the key is stored again
+        cache.cached("key1", Mono.just("value1")).block();
+        assert "value1".equals(cache.get("key1"));
+    }
+
+    @Test
+    void test_loadRacingInvalidationOfOtherKeyStored() {
+        GuardedLocalCache cache = new GuardedLocalCache(100, Duration.ofMinutes(1));
+        Mono<String> load = Mono.defer(() -> {
+            cache.invalidate("key2");
+            return Mono.just("value1");
+        });
+        cache.cached("key1", load).block();
+        assert "value1".equals(cache.get("key1"));
+    }
+
+    @Test
+    void test_concurrentLoadsOfKeyNotStoredAfterInvalidation() {
+        GuardedLocalCache cache = new GuardedLocalCache(100, Duration.ofMinutes(1));
+        Sinks.One<String> first = Sinks.one();
+        Sinks.One<String> second = Sinks.one();
+        cache.cached("key1", first.asMono()).subscribe();
+        cache.cached("key1", second.asMono()).subscribe();
+
+        cache.invalidate("key1");
+        first.tryEmitValue("stale1");
+        second.tryEmitValue("stale2");
+        assert cache.get("key1") == null;
+    }
+
+    @Test
+    void test_loadRacingInvalidateAllNotStored() {
+        GuardedLocalCache cache = new GuardedLocalCache(100, Duration.ofMinutes(1));
+        cache.cached("key2", Mono.just("value2")).block();
+        Mono<String> racingLoad = Mono.defer(() -> {
+            cache.invalidateAll();
+            return Mono.just("stale");
+        });
+        cache.cached("key1", racingLoad).block();
+        assert cache.get("key1") == null;
+        assert cache.get("key2") == null;
+    }
+}
@@ -0,0 +1,85 @@
+package com.vsware.libraries.redisreactivecache.refresh;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+class RefreshAheadTest {
+
+    private final RefreshAhead refreshAhead = new RefreshAhead(1.0);
+
+    @Test
+    void test_wrap_unwrap_roundTrip() {
+        byte[] payload = "{\"id\":1}".getBytes(StandardCharsets.UTF_8);
+        long before = System.currentTimeMillis();
+        CacheEnvelope envelope = refreshAhead.unwrap(refreshAhead.wrap(payload, 60_000, 42));
+
+        assert envelope != null;
+        assert Arrays.equals(envelope.getPayload(), payload);
+        assert envelope.getLoadMillis() == 42;
+        assert envelope.getSoftExpireAt() >= before + 60_000;
+        assert envelope.getSoftExpireAt() <= System.currentTimeMillis() + 60_000;
+    }
+
+    @Test
+    void test_unwrap_valueWithoutHeader() {
+        //written by Add/Update - served as is
+        assert refreshAhead.unwrap("{\"id\":1}".getBytes(StandardCharsets.UTF_8)) == null;
+        //shorter than header
+        assert refreshAhead.unwrap(new byte[]{(byte) 0xFE, 1, 2}) == null;
+    }
+
+    @Test
+    void test_unwrap_emptyPayload() {
+        CacheEnvelope envelope = refreshAhead.unwrap(refreshAhead.wrap(new byte[0], 1000, 0));
+
+        assert envelope != null;
+        assert envelope.getPayload().length == 0;
+    }
+
+    @Test
+    void test_shouldRefresh_pastSoftExpiry() {
+        CacheEnvelope envelope = new CacheEnvelope(new byte[0], System.currentTimeMillis() - 1, 0);
+
+        assert refreshAhead.shouldRefresh(envelope);
+    }
+
+    @Test
+    void test_shouldRefresh_fastLoadFarFromSoftExpiry() {
+        //no load time - no early refresh
+        CacheEnvelope envelope = new CacheEnvelope(new byte[0], System.currentTimeMillis() + 60_000, 0);
+
+        for (int i = 0; i < 1000; i++)
+            assert !refreshAhead.shouldRefresh(envelope);
+    }
+
+    @Test
+    void test_shouldRefresh_slowLoadRefreshesEarly() {
+        //value which takes much longer to load than the time left is almost always refreshed early
+        CacheEnvelope envelope = new CacheEnvelope(new byte[0], System.currentTimeMillis() + 1000, 1_000_000);
+
+        long refreshed = 0;
+        for (int i = 0; i < 1000; i++)
+            if (refreshAhead.shouldRefresh(envelope))
+                refreshed++;
+        assert refreshed > 900;
+    }
+
+    @Test
+    void test_shouldRefresh_higherBetaRefreshesEarlier() {
+        CacheEnvelope envelope = new CacheEnvelope(new byte[0], System.currentTimeMillis() + 1000, 1000);
+        RefreshAhead eager = new RefreshAhead(10.0);
+        RefreshAhead lazy = new RefreshAhead(0.1);
+
+        long eagerRefreshed = 0;
+        long lazyRefreshed = 0;
+        for (int i = 0; i < 1000; i++) {
+            if (eager.shouldRefresh(envelope))
+                eagerRefreshed++;
+            if (lazy.shouldRefresh(envelope))
+                lazyRefreshed++;
+        }
+        assert eagerRefreshed > lazyRefreshed;
+    }
+}
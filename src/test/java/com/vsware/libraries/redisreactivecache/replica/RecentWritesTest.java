@@ -0,0 +1,52 @@
+package com.vsware.libraries.redisreactivecache.replica;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+class RecentWritesTest {
+
+    @Test
+    void test_writtenKeyIsRecentWithinWindow() {
+        RecentWrites recentWrites = new RecentWrites(Duration.ofMinutes(1), 100);
+        recentWrites.written("key1");
+        recentWrites.written(List.of("key2", "key3"));
+
+        assert recentWrites.isRecent("key1");
+        assert recentWrites.isRecent("key2");
+        assert recentWrites.isRecent("key3");
+        assert !recentWrites.isRecent("key4");
+    }
+
+    @Test
+    void test_keyIsNotRecentAfterWindow() throws InterruptedException {
+        RecentWrites recentWrites = new RecentWrites(Duration.ofMillis(100), 100);
+        recentWrites.written("key1");
+        assert recentWrites.isRecent("key1");
+
+        Thread.sleep(250);
+        assert !recentWrites.isRecent("key1");
+    }
+
+    @Test
+    void test_rewriteRestartsWindow() throws InterruptedException {
+        RecentWrites recentWrites = new RecentWrites(Duration.ofMillis(300), 100);
+        recentWrites.written("key1");
+        Thread.sleep(200);
+        recentWrites.written("key1");
+        Thread.sleep(200);
+
+        assert recentWrites.isRecent("key1");
+    }
+
+    @Test
+    void test_disabledWindow() {
+        RecentWrites recentWrites = new RecentWrites(Duration.ZERO, 100);
+        recentWrites.written("key1");
+        recentWrites.written(List.of("key2"));
+
+        assert !recentWrites.isRecent("key1");
+        assert !recentWrites.isRecent("key2");
+    }
+}
@@ -4,6 +4,7 @@ import com.github.javafaker.Faker;
 import com.vsware.libraries.redisreactivecache.annotation.RedisReactiveCacheAdd;
 import com.vsware.libraries.redisreactivecache.annotation.RedisReactiveCacheEvict;
 import com.vsware.libraries.redisreactivecache.annotation.RedisReactiveCacheGet;
+import com.vsware.libraries.redisreactivecache.annotation.RedisReactiveCacheGetAll;
 import com.vsware.libraries.redisreactivecache.annotation.RedisReactiveCacheUpdate;
 import com.vsware.libraries.redisreactivecache.model.TestTable;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -11,6 +12,7 @@ import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -35,6 +37,15 @@ public class TestService {
         //end
     }
 
+    @RedisReactiveCacheAdd(key = "#name", ttl = 60, ttlJitter = 0.5)
+    public Mono<TestTable> storeInDbWithTtl(String name) throws InterruptedException {
+        //imitating call to db
+        Thread.sleep(10);
+        methodCall.incrementAndGet();
+        return Mono.just(new TestTable(1, name, LocalDateTime.now()));
+        //end
+    }
+
     @RedisReactiveCacheAdd(key = "names", useArgsHash = true)
     public Flux<TestTable> storeMultipleInDb(List<String> names) throws InterruptedException {
         //imitating call to db
@@ -57,6 +68,41 @@ public class TestService {
         //end
     }
 
+    @RedisReactiveCacheGet(key = "#name")
+    public Mono<TestTable> getFromSlowDb(String name) {
+        //imitating slow non-blocking call to db
+        methodCall.incrementAndGet();
+        return Mono.just(new TestTable(1, name, LocalDateTime.now())).delayElement(Duration.ofMillis(200));
+        //end
+    }
+
+    @RedisReactiveCacheGet(key = "#name", nearCache = true)
+    public Mono<TestTable> getNearCachedFromDb(String name) throws InterruptedException {
+        //imitating call to db
+        Thread.sleep(10);
+        methodCall.incrementAndGet();
+        return Mono.just(new TestTable(1, name, LocalDateTime.now()));
+        //end
+    }
+
+    @RedisReactiveCacheGet(key = "#name", negativeTtl = 60)
+    public Mono<TestTable> findMissingInDb(String name) throws InterruptedException {
+        //imitating call to db which finds nothing
+        Thread.sleep(10);
+        methodCall.incrementAndGet();
+        return Mono.empty();
+        //end
+    }
+
+    @RedisReactiveCacheGet(key = "#name", hashTag = "#team", tags = "#team")
+    public Mono<TestTable> getTeamMemberFromDb(String team, String name) throws InterruptedException {
+        //imitating call to db
+        Thread.sleep(10);
+        methodCall.incrementAndGet();
+        return Mono.just(new TestTable(1, name, LocalDateTime.now()));
+        //end
+    }
+
     @RedisReactiveCacheGet(key = "names", useArgsHash = true)
     public Flux<TestTable> getMultipleFromDb(List<String> names) throws InterruptedException {
         //imitating call to db
@@ -70,6 +116,70 @@ public class TestService {
         //end
     }
 
+    @RedisReactiveCacheGet(key = "taggedNames", useArgsHash = true, tags = "taggedNames")
+    public Flux<TestTable> getTaggedMultipleFromDb(List<String> names) throws InterruptedException {
+        //imitating call to db
+        Thread.sleep(10);
+        methodCall.incrementAndGet();
+        return Flux.fromIterable(
+                IntStream.range(0, names.size())
+                        .mapToObj(index -> new TestTable(index, names.get(index), LocalDateTime.now()))
+                        .collect(Collectors.toList())
+        );
+        //end
+    }
+
+    @RedisReactiveCacheGet(key = "people", useArgsHash = true, entityKey = "person", entityId = "#result.getName()")
+    public Flux<TestTable> getPeopleFromDb(List<String> names) throws InterruptedException {
+        //imitating call to db
+        Thread.sleep(10);
+        methodCall.incrementAndGet();
+        return Flux.fromIterable(
+                IntStream.range(0, names.size())
+                        .mapToObj(index -> new TestTable(index, names.get(index), LocalDateTime.now()))
+                        .collect(Collectors.toList())
+        );
+        //end
+    }
+
+    @RedisReactiveCacheGet(key = "slowPeople", useArgsHash = true, entityKey = "person", entityId = "#result.getName()")
+    public Flux<TestTable> getPeopleFromSlowDb(List<String> names) {
+        //imitating slow non-blocking call to db
+        methodCall.incrementAndGet();
+        return Flux.fromIterable(
+                IntStream.range(0, names.size())
+                        .mapToObj(index -> new TestTable(index, names.get(index), LocalDateTime.now()))
+                        .collect(Collectors.toList())
+        ).delaySubscription(Duration.ofMillis(200));
+        //end
+    }
+
+    @RedisReactiveCacheGet(key = "streamed", useArgsHash = true, streaming = true)
+    public Flux<TestTable> getMultipleFromDbStreaming(List<String> names) throws InterruptedException {
+        //imitating call to db
+        Thread.sleep(10);
+        methodCall.incrementAndGet();
+        return Flux.fromIterable(
+                IntStream.range(0, names.size())
+                        .mapToObj(index -> new TestTable(index, names.get(index), LocalDateTime.now()))
+                        .collect(Collectors.toList())
+        );
+        //end
+    }
+
+    @RedisReactiveCacheGetAll(key = "person", resultId = "#result.getName()")
+    public Flux<TestTable> getAllFromDb(List<String> names) throws InterruptedException {
+        //imitating call to db
+        Thread.sleep(10);
+        methodCall.incrementAndGet();
+        return Flux.fromIterable(
+                IntStream.range(0, names.size())
+                        .mapToObj(index -> new TestTable(index, names.get(index), LocalDateTime.now()))
+                        .collect(Collectors.toList())
+        );
+        //end
+    }
+
     @RedisReactiveCacheUpdate(key = "#testTable.getId().toString()")
     public Mono<TestTable> updateDbRecord(TestTable testTable) throws InterruptedException {
         //imitating call to db
@@ -79,6 +189,15 @@ public class TestService {
         //end
     }
 
+    @RedisReactiveCacheUpdate(key = "'person_' + #testTable.getName()")
+    public Mono<TestTable> updatePerson(TestTable testTable) throws InterruptedException {
+        //imitating call to db
+        Thread.sleep(10);
+        methodCall.incrementAndGet();
+        return Mono.just(testTable);
+        //end
+    }
+
     @RedisReactiveCacheUpdate(key = "multiple")
     public Flux<TestTable> updateMultipleDbRecords(List<TestTable> testTables) throws InterruptedException {
         //imitating call to db
@@ -105,4 +224,13 @@ public class TestService {
         return Mono.empty();
         //end
     }
+
+    @RedisReactiveCacheEvict(key = "taggedNames", useArgsHash = true, evictTags = "taggedNames")
+    public Mono<Void> deleteTaggedMultipleDbRecs(List<TestTable> testTables) throws InterruptedException {
+        //imitating call to db
+        Thread.sleep(10);
+        methodCall.incrementAndGet();
+        return Mono.empty();
+        //end
+    }
 }
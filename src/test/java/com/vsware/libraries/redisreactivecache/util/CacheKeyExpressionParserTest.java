@@ -0,0 +1,39 @@
+package com.vsware.libraries.redisreactivecache.util;
+
+import org.junit.jupiter.api.Test;
+
+class CacheKeyExpressionParserTest {
+
+    private static final String[] PARAMETER_NAMES = {"name", "id"};
+
+    @Test
+    void test_toRootReferences_parametersOutsideLiterals() {
+        assert CacheKeyExpressionParser.toRootReferences("#name + '_' + #id", PARAMETER_NAMES)
+                .equals("#root[0] + '_' + #root[1]");
+        //unknown names stay variables
+        assert CacheKeyExpressionParser.toRootReferences("#other + #name", PARAMETER_NAMES).equals("#other + #root[0]");
+    }
+
+    @Test
+    void test_toRootReferences_singleQuotedLiteral() {
+        assert CacheKeyExpressionParser.toRootReferences("'#name' + #name", PARAMETER_NAMES).equals("'#name' + #root[0]");
+        //doubled quote is escaped quote, the literal continues
+        assert CacheKeyExpressionParser.toRootReferences("'it''s #name' + #id", PARAMETER_NAMES)
+                .equals("'it''s #name' + #root[1]");
+    }
+
+    @Test
+    void test_toRootReferences_doubleQuotedLiteral() {
+        assert CacheKeyExpressionParser.toRootReferences("\"#name\" + #name", PARAMETER_NAMES).equals("\"#name\" + #root[0]");
+        assert CacheKeyExpressionParser.toRootReferences("\"say \"\"#id\"\"\" + #id", PARAMETER_NAMES)
+                .equals("\"say \"\"#id\"\"\" + #root[1]");
+    }
+
+    @Test
+    void test_toRootReferences_otherQuoteInsideLiteral() {
+        assert CacheKeyExpressionParser.toRootReferences("\"it's #name\" + #name", PARAMETER_NAMES)
+                .equals("\"it's #name\" + #root[0]");
+        assert CacheKeyExpressionParser.toRootReferences("'say \"#id' + #id", PARAMETER_NAMES)
+                .equals("'say \"#id' + #root[1]");
+    }
+}
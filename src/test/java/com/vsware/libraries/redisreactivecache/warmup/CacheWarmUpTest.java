@@ -0,0 +1,59 @@
+package com.vsware.libraries.redisreactivecache.warmup;
+
+import com.vsware.libraries.redisreactivecache.metadata.CacheMethodMetadata;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+class CacheWarmUpTest {
+
+    private final CacheMethodMetadata findUser = CacheMethodMetadata.builder().build();
+    private final CacheMethodMetadata findOrder = CacheMethodMetadata.builder().build();
+    private final Map<String, CacheMethodMetadata> getMethods = Map.of(
+            "UserService.findUser", findUser,
+            "OrderService.findOrder", findOrder);
+
+    @Test
+    void test_parseHotKeys_groupedByMethod() {
+        Map<CacheMethodMetadata, List<String>> hotKeys = CacheWarmUp.parseHotKeys(List.of(
+                "UserService.findUser user_1",
+                "OrderService.findOrder order_1",
+                "UserService.findUser user_2"), getMethods);
+
+        assert hotKeys.size() == 2;
+        assert hotKeys.get(findUser).equals(List.of("user_1", "user_2"));
+        assert hotKeys.get(findOrder).equals(List.of("order_1"));
+    }
+
+    @Test
+    void test_parseHotKeys_skipsCommentsBlankAndMalformedLines() {
+        Map<CacheMethodMetadata, List<String>> hotKeys = CacheWarmUp.parseHotKeys(List.of(
+                "# exported hot keys",
+                "",
+                "   ",
+                "UserService.findUser",
+                "#UserService.findUser user_0",
+                "UserService.findUser user_1"), getMethods);
+
+        assert hotKeys.size() == 1;
+        assert hotKeys.get(findUser).equals(List.of("user_1"));
+    }
+
+    @Test
+    void test_parseHotKeys_trimsAndKeepsSpacesInsideKey() {
+        Map<CacheMethodMetadata, List<String>> hotKeys = CacheWarmUp.parseHotKeys(List.of(
+                "  UserService.findUser   user with spaces  "), getMethods);
+
+        assert hotKeys.get(findUser).equals(List.of("user with spaces"));
+    }
+
+    @Test
+    void test_parseHotKeys_unknownMethodSkipped() {
+        Map<CacheMethodMetadata, List<String>> hotKeys = CacheWarmUp.parseHotKeys(List.of(
+                "UserService.deleteUser user_1",
+                "userservice.finduser user_1"), getMethods);
+
+        assert hotKeys.isEmpty();
+    }
+}